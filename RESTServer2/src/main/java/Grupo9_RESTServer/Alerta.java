@@ -0,0 +1,59 @@
+package Grupo9_RESTServer;
+
+/**
+ * Registo de uma categoria ou subcategoria que ultrapassou um limiar do seu gasto máximo.
+ */
+public class Alerta {
+
+    private final long id;
+    private final String instante;
+    private final String tipo;
+    private final String nome;
+    private final double limiar;
+    private final double gasto;
+    private final double gastoMaximo;
+
+    public Alerta(long id, String instante, String tipo, String nome, double limiar, double gasto, double gastoMaximo) {
+        this.id = id;
+        this.instante = instante;
+        this.tipo = tipo;
+        this.nome = nome;
+        this.limiar = limiar;
+        this.gasto = gasto;
+        this.gastoMaximo = gastoMaximo;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getInstante() {
+        return instante;
+    }
+
+    /**
+     * @return "categoria" ou "subcategoria".
+     */
+    public String getTipo() {
+        return tipo;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    /**
+     * @return A percentagem do gasto máximo que foi ultrapassada.
+     */
+    public double getLimiar() {
+        return limiar;
+    }
+
+    public double getGasto() {
+        return gasto;
+    }
+
+    public double getGastoMaximo() {
+        return gastoMaximo;
+    }
+}
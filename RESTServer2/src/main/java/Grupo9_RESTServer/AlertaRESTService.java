@@ -0,0 +1,73 @@
+package Grupo9_RESTServer;
+
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.ws.rs.*;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * Controlador REST para consultar os alertas de gastos e definir limiares.
+ */
+@Path("/alerta")
+@Singleton
+public class AlertaRESTService {
+
+    @Inject
+    private MotorAlertas alertas;
+
+    /**
+     * Método de saudação em texto simples.
+     *
+     * @return Uma saudação simples em texto.
+     */
+    @GET
+    @Produces(MediaType.TEXT_PLAIN)
+    public String sayPlainTextHello() {
+        return "REST Server: Olá Mundo! Eu sou o Controlador de Alertas";
+    }
+
+    /**
+     * Obtém os alertas registados.
+     *
+     * @param desde O id do último alerta já conhecido; só são devolvidos os seguintes.
+     * @return Resposta HTTP contendo a lista de alertas.
+     */
+    @GET
+    @Path("/getAlertas")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getAlertas(@QueryParam("desde") @DefaultValue("0") long desde) {
+        List<Alerta> resultado = alertas.getAlertas(desde);
+
+        return Response.status(Response.Status.OK)
+                .entity(resultado)
+                .build();
+    }
+
+    /**
+     * Define um limiar de alerta adicional para uma categoria ou subcategoria.
+     *
+     * @param tipo        "categoria" ou "subcategoria".
+     * @param nome        O nome da categoria ou subcategoria.
+     * @param percentagem A percentagem do gasto máximo que dispara o alerta.
+     * @return Resposta HTTP indicando o resultado da operação.
+     */
+    @PUT
+    @Path("/definirLimiar/{tipo}/{nome}/{percentagem}")
+    public Response definirLimiar(@PathParam("tipo") String tipo, @PathParam("nome") String nome,
+                                  @PathParam("percentagem") double percentagem) {
+        try {
+            alertas.definirLimiar(tipo, nome, percentagem);
+            return Response.status(Response.Status.OK)
+                    .entity("Limiar de alerta de " + nome + " definido para: " + percentagem + "%")
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("Erro ao definir o limiar de alerta: " + e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        }
+    }
+}
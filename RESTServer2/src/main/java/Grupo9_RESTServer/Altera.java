@@ -0,0 +1,16 @@
+package Grupo9_RESTServer;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marca um método de escrita que altera as entidades indicadas. Quando a
+ * resposta é de sucesso, a versão dessas entidades é incrementada.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Altera {
+    Entidade[] value();
+}
@@ -0,0 +1,98 @@
+package Grupo9_RESTServer;
+
+import java.util.List;
+
+/**
+ * Gastos agrupados por período e por categoria ou subcategoria.
+ *
+ * Os valores de cada série estão na mesma ordem que os intervalos: o valor
+ * na posição i corresponde ao período que começa em intervalos[i]. São
+ * guardados em cêntimos e apresentados em euros.
+ */
+public class AnaliseGastos {
+
+    /**
+     * Gastos de uma categoria ou subcategoria em cada período.
+     */
+    public static class Serie {
+        private final String nome;
+        private final long[] valores;
+        private final long total;
+
+        Serie(String nome, long[] valores, long total) {
+            this.nome = nome;
+            this.valores = valores;
+            this.total = total;
+        }
+
+        public String getNome() {
+            return nome;
+        }
+
+        public double[] getValores() {
+            return euros(valores);
+        }
+
+        public double getTotal() {
+            return Dinheiro.euros(total);
+        }
+    }
+
+    private final String periodo;
+    private final String dimensao;
+    private final String de;
+    private final String ate;
+    private final String[] intervalos;
+    private final long[] totais;
+    private final List<Serie> series;
+
+    AnaliseGastos(String periodo, String dimensao, String de, String ate, String[] intervalos,
+                  long[] totais, List<Serie> series) {
+        this.periodo = periodo;
+        this.dimensao = dimensao;
+        this.de = de;
+        this.ate = ate;
+        this.intervalos = intervalos;
+        this.totais = totais;
+        this.series = series;
+    }
+
+    public String getPeriodo() {
+        return periodo;
+    }
+
+    public String getDimensao() {
+        return dimensao;
+    }
+
+    public String getDe() {
+        return de;
+    }
+
+    public String getAte() {
+        return ate;
+    }
+
+    public String[] getIntervalos() {
+        return intervalos;
+    }
+
+    /**
+     * @return O total de todas as categorias em cada período.
+     */
+    public double[] getTotais() {
+        return euros(totais);
+    }
+
+    public List<Serie> getSeries() {
+        return series;
+    }
+
+    private static double[] euros(long[] centimos) {
+        double[] euros = new double[centimos.length];
+        for (int i = 0; i < centimos.length; i++) {
+            euros[i] = Dinheiro.euros(centimos[i]);
+        }
+        return euros;
+    }
+}
@@ -0,0 +1,49 @@
+package Grupo9_RESTServer;
+
+/**
+ * Pedido de atribuição de uma transação a uma categoria, subcategoria e/ou
+ * meta, usado na atribuição em lote. Os destinos não indicados ficam
+ * inalterados.
+ */
+public class AtribuicaoTransacao {
+
+    private String descricao;
+    private String categoria;
+    private String subcategoria;
+    private String meta;
+
+    public AtribuicaoTransacao() {
+    }
+
+    public String getDescricao() {
+        return descricao;
+    }
+
+    public void setDescricao(String descricao) {
+        this.descricao = descricao;
+    }
+
+    public String getCategoria() {
+        return categoria;
+    }
+
+    public void setCategoria(String categoria) {
+        this.categoria = categoria;
+    }
+
+    public String getSubcategoria() {
+        return subcategoria;
+    }
+
+    public void setSubcategoria(String subcategoria) {
+        this.subcategoria = subcategoria;
+    }
+
+    public String getMeta() {
+        return meta;
+    }
+
+    public void setMeta(String meta) {
+        this.meta = meta;
+    }
+}
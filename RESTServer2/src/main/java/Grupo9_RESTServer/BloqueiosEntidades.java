@@ -0,0 +1,78 @@
+package Grupo9_RESTServer;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Bloqueios por entidade para as escritas que leem e alteram o mesmo valor
+ * (valor do orçamento, gasto máximo, valor, prazo e transações de uma meta)
+ * e para as remoções, que assim não se intercalam com essas escritas.
+ *
+ * Cada entidade, identificada pelo tipo e pelo nome, corresponde a uma de
+ * um número fixo de faixas: escritas na mesma entidade são executadas uma
+ * de cada vez, enquanto escritas em entidades diferentes só esperam umas
+ * pelas outras quando calham na mesma faixa. Os bloqueios só coordenam os
+ * pedidos desta instância do servidor.
+ */
+public class BloqueiosEntidades {
+
+    /** Chave do último orçamento, o único alterado pelo valor. */
+    static final String ORCAMENTO_ATUAL = "atual";
+
+    private final ReentrantLock[] faixas;
+    private final int mascara;
+
+    /**
+     * @param faixas O número de faixas, arredondado para a potência de 2 seguinte.
+     */
+    public BloqueiosEntidades(int faixas) {
+        int tamanho = faixas <= 1 ? 1 : Integer.highestOneBit(faixas - 1) << 1;
+        this.faixas = new ReentrantLock[tamanho];
+        for (int i = 0; i < tamanho; i++) {
+            this.faixas[i] = new ReentrantLock();
+        }
+        this.mascara = tamanho - 1;
+    }
+
+    /**
+     * Executa a ação com a entidade bloqueada.
+     *
+     * @param entidade O tipo da entidade.
+     * @param chave    O nome da entidade.
+     * @param acao     A escrita a executar.
+     */
+    public void executar(Entidade entidade, String chave, Runnable acao) {
+        obter(entidade, chave, () -> {
+            acao.run();
+            return null;
+        });
+    }
+
+    /**
+     * Executa a ação com a entidade bloqueada e devolve o seu resultado.
+     *
+     * @param entidade O tipo da entidade.
+     * @param chave    O nome da entidade.
+     * @param acao     A escrita a executar.
+     * @return O resultado da ação.
+     */
+    public <T> T obter(Entidade entidade, String chave, Supplier<T> acao) {
+        ReentrantLock bloqueio = faixas[faixa(entidade, chave)];
+        bloqueio.lock();
+        try {
+            return acao.get();
+        } finally {
+            bloqueio.unlock();
+        }
+    }
+
+    int getFaixas() {
+        return faixas.length;
+    }
+
+    int faixa(Entidade entidade, String chave) {
+        int h = 31 * entidade.ordinal() + (chave != null ? chave.hashCode() : 0);
+        // espalha os bits altos, como o HashMap, para nomes parecidos não calharem na mesma faixa
+        return (h ^ (h >>> 16)) & mascara;
+    }
+}
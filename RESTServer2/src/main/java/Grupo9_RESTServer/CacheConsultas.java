@@ -0,0 +1,44 @@
+package Grupo9_RESTServer;
+
+import java.util.concurrent.TimeUnit;
+
+import grupo9_FinancasPessoais.Categoria;
+import grupo9_FinancasPessoais.Meta;
+import grupo9_FinancasPessoais.Subcategoria;
+
+/**
+ * Caches partilhadas das consultas por nome de categorias, subcategorias e metas.
+ *
+ * Os controladores leem através destas caches e invalidam a entrada
+ * correspondente sempre que criam, alteram ou removem a entidade.
+ *
+ * As entidades guardadas são partilhadas por todos os pedidos e só servem
+ * leituras (respostas e limites dos alertas). Nunca são passadas a um
+ * serviço: uma escrita procura a entidade no serviço do seu pedido e
+ * invalida a entrada antes e depois de escrever, para que nenhum pedido veja
+ * uma entidade alterada por outro fora do contexto de persistência.
+ */
+public class CacheConsultas {
+
+    static final int CAPACIDADE = 1000;
+    static final long TEMPO_DE_VIDA_MINUTOS = 5;
+
+    private final CacheLimitado<String, Categoria> categorias =
+            new CacheLimitado<>(CAPACIDADE, TEMPO_DE_VIDA_MINUTOS, TimeUnit.MINUTES);
+    private final CacheLimitado<String, Subcategoria> subcategorias =
+            new CacheLimitado<>(CAPACIDADE, TEMPO_DE_VIDA_MINUTOS, TimeUnit.MINUTES);
+    private final CacheLimitado<String, Meta> metas =
+            new CacheLimitado<>(CAPACIDADE, TEMPO_DE_VIDA_MINUTOS, TimeUnit.MINUTES);
+
+    public CacheLimitado<String, Categoria> getCategorias() {
+        return categorias;
+    }
+
+    public CacheLimitado<String, Subcategoria> getSubcategorias() {
+        return subcategorias;
+    }
+
+    public CacheLimitado<String, Meta> getMetas() {
+        return metas;
+    }
+}
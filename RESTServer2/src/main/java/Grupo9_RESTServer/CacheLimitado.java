@@ -0,0 +1,148 @@
+package Grupo9_RESTServer;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Cache em memória com número máximo de entradas e tempo de vida.
+ *
+ * Quando está cheia, remove a entrada usada há mais tempo. As entradas
+ * expiradas são descartadas na leitura. Os valores null não são guardados,
+ * para que um item criado mais tarde seja encontrado de imediato.
+ *
+ * Os valores são carregados fora do lock. Enquanto houver carregamentos
+ * de uma chave, a chave tem uma geração que {@link #invalidar(Object)} e
+ * {@link #limpar()} incrementam; um carregamento só guarda o valor se a
+ * geração não mudou, para que uma leitura iniciada antes de uma escrita não
+ * volte a pôr na cache o valor anterior à escrita.
+ *
+ * @param <K> O tipo das chaves.
+ * @param <V> O tipo dos valores.
+ */
+public class CacheLimitado<K, V> {
+
+    private static final class Entrada<V> {
+        final V valor;
+        final long expiraEm;
+
+        Entrada(V valor, long expiraEm) {
+            this.valor = valor;
+            this.expiraEm = expiraEm;
+        }
+    }
+
+    private final int capacidade;
+    private final long tempoDeVidaNanos;
+    private final Map<K, Entrada<V>> entradas;
+    /** Geração e número de carregamentos em curso de cada chave a ser carregada. */
+    private final Map<K, long[]> emCarga = new HashMap<>();
+    private final LongAdder acertos = new LongAdder();
+    private final LongAdder falhas = new LongAdder();
+
+    public CacheLimitado(int capacidade, long tempoDeVida, TimeUnit unidade) {
+        if (capacidade < 1) {
+            throw new IllegalArgumentException("A capacidade da cache deve ser positiva.");
+        }
+        this.capacidade = capacidade;
+        this.tempoDeVidaNanos = unidade.toNanos(tempoDeVida);
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Obtém o valor da cache ou, se não existir ou tiver expirado, carrega-o.
+     *
+     * @param chave    A chave a procurar.
+     * @param carregar A função que obtém o valor da fonte original.
+     * @return O valor encontrado ou carregado, ou null se não existir.
+     */
+    public V obter(K chave, Function<? super K, ? extends V> carregar) {
+        long agora = System.nanoTime();
+        long geracao;
+        synchronized (this) {
+            Entrada<V> entrada = entradas.get(chave);
+            if (entrada != null) {
+                if (agora - entrada.expiraEm < 0) {
+                    acertos.increment();
+                    return entrada.valor;
+                }
+                entradas.remove(chave);
+            }
+            long[] carga = emCarga.computeIfAbsent(chave, k -> new long[2]);
+            carga[1]++;
+            geracao = carga[0];
+        }
+        falhas.increment();
+
+        V valor = null;
+        try {
+            // carrega fora do lock para não bloquear as outras leituras
+            valor = carregar.apply(chave);
+            return valor;
+        } finally {
+            guardar(chave, valor, geracao);
+        }
+    }
+
+    /**
+     * Termina um carregamento e guarda o valor, se não for null e a chave não
+     * tiver sido invalidada desde o início do carregamento.
+     */
+    private synchronized void guardar(K chave, V valor, long geracao) {
+        long[] carga = emCarga.get(chave);
+        boolean atual = carga[0] == geracao;
+        if (--carga[1] == 0) {
+            emCarga.remove(chave);
+        }
+        if (valor == null || !atual) {
+            return;
+        }
+        entradas.put(chave, new Entrada<>(valor, System.nanoTime() + tempoDeVidaNanos));
+        if (entradas.size() > capacidade) {
+            Iterator<K> maisAntiga = entradas.keySet().iterator();
+            maisAntiga.next();
+            maisAntiga.remove();
+        }
+    }
+
+    /**
+     * Remove uma entrada da cache.
+     */
+    public synchronized void invalidar(K chave) {
+        entradas.remove(chave);
+        long[] carga = emCarga.get(chave);
+        if (carga != null) {
+            carga[0]++;
+        }
+    }
+
+    /**
+     * Remove todas as entradas da cache.
+     */
+    public synchronized void limpar() {
+        entradas.clear();
+        for (long[] carga : emCarga.values()) {
+            carga[0]++;
+        }
+    }
+
+    public synchronized int getTamanho() {
+        return entradas.size();
+    }
+
+    public int getCapacidade() {
+        return capacidade;
+    }
+
+    public long getAcertos() {
+        return acertos.sum();
+    }
+
+    public long getFalhas() {
+        return falhas.sum();
+    }
+}
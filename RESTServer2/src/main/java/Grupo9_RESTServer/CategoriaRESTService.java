@@ -1,8 +1,13 @@
 package Grupo9_RESTServer;
 
 import java.util.List;
+import java.util.Objects;
 
+import javax.inject.Inject;
+import javax.inject.Provider;
 import javax.ws.rs.*;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
@@ -15,7 +20,29 @@ import grupo9_FinancasPessoais.CategoriaService;
 @Path("/categoria")
 public class CategoriaRESTService {
 
-    private CategoriaService cs = new CategoriaService();
+    @Inject
+    private Provider<CategoriaService> cs;
+
+    @Inject
+    private CacheConsultas cache;
+
+    @Inject
+    private TotaisGastos totais;
+
+    @Inject
+    private MotorAlertas alertas;
+
+    @Inject
+    private IndiceTransacoes indice;
+
+    @Inject
+    private ExecucaoAssincrona assincrono;
+
+    @Inject
+    private OrcamentoAtual atual;
+
+    @Inject
+    private BloqueiosEntidades bloqueios;
 
     /**
      * Método de saudação em texto simples.
@@ -36,8 +63,13 @@ public class CategoriaRESTService {
      */
     @POST
 	@Path("/addCategoria")
+	@Altera(Entidade.CATEGORIA)
 	public Response addCategoria(Categoria categoria) {		
-		Categoria categoriaResponse = cs.updateCategoria(categoria.getNomeC(), categoria.getGastoMaximo());
+		Categoria categoriaResponse = bloqueios.obter(Entidade.CATEGORIA, categoria.getNomeC(), () -> {
+			Categoria atualizada = cs.get().updateCategoria(categoria.getNomeC(), categoria.getGastoMaximo());
+			cache.getCategorias().invalidar(categoria.getNomeC());
+			return atualizada;
+		});
 		
 		return Response.status(Response.Status.CREATED)
 				.entity(categoriaResponse)
@@ -47,8 +79,16 @@ public class CategoriaRESTService {
     
     @DELETE
 	@Path("/deleteCategoria/{nomeC}")
+	@Altera({Entidade.CATEGORIA, Entidade.SUBCATEGORIA, Entidade.TRANSACAO})
 	public Response deleteCategoria(@PathParam("nomeC") String nomeC) {
-		boolean categoriaRemoved = cs.removeCategoria(nomeC);
+		boolean categoriaRemoved = bloqueios.obter(Entidade.CATEGORIA, nomeC, () -> {
+			boolean removida = cs.get().removeCategoria(nomeC);
+			cache.getCategorias().invalidar(nomeC);
+			cache.getSubcategorias().limpar();
+			return removida;
+		});
+		totais.invalidar();
+		indice.invalidar();
 		
 		return Response.status(Response.Status.OK)
 				.entity(categoriaRemoved)
@@ -63,8 +103,9 @@ public class CategoriaRESTService {
      */
     @GET
     @Path("/getCategorias")
+    @Versionado({Entidade.CATEGORIA, Entidade.SUBCATEGORIA, Entidade.ORCAMENTO})
     public Response getCategorias() {
-    	List<Categoria> categorias = cs.findAllCategoriasDoUltimoOrcamento();
+    	List<Categoria> categorias = atual.getCategorias();
 
 		return Response.status(Response.Status.OK)
 				.entity(categorias)
@@ -72,11 +113,33 @@ public class CategoriaRESTService {
 				.build();
 	}
     
+    /**
+     * Obtém todas as categorias. Com os parâmetros limit ou cursor a resposta
+     * é uma página ordenada por nome, com o cursor da página seguinte.
+     *
+     * @param limite O número máximo de categorias por página.
+     * @param cursor O cursor devolvido pela página anterior.
+     * @return Resposta HTTP contendo a lista ou a página de categorias.
+     */
     @GET
     @Path("/getAllCategorias")
-    public Response getAllCategorias() {
-    	List<Categoria> categorias = cs.findAllCategorias();
+    @Versionado({Entidade.CATEGORIA, Entidade.SUBCATEGORIA})
+    public Response getAllCategorias(@QueryParam("limit") Integer limite, @QueryParam("cursor") String cursor) {
+    	List<Categoria> categorias = cs.get().findAllCategorias();
 
+    	if (Paginacao.pedida(limite, cursor)) {
+    		try {
+    			return Response.status(Response.Status.OK)
+    					.entity(Paginacao.paginar(categorias, c -> Objects.toString(c.getNomeC(), ""), cursor, limite))
+    					.type(MediaType.APPLICATION_JSON)
+    					.build();
+    		} catch (IllegalArgumentException e) {
+    			return Response.status(Response.Status.BAD_REQUEST)
+    					.entity("Erro na paginação: " + e.getMessage())
+    					.type(MediaType.TEXT_PLAIN)
+    					.build();
+    		}
+    	}
 		return Response.status(Response.Status.OK)
 				.entity(categorias)
 				.type(MediaType.APPLICATION_JSON)
@@ -84,6 +147,29 @@ public class CategoriaRESTService {
 	}
     
 
+    /**
+     * Obtém todas as categorias em streaming, escrevendo cada item
+     * diretamente na resposta à medida que é serializado.
+     *
+     * @return Resposta HTTP com o array JSON escrito em streaming.
+     */
+    @GET
+    @Path("/getAllCategorias/stream")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Versionado({Entidade.CATEGORIA, Entidade.SUBCATEGORIA})
+    public Response getAllCategoriasStream() {
+        try {
+            return Response.status(Response.Status.OK)
+                    .entity(JsonStreaming.lista(cs.get().findAllCategorias()))
+                    .build();
+        } catch (RuntimeException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Erro ao obter as categorias: " + e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        }
+    }
+
     /**
      * Obtém uma categoria com base no nome.
      *
@@ -92,8 +178,9 @@ public class CategoriaRESTService {
      */
     @GET
     @Path("/getCategoria/{nomeC}")
+    @Versionado({Entidade.CATEGORIA, Entidade.SUBCATEGORIA})
     public Response getCategoria(@PathParam("nomeC") String nomeC) {
-		Categoria categoriaResponse = cs.findCategoria(nomeC);
+		Categoria categoriaResponse = cache.getCategorias().obter(nomeC, n -> cs.get().findCategoria(n));
 		
 		return Response.status(Response.Status.OK)
 				.entity(categoriaResponse)
@@ -104,17 +191,44 @@ public class CategoriaRESTService {
 
     /**
      * Visualiza a percentagem de gastos por categoria no último orçamento.
+     * O mesmo relatório em JSON está em {@link #percentagemGastosPorCategoria()}.
      *
-     * @return Resposta HTTP indicando o resultado da operação.
+     * @param resposta A resposta assíncrona, retomada com o resultado.
      */
     @GET
     @Path("/visualizarPercentagemGastosPorCategoriaNoOrcamento")
     @Produces(MediaType.TEXT_PLAIN)
-    public Response visualizarPercentagemGastosPorCategoriaNoOrcamento() {
+    @Versionado({Entidade.TRANSACAO, Entidade.CATEGORIA, Entidade.ORCAMENTO})
+    public void visualizarPercentagemGastosPorCategoriaNoOrcamento(@Suspended AsyncResponse resposta) {
+        assincrono.executar(resposta, "visualizarPercentagemGastosPorCategoriaNoOrcamento", () -> {
+            try {
+                String resultado = cs.get().obterPercentagemGastosPorCategoriaNoOrcamento();
+                return Response.status(Response.Status.OK)
+                        .entity(resultado)
+                        .build();
+            } catch (RuntimeException e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity("Erro ao visualizar a percentagem de gastos por categoria: " + e.getMessage())
+                        .type(MediaType.TEXT_PLAIN)
+                        .build();
+            }
+        });
+    }
+
+    /**
+     * Obtém o gasto de cada categoria do último orçamento e a sua percentagem
+     * no total gasto, a partir dos totais mantidos a cada escrita.
+     *
+     * @return Resposta HTTP contendo a lista de gastos por categoria.
+     */
+    @GET
+    @Path("/percentagemGastosPorCategoria")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Versionado({Entidade.TRANSACAO, Entidade.CATEGORIA, Entidade.ORCAMENTO})
+    public Response percentagemGastosPorCategoria() {
         try {
-            String resultado = cs.obterPercentagemGastosPorCategoriaNoOrcamento();
             return Response.status(Response.Status.OK)
-                    .entity(resultado)
+                    .entity(RelatoriosJson.percentagens(totais.getPercentagensPorCategoria()))
                     .build();
         } catch (RuntimeException e) {
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
@@ -133,10 +247,15 @@ public class CategoriaRESTService {
      */
     @PUT
     @Path("/alterarGastoMaximo/{nomeCategoria}/{gastoMaximo}")
+    @Altera(Entidade.CATEGORIA)
     public Response alterarGastoMaximoCategoria(
             @PathParam("nomeCategoria") String nomeCategoria, @PathParam("gastoMaximo") Double gastoMaximo) {
         try {
-            cs.alterarGastoMaximoCategoria(nomeCategoria, gastoMaximo);
+            bloqueios.executar(Entidade.CATEGORIA, nomeCategoria, () -> {
+                cs.get().alterarGastoMaximoCategoria(nomeCategoria, gastoMaximo);
+                cache.getCategorias().invalidar(nomeCategoria);
+            });
+            alertas.verificarCategoria(nomeCategoria);
             return Response.status(Response.Status.OK)
                     .entity("Valor máximo da Categoria " + nomeCategoria + " alterado para: " + gastoMaximo)
                     .build();
@@ -0,0 +1,36 @@
+package Grupo9_RESTServer;
+
+import javax.ws.rs.Produces;
+import javax.ws.rs.container.DynamicFeature;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.FeatureContext;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * Regista a compressão de respostas em cada método de recurso, exceto nos
+ * canais Server-Sent Events, cujos eventos têm de chegar sem esperar pelo
+ * buffer do compressor.
+ */
+public class CompressaoFeature implements DynamicFeature {
+
+    private final PoolCompressores pool;
+    private final RegistoMetricas metricas;
+
+    public CompressaoFeature(PoolCompressores pool, RegistoMetricas metricas) {
+        this.pool = pool;
+        this.metricas = metricas;
+    }
+
+    @Override
+    public void configure(ResourceInfo recurso, FeatureContext contexto) {
+        Produces produz = recurso.getResourceMethod().getAnnotation(Produces.class);
+        if (produz != null) {
+            for (String tipo : produz.value()) {
+                if (tipo.startsWith(MediaType.SERVER_SENT_EVENTS)) {
+                    return;
+                }
+            }
+        }
+        contexto.register(new CompressaoRespostas(pool, metricas.endpoint(recurso.getResourceMethod())));
+    }
+}
@@ -0,0 +1,243 @@
+package Grupo9_RESTServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+import java.util.zip.Deflater;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+/**
+ * Compressão gzip ou deflate das respostas, conforme o Accept-Encoding.
+ *
+ * Os primeiros bytes da resposta ficam em memória até atingirem o limiar;
+ * se a resposta terminar antes disso é enviada sem compressão, para não
+ * gastar CPU em respostas pequenas. A ETag passa a fraca quando a resposta
+ * é comprimida, já que os bytes enviados deixam de ser os da representação
+ * original.
+ */
+class CompressaoRespostas implements ContainerRequestFilter, WriterInterceptor {
+
+    private static final String PROPRIEDADE = CompressaoRespostas.class.getName() + ".codificacao";
+    private static final String GZIP = "gzip";
+    private static final String DEFLATE = "deflate";
+    private static final byte[] CABECALHO_GZIP = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final PoolCompressores pool;
+    private final MetricasEndpoint metricas;
+
+    CompressaoRespostas(PoolCompressores pool, MetricasEndpoint metricas) {
+        this.pool = pool;
+        this.metricas = metricas;
+    }
+
+    @Override
+    public void filter(ContainerRequestContext pedido) {
+        String codificacao = escolher(pedido.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+        if (codificacao != null) {
+            pedido.setProperty(PROPRIEDADE, codificacao);
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext contexto) throws IOException {
+        contexto.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        Object codificacao = contexto.getProperty(PROPRIEDADE);
+        if (codificacao == null || contexto.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)) {
+            contexto.proceed();
+            return;
+        }
+        Saida saida = new Saida(contexto.getOutputStream(), contexto.getHeaders(), GZIP.equals(codificacao));
+        contexto.setOutputStream(saida);
+        try {
+            contexto.proceed();
+            saida.close();
+        } finally {
+            saida.libertar();
+        }
+    }
+
+    /**
+     * Escolhe a codificação a partir do Accept-Encoding, preferindo gzip.
+     *
+     * @return gzip, deflate, ou null se o cliente não aceitar nenhuma.
+     */
+    static String escolher(String aceites) {
+        if (aceites == null) {
+            return null;
+        }
+        boolean gzip = false;
+        boolean deflate = false;
+        for (String parte : aceites.split(",")) {
+            String[] campos = parte.trim().split(";");
+            String nome = campos[0].trim().toLowerCase(Locale.ROOT);
+            if (qualidade(campos) <= 0) {
+                continue;
+            }
+            gzip |= nome.equals(GZIP) || nome.equals("x-gzip") || nome.equals("*");
+            deflate |= nome.equals(DEFLATE);
+        }
+        return gzip ? GZIP : deflate ? DEFLATE : null;
+    }
+
+    private static double qualidade(String[] campos) {
+        for (int i = 1; i < campos.length; i++) {
+            String campo = campos[i].trim();
+            if (campo.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(campo.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private static long tempoCpu() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    /**
+     * Fluxo que guarda o início da resposta e só comprime a partir do limiar.
+     */
+    private final class Saida extends OutputStream {
+
+        private final OutputStream destino;
+        private final MultivaluedMap<String, Object> cabecalhos;
+        private final boolean gzip;
+        private PoolCompressores.Compressor compressor;
+        private Deflater deflater;
+        private int guardados;
+        private long original;
+        private long comprimido;
+        private long cpu;
+        private boolean comprimir;
+        private boolean fechado;
+
+        Saida(OutputStream destino, MultivaluedMap<String, Object> cabecalhos, boolean gzip) {
+            this.destino = destino;
+            this.cabecalhos = cabecalhos;
+            this.gzip = gzip;
+            this.compressor = pool.obter();
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int inicio, int tamanho) throws IOException {
+            if (fechado) {
+                throw new IOException("Fluxo fechado.");
+            }
+            if (!comprimir) {
+                if (guardados + tamanho <= compressor.inicio.length) {
+                    System.arraycopy(b, inicio, compressor.inicio, guardados, tamanho);
+                    guardados += tamanho;
+                    return;
+                }
+                iniciar();
+            }
+            comprimir(b, inicio, tamanho);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (comprimir) {
+                destino.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (fechado) {
+                return;
+            }
+            fechado = true;
+            if (!comprimir) {
+                destino.write(compressor.inicio, 0, guardados);
+                destino.close();
+                return;
+            }
+            long antes = tempoCpu();
+            deflater.finish();
+            while (!deflater.finished()) {
+                escrever(deflater.deflate(compressor.saida));
+            }
+            if (gzip) {
+                escreverInteiro((int) compressor.crc.getValue());
+                escreverInteiro((int) original);
+            }
+            cpu += tempoCpu() - antes;
+            destino.close();
+            metricas.registarCompressao(original, comprimido, cpu);
+        }
+
+        /**
+         * Devolve o compressor ao conjunto. Chamado sempre, mesmo que a escrita falhe.
+         */
+        void libertar() {
+            if (compressor != null) {
+                pool.devolver(compressor);
+                compressor = null;
+            }
+        }
+
+        private void iniciar() throws IOException {
+            comprimir = true;
+            cabecalhos.putSingle(HttpHeaders.CONTENT_ENCODING, gzip ? GZIP : DEFLATE);
+            cabecalhos.remove(HttpHeaders.CONTENT_LENGTH);
+            Object etag = cabecalhos.getFirst(HttpHeaders.ETAG);
+            if (etag instanceof EntityTag && !((EntityTag) etag).isWeak()) {
+                cabecalhos.putSingle(HttpHeaders.ETAG, new EntityTag(((EntityTag) etag).getValue(), true));
+            }
+            deflater = gzip ? compressor.gzip : compressor.deflate;
+            if (gzip) {
+                destino.write(CABECALHO_GZIP);
+                comprimido += CABECALHO_GZIP.length;
+            }
+            comprimir(compressor.inicio, 0, guardados);
+            guardados = 0;
+        }
+
+        private void comprimir(byte[] b, int inicio, int tamanho) throws IOException {
+            if (tamanho == 0) {
+                return;
+            }
+            long antes = tempoCpu();
+            if (gzip) {
+                compressor.crc.update(b, inicio, tamanho);
+            }
+            deflater.setInput(b, inicio, tamanho);
+            while (!deflater.needsInput()) {
+                escrever(deflater.deflate(compressor.saida));
+            }
+            original += tamanho;
+            cpu += tempoCpu() - antes;
+        }
+
+        private void escrever(int tamanho) throws IOException {
+            if (tamanho > 0) {
+                destino.write(compressor.saida, 0, tamanho);
+                comprimido += tamanho;
+            }
+        }
+
+        private void escreverInteiro(int valor) throws IOException {
+            byte[] bytes = {(byte) valor, (byte) (valor >> 8), (byte) (valor >> 16), (byte) (valor >> 24)};
+            destino.write(bytes);
+            comprimido += bytes.length;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package Grupo9_RESTServer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import grupo9_FinancasPessoais.Transacao;
+
+/**
+ * Consulta de transações por intervalo de datas, intervalo de valores,
+ * categoria, subcategoria e meta, com ordenação e paginação por cursor.
+ *
+ * O intervalo de datas é resolvido no índice por dia do
+ * {@link IndiceTransacoes}, pelo que só as transações desse intervalo são
+ * percorridas; os restantes filtros são aplicados a essas transações.
+ */
+class ConsultaTransacoes {
+
+    /**
+     * Campos pelos quais o resultado pode ser ordenado.
+     */
+    enum Ordenacao {
+        DATA, VALOR
+    }
+
+    private final long de;
+    private final long ate;
+    private final Double valorMinimo;
+    private final Double valorMaximo;
+    private final String categoria;
+    private final String subcategoria;
+    private final String meta;
+    private final Ordenacao ordenacao;
+    private final boolean descendente;
+
+    /**
+     * @param de           A primeira data, inclusive, ou null para não limitar.
+     * @param ate          A última data, inclusive, ou null para não limitar.
+     * @param valorMinimo  O valor mínimo, inclusive, ou null.
+     * @param valorMaximo  O valor máximo, inclusive, ou null.
+     * @param categoria    O nome da categoria, ou null.
+     * @param subcategoria O nome da subcategoria, ou null.
+     * @param meta         O nome da meta, ou null.
+     * @param ordenar      O campo de ordenação ("data" ou "valor"), ou null para a data.
+     * @param ordem        "asc" ou "desc", ou null para ascendente.
+     * @throws IllegalArgumentException se algum parâmetro for inválido.
+     */
+    ConsultaTransacoes(String de, String ate, Double valorMinimo, Double valorMaximo,
+                       String categoria, String subcategoria, String meta, String ordenar, String ordem) {
+        this.de = de != null ? dia(de) : Long.MIN_VALUE;
+        this.ate = ate != null ? dia(ate) : Long.MAX_VALUE;
+        if (this.de > this.ate) {
+            throw new IllegalArgumentException("a data inicial é posterior à data final.");
+        }
+        if (valorMinimo != null && valorMaximo != null && valorMinimo > valorMaximo) {
+            throw new IllegalArgumentException("o valor mínimo é superior ao valor máximo.");
+        }
+        this.valorMinimo = valorMinimo;
+        this.valorMaximo = valorMaximo;
+        this.categoria = categoria;
+        this.subcategoria = subcategoria;
+        this.meta = meta;
+        try {
+            this.ordenacao = ordenar != null ? Ordenacao.valueOf(ordenar.toUpperCase()) : Ordenacao.DATA;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("ordenação desconhecida: " + ordenar + ".");
+        }
+        if (ordem != null && !ordem.equalsIgnoreCase("asc") && !ordem.equalsIgnoreCase("desc")) {
+            throw new IllegalArgumentException("a ordem deve ser asc ou desc.");
+        }
+        this.descendente = "desc".equalsIgnoreCase(ordem);
+    }
+
+    /**
+     * Executa a consulta e devolve a página pedida.
+     *
+     * @param indice O índice de transações.
+     * @param cursor O cursor devolvido pela página anterior, ou null.
+     * @param limite O número máximo de transações, ou null para o valor por omissão.
+     * @return A página de transações, cada uma com o seu id.
+     */
+    Pagina<TransacaoComId> executar(IndiceTransacoes indice, String cursor, Integer limite) {
+        List<TransacaoComId> encontradas = new ArrayList<>();
+        for (Map.Entry<Long, Transacao> entrada : indice.entreDias(de, ate).entrySet()) {
+            if (aceita(entrada.getValue())) {
+                encontradas.add(new TransacaoComId(entrada.getKey(), entrada.getValue()));
+            }
+        }
+        return Paginacao.paginar(encontradas, this::chave, cursor, limite);
+    }
+
+    private boolean aceita(Transacao t) {
+        if (valorMinimo != null && t.getValor() < valorMinimo) {
+            return false;
+        }
+        if (valorMaximo != null && t.getValor() > valorMaximo) {
+            return false;
+        }
+        if (categoria != null && (t.getCategoria() == null || !categoria.equals(t.getCategoria().getNomeC()))) {
+            return false;
+        }
+        if (subcategoria != null
+                && (t.getSubcategoria() == null || !subcategoria.equals(t.getSubcategoria().getNomeSubc()))) {
+            return false;
+        }
+        return meta == null || (t.getMeta() != null && meta.equals(t.getMeta().getNome()));
+    }
+
+    /**
+     * Chave de texto com a ordem pedida, desempatada pelo id.
+     */
+    private String chave(TransacaoComId item) {
+        String principal;
+        if (ordenacao == Ordenacao.VALOR) {
+            // bits do double reordenados para que a ordem sem sinal siga a ordem numérica
+            long bits = Double.doubleToLongBits(item.getTransacao().getValor());
+            bits ^= (bits >> 63) | Long.MIN_VALUE;
+            principal = Paginacao.comZeros(Long.toHexString(descendente ? ~bits : bits), 16);
+        } else {
+            long dia = Datas.diaEpoch(item.getTransacao().getData());
+            long posicao = dia == Long.MIN_VALUE ? 0 : dia + 100_000_000L;
+            principal = Paginacao.comZeros(Long.toString(descendente ? 9_999_999_999L - posicao : posicao), 10);
+        }
+        return principal + "|" + Paginacao.comZeros(Long.toString(item.getId()), 19);
+    }
+
+    private static long dia(String data) {
+        long dia = Datas.diaEpoch(data);
+        if (dia == Long.MIN_VALUE) {
+            throw new IllegalArgumentException("data inválida: " + data + ".");
+        }
+        return dia;
+    }
+}
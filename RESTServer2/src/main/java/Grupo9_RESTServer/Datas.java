@@ -0,0 +1,65 @@
+package Grupo9_RESTServer;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Utilitários para as datas do domínio, que circulam como texto.
+ */
+final class Datas {
+
+    private static final DateTimeFormatter[] FORMATOS = {
+            DateTimeFormatter.ISO_LOCAL_DATE,
+            DateTimeFormatter.ofPattern("dd/MM/yyyy"),
+            DateTimeFormatter.ofPattern("dd-MM-yyyy")
+    };
+
+    private Datas() {
+    }
+
+    /**
+     * Interpreta uma data nos formatos aceites pelo servidor.
+     *
+     * @param data A data em texto.
+     * @return A data interpretada, ou null se não for reconhecida.
+     */
+    static LocalDate interpretar(String data) {
+        if (data == null || data.isEmpty()) {
+            return null;
+        }
+        String texto = data.length() > 10 ? data.substring(0, 10) : data;
+        for (DateTimeFormatter formato : FORMATOS) {
+            try {
+                return LocalDate.parse(texto, formato);
+            } catch (DateTimeParseException e) {
+                // tenta o próximo formato
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Converte uma data em texto para o número de dias desde 1970-01-01.
+     *
+     * @param data A data em texto.
+     * @return Os dias desde a época, ou Long.MIN_VALUE se a data não for reconhecida.
+     */
+    static long diaEpoch(String data) {
+        LocalDate d = interpretar(data);
+        return d != null ? d.toEpochDay() : Long.MIN_VALUE;
+    }
+
+    /**
+     * Devolve uma chave de texto que ordena pela data e depois pelo desempate.
+     *
+     * @param data       A data em texto.
+     * @param desempate  O valor usado para desempatar datas iguais.
+     * @return A chave ordenável.
+     */
+    static String chaveOrdenavel(String data, String desempate) {
+        long dia = diaEpoch(data);
+        long posicao = dia == Long.MIN_VALUE ? 0 : dia + 100_000_000L;
+        return Paginacao.comZeros(Long.toString(posicao), 10) + "|" + (desempate != null ? desempate : "");
+    }
+}
@@ -0,0 +1,246 @@
+package Grupo9_RESTServer;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.sse.OutboundSseEvent;
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseEventSink;
+
+/**
+ * Difusão de eventos Server-Sent Events com as alterações das entidades.
+ *
+ * Cada cliente tem uma fila limitada, esvaziada fora da escrita que
+ * originou o evento. Os envios de um cliente são encadeados: o seguinte só
+ * é iniciado quando o anterior termina, sem que nenhuma thread fique à
+ * espera dessa conclusão. Como o envio pode bloquear a thread que o faz, as
+ * threads de envio são criadas à medida do necessário, e um vigia desliga
+ * o cliente cujo envio demore mais do que o tempo máximo; assim um cliente
+ * lento nunca atrasa os restantes. Um cliente cuja fila enche também é
+ * desligado.
+ */
+public class DifusorEventos {
+
+    static final int CAPACIDADE_POR_CLIENTE = 64;
+    static final long TEMPO_MAXIMO_ENVIO_MS = 10_000;
+
+    private final Set<Subscritor> subscritores = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequencia = new AtomicLong();
+    private final AtomicLong desligados = new AtomicLong();
+    private final ExecutorService envio = Executors.newCachedThreadPool(tarefa -> {
+        Thread thread = new Thread(tarefa, "difusor-eventos");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ScheduledExecutorService vigia = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+        Thread thread = new Thread(tarefa, "difusor-eventos-vigia");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final long tempoMaximoEnvioNanos;
+    private volatile Sse sse;
+
+    /**
+     * @param tempoMaximoEnvioMs O tempo máximo de um envio, em milissegundos,
+     *                           antes de o cliente ser desligado.
+     */
+    public DifusorEventos(long tempoMaximoEnvioMs) {
+        this.tempoMaximoEnvioNanos = TimeUnit.MILLISECONDS.toNanos(tempoMaximoEnvioMs);
+        long periodo = Math.max(1, tempoMaximoEnvioMs / 4);
+        vigia.scheduleWithFixedDelay(this::vigiar, periodo, periodo, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Regista um cliente interessado nas alterações das entidades indicadas.
+     *
+     * @param sink      O canal de eventos do cliente.
+     * @param sse       O contexto SSE usado para criar os eventos.
+     * @param entidades As entidades cujas alterações o cliente recebe.
+     */
+    public void subscrever(SseEventSink sink, Sse sse, Entidade... entidades) {
+        this.sse = sse;
+        EnumSet<Entidade> interesses = EnumSet.noneOf(Entidade.class);
+        for (Entidade e : entidades) {
+            interesses.add(e);
+        }
+        subscritores.add(new Subscritor(sink, interesses));
+    }
+
+    /**
+     * Envia aos clientes interessados um evento com a alteração feita.
+     *
+     * @param caminho   O caminho do pedido de escrita.
+     * @param entidades As entidades alteradas; a primeira dá o nome ao evento.
+     */
+    public void publicar(String caminho, Entidade... entidades) {
+        Sse contexto = sse;
+        if (contexto == null || subscritores.isEmpty() || entidades.length == 0) {
+            return;
+        }
+        JsonArrayBuilder nomes = Json.createArrayBuilder();
+        for (Entidade e : entidades) {
+            nomes.add(e.name());
+        }
+        long id = sequencia.incrementAndGet();
+        OutboundSseEvent evento = contexto.newEventBuilder()
+                .id(Long.toString(id))
+                .name(entidades[0].name().toLowerCase())
+                .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                .data(String.class, Json.createObjectBuilder()
+                        .add("entidades", nomes)
+                        .add("caminho", caminho)
+                        .build()
+                        .toString())
+                .build();
+
+        for (Subscritor subscritor : subscritores) {
+            if (subscritor.interessado(entidades)) {
+                subscritor.entregar(evento);
+            }
+        }
+    }
+
+    public int getSubscritores() {
+        return subscritores.size();
+    }
+
+    public long getDesligados() {
+        return desligados.get();
+    }
+
+    /**
+     * Termina as threads de envio quando a aplicação é parada.
+     */
+    public void terminar() {
+        vigia.shutdownNow();
+        envio.shutdownNow();
+    }
+
+    /**
+     * Desliga os clientes com um envio em curso há mais do que o tempo máximo.
+     */
+    private void vigiar() {
+        long agora = System.nanoTime();
+        for (Subscritor subscritor : subscritores) {
+            long inicio = subscritor.inicioEnvio;
+            if (inicio != 0 && agora - inicio > tempoMaximoEnvioNanos) {
+                desligar(subscritor);
+            }
+        }
+    }
+
+    private void desligar(Subscritor subscritor) {
+        if (subscritores.remove(subscritor)) {
+            desligados.incrementAndGet();
+            subscritor.fila.clear();
+            try {
+                subscritor.sink.close();
+            } catch (RuntimeException e) {
+                // o cliente já pode ter fechado a ligação
+            }
+        }
+    }
+
+    private final class Subscritor implements Runnable {
+        final SseEventSink sink;
+        final EnumSet<Entidade> interesses;
+        final BlockingQueue<OutboundSseEvent> fila = new ArrayBlockingQueue<>(CAPACIDADE_POR_CLIENTE);
+        final AtomicBoolean agendado = new AtomicBoolean();
+        /** Instante em que começou o envio em curso, ou 0 se não houver nenhum. */
+        volatile long inicioEnvio;
+
+        Subscritor(SseEventSink sink, EnumSet<Entidade> interesses) {
+            this.sink = sink;
+            this.interesses = interesses;
+        }
+
+        boolean interessado(Entidade[] entidades) {
+            for (Entidade e : entidades) {
+                if (interesses.contains(e)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void entregar(OutboundSseEvent evento) {
+            if (sink.isClosed()) {
+                subscritores.remove(this);
+                return;
+            }
+            if (!fila.offer(evento)) {
+                desligar(this);
+                return;
+            }
+            agendar();
+        }
+
+        private void agendar() {
+            if (agendado.compareAndSet(false, true)) {
+                continuar();
+            }
+        }
+
+        /**
+         * Agenda o envio do evento seguinte numa thread de envio.
+         */
+        private void continuar() {
+            try {
+                envio.execute(this);
+            } catch (RejectedExecutionException e) {
+                // o difusor foi terminado
+                agendado.set(false);
+            }
+        }
+
+        /**
+         * Envia o evento seguinte da fila; o envio do próximo é agendado
+         * quando este terminar. Com a fila vazia, liberta o agendamento.
+         */
+        @Override
+        public void run() {
+            OutboundSseEvent evento = subscritores.contains(this) ? fila.poll() : null;
+            if (evento == null) {
+                agendado.set(false);
+                // um evento pode ter chegado depois de a fila ficar vazia e antes de libertar o agendamento
+                if (!fila.isEmpty() && subscritores.contains(this)) {
+                    agendar();
+                }
+                return;
+            }
+            CompletionStage<?> enviado;
+            inicioEnvio = System.nanoTime();
+            try {
+                enviado = sink.send(evento);
+            } catch (RuntimeException e) {
+                terminarEnvio(e);
+                return;
+            }
+            enviado.whenComplete((resultado, erro) -> terminarEnvio(erro));
+        }
+
+        private void terminarEnvio(Throwable erro) {
+            inicioEnvio = 0;
+            if (erro != null) {
+                desligar(this);
+                agendado.set(false);
+                return;
+            }
+            continuar();
+        }
+    }
+}
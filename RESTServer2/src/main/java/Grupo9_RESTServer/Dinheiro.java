@@ -0,0 +1,38 @@
+package Grupo9_RESTServer;
+
+/**
+ * Utilitários para valores monetários em cêntimos.
+ *
+ * O domínio usa double para os valores; os relatórios e os totais convertem
+ * cada valor uma vez para long em cêntimos, somam e comparam sem erros de
+ * arredondamento, e só voltam a double na resposta, para que o JSON mantenha
+ * o formato.
+ */
+final class Dinheiro {
+
+    private Dinheiro() {
+    }
+
+    /**
+     * @param valor O valor em euros.
+     * @return O valor arredondado ao cêntimo.
+     */
+    static long centimos(double valor) {
+        return Math.round(valor * 100);
+    }
+
+    /**
+     * @param centimos O valor em cêntimos.
+     * @return O valor em euros.
+     */
+    static double euros(long centimos) {
+        return centimos / 100.0;
+    }
+
+    /**
+     * @return A parte em percentagem do todo, ou 0 se o todo for 0.
+     */
+    static double percentagem(long parte, long todo) {
+        return todo != 0 ? parte * 100.0 / todo : 0;
+    }
+}
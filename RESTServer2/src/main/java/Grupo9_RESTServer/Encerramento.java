@@ -0,0 +1,35 @@
+package Grupo9_RESTServer;
+
+import org.glassfish.jersey.server.spi.Container;
+import org.glassfish.jersey.server.spi.ContainerLifecycleListener;
+
+/**
+ * Liberta as threads do servidor quando a aplicação é parada.
+ */
+class Encerramento implements ContainerLifecycleListener {
+
+    private final ExecucaoAssincrona assincrono;
+    private final DifusorEventos difusor;
+    private final PoolCompressores compressores;
+
+    Encerramento(ExecucaoAssincrona assincrono, DifusorEventos difusor, PoolCompressores compressores) {
+        this.assincrono = assincrono;
+        this.difusor = difusor;
+        this.compressores = compressores;
+    }
+
+    @Override
+    public void onStartup(Container container) {
+    }
+
+    @Override
+    public void onReload(Container container) {
+    }
+
+    @Override
+    public void onShutdown(Container container) {
+        assincrono.terminar();
+        difusor.terminar();
+        compressores.terminar();
+    }
+}
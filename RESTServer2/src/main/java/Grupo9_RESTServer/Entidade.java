@@ -0,0 +1,12 @@
+package Grupo9_RESTServer;
+
+/**
+ * Tipos de entidade do domínio cujas alterações são seguidas pelo servidor.
+ */
+public enum Entidade {
+    TRANSACAO,
+    CATEGORIA,
+    SUBCATEGORIA,
+    META,
+    ORCAMENTO
+}
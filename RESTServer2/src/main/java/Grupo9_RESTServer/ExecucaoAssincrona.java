@@ -0,0 +1,113 @@
+package Grupo9_RESTServer;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * Execução dos pedidos lentos fora das threads do Tomcat.
+ *
+ * Em Java 21 ou superior usa uma thread virtual por pedido; em versões
+ * anteriores usa um conjunto limitado de threads com fila limitada. Cada
+ * endpoint tem um tempo limite próprio, após o qual o cliente recebe 503.
+ *
+ * Configuração por propriedades de sistema:
+ * <ul>
+ * <li>grupo9.async.virtual - false para não usar threads virtuais;</li>
+ * <li>grupo9.async.threads - número de threads do conjunto limitado;</li>
+ * <li>grupo9.async.fila - tamanho da fila do conjunto limitado;</li>
+ * <li>grupo9.async.timeout - tempo limite por omissão, em segundos;</li>
+ * <li>grupo9.async.timeout.&lt;endpoint&gt; - tempo limite de um endpoint.</li>
+ * </ul>
+ */
+public class ExecucaoAssincrona {
+
+    private static final String PREFIXO = "grupo9.async.";
+
+    private final ExecutorService executor;
+    private final long tempoLimitePorOmissao;
+    private final boolean threadsVirtuais;
+
+    public ExecucaoAssincrona() {
+        this.tempoLimitePorOmissao = Long.getLong(PREFIXO + "timeout", 30);
+        ExecutorService virtual = Boolean.parseBoolean(System.getProperty(PREFIXO + "virtual", "true"))
+                ? executorVirtual() : null;
+        this.threadsVirtuais = virtual != null;
+        this.executor = virtual != null ? virtual : executorLimitado(
+                Integer.getInteger(PREFIXO + "threads", 32), Integer.getInteger(PREFIXO + "fila", 256));
+    }
+
+    /**
+     * Executa o pedido no executor e retoma a resposta assíncrona com o resultado.
+     *
+     * @param resposta A resposta suspensa do pedido.
+     * @param endpoint O nome do endpoint, usado para obter o tempo limite.
+     * @param tarefa   O trabalho do pedido.
+     */
+    public void executar(AsyncResponse resposta, String endpoint, Supplier<Response> tarefa) {
+        resposta.setTimeoutHandler(r -> r.resume(indisponivel("Tempo limite excedido.")));
+        resposta.setTimeout(Long.getLong(PREFIXO + "timeout." + endpoint, tempoLimitePorOmissao), TimeUnit.SECONDS);
+        try {
+            executor.execute(() -> {
+                try {
+                    resposta.resume(tarefa.get());
+                } catch (RuntimeException e) {
+                    resposta.resume(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            resposta.resume(indisponivel("Servidor ocupado, tente novamente."));
+        }
+    }
+
+    public boolean isThreadsVirtuais() {
+        return threadsVirtuais;
+    }
+
+    /**
+     * Termina o executor quando a aplicação é parada.
+     */
+    public void terminar() {
+        executor.shutdownNow();
+    }
+
+    private static Response indisponivel(String mensagem) {
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .entity(mensagem)
+                .type(MediaType.TEXT_PLAIN)
+                .build();
+    }
+
+    /**
+     * Cria o executor de threads virtuais, se a JVM o suportar. O projeto
+     * compila para Java 17, por isso o método é obtido por reflexão.
+     */
+    private static ExecutorService executorVirtual() {
+        try {
+            Method fabrica = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) fabrica.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService executorLimitado(int threads, int fila) {
+        AtomicInteger contador = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(fila), tarefa -> {
+                    Thread thread = new Thread(tarefa, "rest-async-" + contador.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+}
@@ -0,0 +1,38 @@
+package Grupo9_RESTServer;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.Response;
+
+/**
+ * Filtro dos métodos marcados com {@link Altera}: quando a escrita termina
+ * com sucesso, regista a alteração das entidades e avisa os clientes SSE.
+ * Uma escrita que falha a meio, depois de gravar parte dos dados, marca o
+ * pedido com {@link #ALTERACAO_PARCIAL} para que a alteração seja também
+ * registada.
+ */
+class FiltroAlteracoes implements ContainerResponseFilter {
+
+    /** Propriedade do pedido que indica dados gravados numa escrita sem sucesso. */
+    static final String ALTERACAO_PARCIAL = "grupo9.alteracaoParcial";
+
+    private final VersoesEntidades versoes;
+    private final DifusorEventos difusor;
+    private final Entidade[] entidades;
+
+    FiltroAlteracoes(VersoesEntidades versoes, DifusorEventos difusor, Entidade[] entidades) {
+        this.versoes = versoes;
+        this.difusor = difusor;
+        this.entidades = entidades;
+    }
+
+    @Override
+    public void filter(ContainerRequestContext pedido, ContainerResponseContext resposta) {
+        if (resposta.getStatusInfo().getFamily() == Response.Status.Family.SUCCESSFUL
+                || Boolean.TRUE.equals(pedido.getProperty(ALTERACAO_PARCIAL))) {
+            versoes.alterado(entidades);
+            difusor.publicar("/" + pedido.getUriInfo().getPath(), entidades);
+        }
+    }
+}
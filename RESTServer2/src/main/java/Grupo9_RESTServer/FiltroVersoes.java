@@ -0,0 +1,68 @@
+package Grupo9_RESTServer;
+
+import java.util.Date;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+
+/**
+ * Filtro de pedidos condicionais para os métodos marcados com {@link Versionado}.
+ *
+ * A ETag é calculada antes de o método ser executado; se o cliente já tiver
+ * essa versão, o pedido termina com 304 sem consultar a base de dados nem
+ * serializar a resposta.
+ */
+class FiltroVersoes implements ContainerRequestFilter, ContainerResponseFilter {
+
+    private static final String PROPRIEDADE_ETAG = FiltroVersoes.class.getName() + ".etag";
+    private static final String PROPRIEDADE_ALTERACAO = FiltroVersoes.class.getName() + ".alteracao";
+
+    private final VersoesEntidades versoes;
+    private final Entidade[] entidades;
+
+    FiltroVersoes(VersoesEntidades versoes, Entidade[] entidades) {
+        this.versoes = versoes;
+        this.entidades = entidades;
+    }
+
+    @Override
+    public void filter(ContainerRequestContext pedido) {
+        if (!HttpMethod.GET.equals(pedido.getMethod())) {
+            return;
+        }
+        // lê a última alteração antes da ETag: uma escrita concorrente torna a resposta mais nova, nunca mais antiga
+        long ultimaAlteracao = versoes.ultimaAlteracao(entidades);
+        EntityTag etag = versoes.etag(entidades);
+        pedido.setProperty(PROPRIEDADE_ETAG, etag);
+        pedido.setProperty(PROPRIEDADE_ALTERACAO, ultimaAlteracao);
+
+        Response.ResponseBuilder naoModificado;
+        if (pedido.getHeaderString(HttpHeaders.IF_NONE_MATCH) != null) {
+            naoModificado = pedido.getRequest().evaluatePreconditions(etag);
+        } else if (System.currentTimeMillis() - ultimaAlteracao >= 1000) {
+            // o Last-Modified só tem precisão de segundos: só é fiável para alterações de segundos anteriores
+            naoModificado = pedido.getRequest().evaluatePreconditions(new Date(ultimaAlteracao));
+        } else {
+            naoModificado = null;
+        }
+        if (naoModificado != null) {
+            pedido.abortWith(naoModificado.tag(etag).lastModified(new Date(ultimaAlteracao)).build());
+        }
+    }
+
+    @Override
+    public void filter(ContainerRequestContext pedido, ContainerResponseContext resposta) {
+        Object etag = pedido.getProperty(PROPRIEDADE_ETAG);
+        if (etag == null || resposta.getStatus() != Response.Status.OK.getStatusCode()) {
+            return;
+        }
+        resposta.getHeaders().putSingle(HttpHeaders.ETAG, etag);
+        resposta.getHeaders().putSingle(HttpHeaders.LAST_MODIFIED, new Date((Long) pedido.getProperty(PROPRIEDADE_ALTERACAO)));
+    }
+}
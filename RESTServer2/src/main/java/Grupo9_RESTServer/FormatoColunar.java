@@ -0,0 +1,439 @@
+package Grupo9_RESTServer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.InternalServerErrorException;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+
+import grupo9_FinancasPessoais.Categoria;
+import grupo9_FinancasPessoais.Meta;
+import grupo9_FinancasPessoais.Orcamento;
+import grupo9_FinancasPessoais.Subcategoria;
+import grupo9_FinancasPessoais.Transacao;
+
+import Grupo9_RESTServer.ImportacaoTransacoes.LinhaPendente;
+
+/**
+ * Formato binário colunar, opcional, para as listas de entidades do domínio.
+ *
+ * É escolhido pelo cliente com Accept: application/x-grupo9-colunar; sem
+ * esse pedido explícito as respostas continuam em JSON. O corpo é big-endian:
+ *
+ * <pre>
+ * int   assinatura "G9C1"
+ * byte  tipo: T (transações), C (categorias), S (subcategorias), M (metas), O (orçamentos), 0 (vazio)
+ * int   número de linhas n
+ * int   número de textos d, seguido de d textos (int comprimento + bytes UTF-8)
+ * colunas, cada uma com n valores
+ * </pre>
+ *
+ * Os textos são guardados uma vez no dicionário e as colunas de texto levam
+ * o índice no dicionário (-1 para nulo). As datas vão como int com os dias
+ * desde 1970-01-01 (Integer.MIN_VALUE se a data não for reconhecida) e os
+ * valores como long em cêntimos. Colunas por tipo:
+ *
+ * <pre>
+ * T: dia, cêntimos, descrição, categoria, subcategoria, meta
+ * C: nome, gasto máximo
+ * S: nome, gasto máximo
+ * M: nome, descrição, dia, valor
+ * O: dia de criação, valor anual
+ * </pre>
+ */
+@Produces(FormatoColunar.TIPO)
+public class FormatoColunar implements MessageBodyWriter<Object> {
+
+    static final String TIPO = "application/x-grupo9-colunar";
+    static final MediaType TIPO_MEDIA = MediaType.valueOf(TIPO);
+
+    static final int ASSINATURA = 0x47394331;
+    static final int SEM_DIA = Integer.MIN_VALUE;
+    static final int SEM_TEXTO = -1;
+
+    /** Limite de linhas e de textos aceite na leitura, para não reservar memória a partir de um corpo inválido. */
+    static final int LINHAS_MAXIMAS = 1_000_000;
+
+    private static final byte VAZIO = 0;
+    private static final byte TRANSACOES = 'T';
+    private static final byte CATEGORIAS = 'C';
+    private static final byte SUBCATEGORIAS = 'S';
+    private static final byte METAS = 'M';
+    private static final byte ORCAMENTOS = 'O';
+
+    @Context
+    private HttpHeaders pedido;
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        if (mediaType == null || !TIPO_MEDIA.isCompatible(mediaType) || !pedidoExplicito()) {
+            return false;
+        }
+        if (Collection.class.isAssignableFrom(type)) {
+            Class<?> elemento = tipoElemento(genericType);
+            return elemento == null || tipo(elemento) != VAZIO;
+        }
+        return tipo(type) != VAZIO;
+    }
+
+    @Override
+    public long getSize(Object entidade, Class<?> type, Type genericType, Annotation[] annotations,
+                        MediaType mediaType) {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(Object entidade, Class<?> type, Type genericType, Annotation[] annotations,
+                        MediaType mediaType, MultivaluedMap<String, Object> httpHeaders,
+                        OutputStream entityStream) throws IOException {
+        List<Object> linhas = linhas(entidade);
+        byte tipo = linhas.isEmpty() ? tipoVazio(genericType) : tipo(linhas.get(0).getClass());
+        for (Object linha : linhas) {
+            if (linha == null || tipo(linha.getClass()) != tipo) {
+                throw new InternalServerErrorException("A lista não pode ser escrita em " + TIPO + ".");
+            }
+        }
+        // a mesma versão dos dados, noutra representação: a ETag passa a fraca, como na compressão
+        Object etag = httpHeaders.getFirst(HttpHeaders.ETAG);
+        if (etag instanceof EntityTag && !((EntityTag) etag).isWeak()) {
+            httpHeaders.putSingle(HttpHeaders.ETAG, new EntityTag(((EntityTag) etag).getValue(), true));
+        }
+        httpHeaders.add(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+
+        DataOutputStream saida = new DataOutputStream(new BufferedOutputStream(entityStream, 8192));
+        escrever(tipo, linhas, saida);
+        saida.flush();
+    }
+
+    /**
+     * O formato só é usado quando o cliente o indica no Accept, para que um
+     * Accept genérico (ou nenhum) continue a receber JSON.
+     */
+    private boolean pedidoExplicito() {
+        if (pedido == null) {
+            return false;
+        }
+        for (MediaType aceite : pedido.getAcceptableMediaTypes()) {
+            if (!aceite.isWildcardType() && !aceite.isWildcardSubtype() && TIPO_MEDIA.isCompatible(aceite)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Escreve as entidades no formato colunar.
+     *
+     * @param tipo   O tipo das entidades.
+     * @param linhas As entidades, todas do mesmo tipo.
+     * @param saida  O destino.
+     * @throws IOException se a escrita falhar.
+     */
+    static void escrever(byte tipo, List<Object> linhas, DataOutputStream saida) throws IOException {
+        int n = linhas.size();
+        Dicionario textos = new Dicionario();
+        int[] dias = null;
+        long[] valores = null;
+        int[][] colunasTexto;
+
+        switch (tipo) {
+            case TRANSACOES: {
+                dias = new int[n];
+                valores = new long[n];
+                colunasTexto = new int[4][n];
+                for (int i = 0; i < n; i++) {
+                    Transacao t = (Transacao) linhas.get(i);
+                    dias[i] = dia(t.getData());
+                    valores[i] = Dinheiro.centimos(t.getValor());
+                    colunasTexto[0][i] = textos.indice(t.getDescricao());
+                    colunasTexto[1][i] = textos.indice(t.getCategoria() != null ? t.getCategoria().getNomeC() : null);
+                    colunasTexto[2][i] = textos.indice(
+                            t.getSubcategoria() != null ? t.getSubcategoria().getNomeSubc() : null);
+                    colunasTexto[3][i] = textos.indice(t.getMeta() != null ? t.getMeta().getNome() : null);
+                }
+                break;
+            }
+            case CATEGORIAS: {
+                valores = new long[n];
+                colunasTexto = new int[1][n];
+                for (int i = 0; i < n; i++) {
+                    Categoria c = (Categoria) linhas.get(i);
+                    colunasTexto[0][i] = textos.indice(c.getNomeC());
+                    valores[i] = Dinheiro.centimos(c.getGastoMaximo());
+                }
+                break;
+            }
+            case SUBCATEGORIAS: {
+                valores = new long[n];
+                colunasTexto = new int[1][n];
+                for (int i = 0; i < n; i++) {
+                    Subcategoria s = (Subcategoria) linhas.get(i);
+                    colunasTexto[0][i] = textos.indice(s.getNomeSubc());
+                    valores[i] = Dinheiro.centimos(s.getGastoMaxSubc());
+                }
+                break;
+            }
+            case METAS: {
+                dias = new int[n];
+                valores = new long[n];
+                colunasTexto = new int[2][n];
+                for (int i = 0; i < n; i++) {
+                    Meta m = (Meta) linhas.get(i);
+                    colunasTexto[0][i] = textos.indice(m.getNome());
+                    colunasTexto[1][i] = textos.indice(m.getDescricao());
+                    dias[i] = dia(m.getData());
+                    valores[i] = Dinheiro.centimos(m.getValor());
+                }
+                break;
+            }
+            case ORCAMENTOS: {
+                dias = new int[n];
+                valores = new long[n];
+                colunasTexto = new int[0][];
+                for (int i = 0; i < n; i++) {
+                    Orcamento o = (Orcamento) linhas.get(i);
+                    dias[i] = dia(o.getDataCriacao());
+                    valores[i] = Dinheiro.centimos(o.getValorAnual());
+                }
+                break;
+            }
+            default:
+                colunasTexto = new int[0][];
+        }
+
+        saida.writeInt(ASSINATURA);
+        saida.writeByte(tipo);
+        saida.writeInt(n);
+        textos.escrever(saida);
+
+        switch (tipo) {
+            case TRANSACOES:
+                escreverColuna(saida, dias);
+                escreverColuna(saida, valores);
+                for (int[] coluna : colunasTexto) {
+                    escreverColuna(saida, coluna);
+                }
+                break;
+            case CATEGORIAS:
+            case SUBCATEGORIAS:
+                escreverColuna(saida, colunasTexto[0]);
+                escreverColuna(saida, valores);
+                break;
+            case METAS:
+                escreverColuna(saida, colunasTexto[0]);
+                escreverColuna(saida, colunasTexto[1]);
+                escreverColuna(saida, dias);
+                escreverColuna(saida, valores);
+                break;
+            case ORCAMENTOS:
+                escreverColuna(saida, dias);
+                escreverColuna(saida, valores);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Lê transações no formato colunar e entrega cada linha à importação,
+     * com a categoria e a subcategoria indicadas. A coluna das metas é lida
+     * mas não é atribuída, como nos extratos.
+     *
+     * @param entrada    O corpo do pedido.
+     * @param importacao A importação que recebe as transações.
+     * @throws IOException se o corpo não puder ser lido.
+     * @throws IllegalArgumentException se o corpo não for uma lista de transações neste formato.
+     */
+    static void lerTransacoes(InputStream entrada, ImportacaoTransacoes importacao) throws IOException {
+        DataInputStream dados = new DataInputStream(new BufferedInputStream(entrada, 8192));
+        try {
+            if (dados.readInt() != ASSINATURA) {
+                throw new IllegalArgumentException("O corpo não está no formato " + TIPO + ".");
+            }
+            byte tipo = dados.readByte();
+            int n = lerQuantidade(dados, "linhas");
+            if (tipo == VAZIO && n == 0) {
+                return;
+            }
+            if (tipo != TRANSACOES) {
+                throw new IllegalArgumentException("O corpo deve ter transações.");
+            }
+            String[] textos = new String[lerQuantidade(dados, "textos")];
+            for (int i = 0; i < textos.length; i++) {
+                textos[i] = lerTexto(dados);
+            }
+            int[] dias = lerColunaInt(dados, n);
+            long[] centimos = lerColunaLong(dados, n);
+            int[] descricoes = lerColunaInt(dados, n);
+            int[] categorias = lerColunaInt(dados, n);
+            int[] subcategorias = lerColunaInt(dados, n);
+            lerColunaInt(dados, n);
+
+            for (int i = 0; i < n; i++) {
+                int numero = i + 1;
+                try {
+                    importacao.adicionar(new LinhaPendente(numero, data(dias[i]), Dinheiro.euros(centimos[i]),
+                            texto(textos, descricoes[i]), texto(textos, categorias[i]),
+                            texto(textos, subcategorias[i])));
+                } catch (IndexOutOfBoundsException e) {
+                    importacao.falhar(numero, "Índice de texto inválido.");
+                }
+            }
+        } catch (EOFException e) {
+            throw new IllegalArgumentException("O corpo terminou antes do fim das colunas.");
+        }
+    }
+
+    private static int lerQuantidade(DataInputStream dados, String nome) throws IOException {
+        int quantidade = dados.readInt();
+        if (quantidade < 0 || quantidade > LINHAS_MAXIMAS) {
+            throw new IllegalArgumentException("Número de " + nome + " inválido: " + quantidade + ".");
+        }
+        return quantidade;
+    }
+
+    private static String lerTexto(DataInputStream dados) throws IOException {
+        int comprimento = dados.readInt();
+        if (comprimento < 0 || comprimento > 65_536) {
+            throw new IllegalArgumentException("Texto com comprimento inválido: " + comprimento + ".");
+        }
+        byte[] bytes = new byte[comprimento];
+        dados.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int[] lerColunaInt(DataInputStream dados, int n) throws IOException {
+        int[] coluna = new int[n];
+        for (int i = 0; i < n; i++) {
+            coluna[i] = dados.readInt();
+        }
+        return coluna;
+    }
+
+    private static long[] lerColunaLong(DataInputStream dados, int n) throws IOException {
+        long[] coluna = new long[n];
+        for (int i = 0; i < n; i++) {
+            coluna[i] = dados.readLong();
+        }
+        return coluna;
+    }
+
+    private static String texto(String[] textos, int indice) {
+        return indice == SEM_TEXTO ? null : textos[indice];
+    }
+
+    private static String data(int dia) {
+        return dia == SEM_DIA ? null : LocalDate.ofEpochDay(dia).toString();
+    }
+
+    private static void escreverColuna(DataOutputStream saida, int[] coluna) throws IOException {
+        for (int valor : coluna) {
+            saida.writeInt(valor);
+        }
+    }
+
+    private static void escreverColuna(DataOutputStream saida, long[] coluna) throws IOException {
+        for (long valor : coluna) {
+            saida.writeLong(valor);
+        }
+    }
+
+    static int dia(String data) {
+        long dia = Datas.diaEpoch(data);
+        return dia == Long.MIN_VALUE ? SEM_DIA : (int) dia;
+    }
+
+    private static List<Object> linhas(Object entidade) {
+        if (entidade instanceof Collection) {
+            return new ArrayList<>((Collection<?>) entidade);
+        }
+        return Collections.singletonList(entidade);
+    }
+
+    private static byte tipo(Class<?> classe) {
+        if (Transacao.class.isAssignableFrom(classe)) {
+            return TRANSACOES;
+        }
+        if (Categoria.class.isAssignableFrom(classe)) {
+            return CATEGORIAS;
+        }
+        if (Subcategoria.class.isAssignableFrom(classe)) {
+            return SUBCATEGORIAS;
+        }
+        if (Meta.class.isAssignableFrom(classe)) {
+            return METAS;
+        }
+        if (Orcamento.class.isAssignableFrom(classe)) {
+            return ORCAMENTOS;
+        }
+        return VAZIO;
+    }
+
+    private static byte tipoVazio(Type genericType) {
+        Class<?> elemento = tipoElemento(genericType);
+        return elemento != null ? tipo(elemento) : VAZIO;
+    }
+
+    private static Class<?> tipoElemento(Type genericType) {
+        if (genericType instanceof ParameterizedType) {
+            Type[] argumentos = ((ParameterizedType) genericType).getActualTypeArguments();
+            if (argumentos.length == 1 && argumentos[0] instanceof Class) {
+                return (Class<?>) argumentos[0];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Textos distintos de uma resposta, pela ordem em que aparecem.
+     */
+    private static final class Dicionario {
+        private final Map<String, Integer> indices = new HashMap<>();
+        private final List<String> textos = new ArrayList<>();
+
+        int indice(String texto) {
+            if (texto == null) {
+                return SEM_TEXTO;
+            }
+            Integer indice = indices.get(texto);
+            if (indice == null) {
+                indice = textos.size();
+                indices.put(texto, indice);
+                textos.add(texto);
+            }
+            return indice;
+        }
+
+        void escrever(DataOutputStream saida) throws IOException {
+            saida.writeInt(textos.size());
+            for (String texto : textos) {
+                byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+                saida.writeInt(bytes.length);
+                saida.write(bytes);
+            }
+        }
+    }
+}
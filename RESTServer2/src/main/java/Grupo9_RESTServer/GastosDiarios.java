@@ -0,0 +1,197 @@
+package Grupo9_RESTServer;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Totais de gastos por dia, por categoria e por subcategoria.
+ *
+ * Cada série guarda os totais em cêntimos em blocos de
+ * {@value Serie#DIAS_POR_BLOCO} dias, criados só para os dias com
+ * transações, pelo que a memória depende do número de dias distintos e não
+ * da distância entre a data mais antiga e a mais recente (uma data errada no
+ * ano 1 ou 9999 ocupa um bloco, não milhões de dias). As análises por dia,
+ * semana ou mês somam estes totais diários numa única passagem pelos blocos
+ * do intervalo, sem percorrer as transações. Não é thread-safe: é usado sob o bloqueio do
+ * {@link IndiceTransacoes}.
+ */
+public class GastosDiarios {
+
+    /** Nome usado para as transações sem categoria ou subcategoria. */
+    static final String SEM_NOME = "(sem atribuição)";
+
+    /**
+     * Intervalos de tempo em que os gastos podem ser agrupados.
+     */
+    enum Periodo {
+        DIA, SEMANA, MES
+    }
+
+    /**
+     * Totais diários de uma categoria, subcategoria ou do conjunto.
+     */
+    private static final class Serie {
+        static final int DIAS_POR_BLOCO = 64;
+
+        final NavigableMap<Long, long[]> blocos = new TreeMap<>();
+
+        void somar(long dia, long valor) {
+            long[] bloco = blocos.computeIfAbsent(Math.floorDiv(dia, DIAS_POR_BLOCO), b -> new long[DIAS_POR_BLOCO]);
+            bloco[Math.floorMod(dia, DIAS_POR_BLOCO)] += valor;
+        }
+
+        /**
+         * Soma os dias de [de, ate] nos intervalos que começam em inicios.
+         */
+        long[] agrupar(long de, long ate, long[] inicios) {
+            long[] grupos = new long[inicios.length];
+            int grupo = 0;
+            for (Map.Entry<Long, long[]> bloco : blocos.subMap(Math.floorDiv(de, DIAS_POR_BLOCO), true,
+                    Math.floorDiv(ate, DIAS_POR_BLOCO), true).entrySet()) {
+                long primeiroDia = bloco.getKey() * DIAS_POR_BLOCO;
+                long[] valores = bloco.getValue();
+                for (int i = 0; i < DIAS_POR_BLOCO; i++) {
+                    long dia = primeiroDia + i;
+                    if (valores[i] == 0 || dia < de || dia > ate) {
+                        continue;
+                    }
+                    while (grupo + 1 < inicios.length && dia >= inicios[grupo + 1]) {
+                        grupo++;
+                    }
+                    grupos[grupo] += valores[i];
+                }
+            }
+            return grupos;
+        }
+
+        long ultimoDia() {
+            for (Map.Entry<Long, long[]> bloco : blocos.descendingMap().entrySet()) {
+                long[] valores = bloco.getValue();
+                for (int i = DIAS_POR_BLOCO - 1; i >= 0; i--) {
+                    if (valores[i] != 0) {
+                        return bloco.getKey() * DIAS_POR_BLOCO + i;
+                    }
+                }
+            }
+            return Long.MIN_VALUE;
+        }
+    }
+
+    private final Map<String, Serie> porCategoria = new HashMap<>();
+    private final Map<String, Serie> porSubcategoria = new HashMap<>();
+    private final Serie total = new Serie();
+
+    /**
+     * Soma um valor, em cêntimos, aos totais do dia. As transações com data
+     * não reconhecida são ignoradas.
+     */
+    void somar(long dia, String categoria, String subcategoria, long valor) {
+        if (dia == Long.MIN_VALUE) {
+            return;
+        }
+        total.somar(dia, valor);
+        porCategoria.computeIfAbsent(categoria != null ? categoria : SEM_NOME, n -> new Serie()).somar(dia, valor);
+        porSubcategoria.computeIfAbsent(subcategoria != null ? subcategoria : SEM_NOME, n -> new Serie()).somar(dia, valor);
+    }
+
+    void limpar() {
+        porCategoria.clear();
+        porSubcategoria.clear();
+        total.blocos.clear();
+    }
+
+    /**
+     * O último dia com gastos, ou Long.MIN_VALUE se não houver nenhum.
+     */
+    long getUltimoDia() {
+        return total.ultimoDia();
+    }
+
+    /**
+     * Agrupa os gastos de [de, ate] por período e por categoria ou subcategoria.
+     *
+     * @param de              O primeiro dia, em dias desde 1970-01-01.
+     * @param ate             O último dia, em dias desde 1970-01-01.
+     * @param periodo         O período de agrupamento.
+     * @param porSubcategorias Se as séries são por subcategoria em vez de por categoria.
+     * @param maximoIntervalos O número máximo de intervalos aceite.
+     * @return A análise com uma série por categoria ou subcategoria com gastos no intervalo.
+     * @throws IllegalArgumentException se o intervalo tiver demasiados períodos.
+     */
+    AnaliseGastos agrupar(long de, long ate, Periodo periodo, boolean porSubcategorias, int maximoIntervalos) {
+        long[] inicios = inicios(de, ate, periodo, maximoIntervalos);
+        List<AnaliseGastos.Serie> series = new ArrayList<>();
+        for (Map.Entry<String, Serie> entrada : (porSubcategorias ? porSubcategoria : porCategoria).entrySet()) {
+            long[] valores = entrada.getValue().agrupar(de, ate, inicios);
+            long soma = 0;
+            boolean temGastos = false;
+            for (long v : valores) {
+                soma += v;
+                temGastos |= v != 0;
+            }
+            if (temGastos) {
+                series.add(new AnaliseGastos.Serie(entrada.getKey(), valores, soma));
+            }
+        }
+        series.sort((a, b) -> a.getNome().compareTo(b.getNome()));
+        String[] intervalos = new String[inicios.length];
+        for (int i = 0; i < inicios.length; i++) {
+            intervalos[i] = LocalDate.ofEpochDay(Math.max(inicios[i], de)).toString();
+        }
+        return new AnaliseGastos(periodo.name().toLowerCase(), porSubcategorias ? "subcategoria" : "categoria",
+                LocalDate.ofEpochDay(de).toString(), LocalDate.ofEpochDay(ate).toString(),
+                intervalos, total.agrupar(de, ate, inicios), series);
+    }
+
+    /**
+     * Calcula o dia de início de cada período. As semanas começam à
+     * segunda-feira e os meses no dia 1; o primeiro período pode começar
+     * antes de de.
+     */
+    private static long[] inicios(long de, long ate, Periodo periodo, int maximoIntervalos) {
+        LocalDate inicio = LocalDate.ofEpochDay(de);
+        if (periodo == Periodo.SEMANA) {
+            inicio = inicio.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        } else if (periodo == Periodo.MES) {
+            inicio = inicio.withDayOfMonth(1);
+        }
+        long quantos;
+        switch (periodo) {
+            case SEMANA:
+                quantos = (ate - inicio.toEpochDay()) / 7 + 1;
+                break;
+            case MES:
+                LocalDate fim = LocalDate.ofEpochDay(ate);
+                quantos = (fim.getYear() - inicio.getYear()) * 12L + fim.getMonthValue() - inicio.getMonthValue() + 1;
+                break;
+            default:
+                quantos = ate - de + 1;
+                break;
+        }
+        if (quantos > maximoIntervalos) {
+            throw new IllegalArgumentException("o intervalo tem mais de " + maximoIntervalos + " períodos.");
+        }
+        long[] inicios = new long[(int) quantos];
+        for (int i = 0; i < inicios.length; i++) {
+            switch (periodo) {
+                case SEMANA:
+                    inicios[i] = inicio.toEpochDay() + 7L * i;
+                    break;
+                case MES:
+                    inicios[i] = inicio.plusMonths(i).toEpochDay();
+                    break;
+                default:
+                    inicios[i] = de + i;
+                    break;
+            }
+        }
+        return inicios;
+    }
+}
@@ -0,0 +1,96 @@
+package Grupo9_RESTServer;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latências em microssegundos, com intervalos de largura
+ * proporcional ao valor (erro relativo inferior a 6,25%).
+ *
+ * Os valores abaixo de 16 µs ficam num intervalo cada; acima disso cada
+ * potência de 2 é dividida em 16 intervalos iguais. O registo só incrementa
+ * contadores já existentes e não cria objetos, pelo que pode ser chamado em
+ * cada pedido.
+ */
+public class HistogramaLatencias {
+
+    private static final int BITS = 4;
+    private static final int SUB = 1 << BITS;
+    /** Maior valor distinguido: cerca de 19 horas. */
+    private static final long MAXIMO = (1L << 36) - 1;
+
+    private final AtomicLongArray contagens = new AtomicLongArray(indice(MAXIMO) + 1);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder soma = new LongAdder();
+    private final LongAccumulator maximo = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Regista uma latência.
+     *
+     * @param micros A latência em microssegundos.
+     */
+    public void registar(long micros) {
+        long valor = Math.min(Math.max(micros, 0), MAXIMO);
+        contagens.incrementAndGet(indice(valor));
+        total.increment();
+        soma.add(valor);
+        maximo.accumulate(valor);
+    }
+
+    public long getTotal() {
+        return total.sum();
+    }
+
+    public long getSoma() {
+        return soma.sum();
+    }
+
+    public long getMaximo() {
+        return maximo.get();
+    }
+
+    /**
+     * Obtém o percentil indicado, em microssegundos.
+     *
+     * @param percentil O percentil, entre 0 e 100.
+     * @return O limite superior do intervalo que contém o percentil, ou 0 se
+     *         ainda não houver registos.
+     */
+    public long percentil(double percentil) {
+        long contados = 0;
+        for (int i = 0; i < contagens.length(); i++) {
+            contados += contagens.get(i);
+        }
+        if (contados == 0) {
+            return 0;
+        }
+        long alvo = Math.max(1, (long) Math.ceil(contados * percentil / 100));
+        long acumulado = 0;
+        for (int i = 0; i < contagens.length(); i++) {
+            acumulado += contagens.get(i);
+            if (acumulado >= alvo) {
+                return Math.min(limiteSuperior(i), getMaximo());
+            }
+        }
+        return getMaximo();
+    }
+
+    private static int indice(long valor) {
+        if (valor < SUB) {
+            return (int) valor;
+        }
+        int expoente = 63 - Long.numberOfLeadingZeros(valor);
+        int sub = (int) (valor >>> (expoente - BITS)) & (SUB - 1);
+        return (expoente - BITS + 1) * SUB + sub;
+    }
+
+    private static long limiteSuperior(int indice) {
+        if (indice < SUB) {
+            return indice;
+        }
+        int grupo = indice / SUB;
+        long inferior = (long) (SUB + indice % SUB) << (grupo - 1);
+        return inferior + (1L << (grupo - 1)) - 1;
+    }
+}
@@ -0,0 +1,223 @@
+package Grupo9_RESTServer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.function.BiConsumer;
+
+import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.JsonNumber;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import javax.json.JsonReaderFactory;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParserFactory;
+
+import grupo9_FinancasPessoais.Transacao;
+import grupo9_FinancasPessoais.TransacaoService;
+
+/**
+ * Importação de transações em streaming.
+ *
+ * O corpo do pedido é lido linha a linha e cada linha é gravada logo que é
+ * lida, sem guardar as restantes em memória. Uma linha inválida fica
+ * registada como falha sem interromper as restantes.
+ *
+ * O TransacaoService só grava uma transação de cada vez, cada uma na sua
+ * transação da base de dados, e não expõe o EntityManager; por isso não há
+ * gravação em lotes. Uma importação interrompida deixa gravadas as linhas
+ * anteriores; {@link #isAlterou()} indica se alguma escrita chegou a ser
+ * feita.
+ */
+class ImportacaoTransacoes {
+
+    static final String NDJSON = "application/x-ndjson";
+
+    private static final JsonParserFactory PARSERS = Json.createParserFactory(Collections.emptyMap());
+    private static final JsonReaderFactory LEITORES = Json.createReaderFactory(Collections.emptyMap());
+
+    /**
+     * Linha lida e ainda por gravar.
+     */
+    static class LinhaPendente {
+        final int numero;
+        final String data;
+        final double valor;
+        final String descricao;
+        final String categoria;
+        final String subcategoria;
+
+        LinhaPendente(int numero, String data, double valor, String descricao) {
+            this(numero, data, valor, descricao, null, null);
+        }
+
+        LinhaPendente(int numero, String data, double valor, String descricao,
+                      String categoria, String subcategoria) {
+            this.numero = numero;
+            this.data = data;
+            this.valor = valor;
+            this.descricao = descricao;
+            this.categoria = categoria;
+            this.subcategoria = subcategoria;
+        }
+    }
+
+    private final TransacaoService ts;
+    private final ResultadoImportacao resultado = new ResultadoImportacao();
+    private final long inicio = System.nanoTime();
+    private boolean alterou;
+    private BiConsumer<LinhaPendente, Transacao> aposGravar = (linha, transacao) -> { };
+
+    /**
+     * @param ts O serviço usado para gravar as transações.
+     */
+    ImportacaoTransacoes(TransacaoService ts) {
+        this.ts = ts;
+    }
+
+    /**
+     * Define a ação executada sobre cada transação logo após ser gravada.
+     * Se a ação falhar, a linha é registada como falha, embora a transação
+     * já tenha sido gravada.
+     */
+    ImportacaoTransacoes aposGravar(BiConsumer<LinhaPendente, Transacao> acao) {
+        this.aposGravar = acao;
+        return this;
+    }
+
+    void adicionar(LinhaPendente linha) {
+        if (linha.descricao == null || linha.descricao.isEmpty()) {
+            falhar(linha.numero, "Transação sem descrição.");
+            return;
+        }
+        gravar(linha);
+    }
+
+    void adicionar(int numero, Transacao transacao) {
+        adicionar(new LinhaPendente(numero, transacao.getData(), transacao.getValor(), transacao.getDescricao()));
+    }
+
+    /**
+     * Importa um array JSON de transações, objeto a objeto.
+     *
+     * @param entrada O corpo do pedido.
+     * @return O resultado da importação; se o JSON estiver mal formado, as
+     *         linhas anteriores ao erro ficam importadas.
+     * @throws IllegalArgumentException se o corpo não for um array JSON.
+     */
+    ResultadoImportacao importarArrayJson(InputStream entrada) {
+        int numero = 0;
+        try (JsonParser parser = PARSERS.createParser(entrada)) {
+            if (!parser.hasNext() || parser.next() != JsonParser.Event.START_ARRAY) {
+                throw new IllegalArgumentException("O corpo deve ser um array JSON de transações.");
+            }
+            while (parser.hasNext()) {
+                numero++;
+                JsonParser.Event evento = parser.next();
+                if (evento == JsonParser.Event.END_ARRAY) {
+                    break;
+                }
+                if (evento == JsonParser.Event.START_OBJECT) {
+                    adicionarJson(numero, parser.getObject());
+                } else {
+                    if (evento == JsonParser.Event.START_ARRAY) {
+                        parser.skipArray();
+                    }
+                    falhar(numero, "A transação deve ser um objeto JSON.");
+                }
+            }
+        } catch (JsonException e) {
+            falhar(numero, "JSON inválido: " + e.getMessage());
+        }
+        return terminar();
+    }
+
+    /**
+     * Importa transações em NDJSON, um objeto JSON por linha.
+     *
+     * @param entrada O corpo do pedido.
+     * @return O resultado da importação.
+     * @throws IOException se o corpo do pedido não puder ser lido.
+     */
+    ResultadoImportacao importarNdjson(InputStream entrada) throws IOException {
+        BufferedReader leitor = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+        String linha;
+        int numero = 0;
+        while ((linha = leitor.readLine()) != null) {
+            numero++;
+            if (linha.isBlank()) {
+                continue;
+            }
+            try (JsonReader reader = LEITORES.createReader(new StringReader(linha))) {
+                adicionarJson(numero, reader.readObject());
+            } catch (JsonException | IllegalStateException e) {
+                falhar(numero, "JSON inválido: " + e.getMessage());
+            }
+        }
+        return terminar();
+    }
+
+    private void adicionarJson(int numero, JsonObject objeto) {
+        try {
+            JsonNumber valor = objeto.getJsonNumber("valor");
+            if (valor == null) {
+                falhar(numero, "Transação sem valor.");
+                return;
+            }
+            adicionar(new LinhaPendente(numero, objeto.getString("data", null), valor.doubleValue(),
+                    objeto.getString("descricao", null)));
+        } catch (ClassCastException e) {
+            falhar(numero, "Campo da transação com tipo inválido.");
+        }
+    }
+
+    void falhar(int numero, String mensagem) {
+        resultado.registarFalha(numero, mensagem);
+    }
+
+    /**
+     * @return Se alguma transação foi enviada ao serviço para ser gravada,
+     *         mesmo que a escrita tenha falhado.
+     */
+    boolean isAlterou() {
+        return alterou;
+    }
+
+    /**
+     * Fecha o resultado.
+     */
+    ResultadoImportacao terminar() {
+        resultado.terminar(System.nanoTime() - inicio);
+        return resultado;
+    }
+
+    /**
+     * Grava uma linha. Uma escrita que falha pode ter sido confirmada antes
+     * do erro, por isso conta como alteração.
+     */
+    private void gravar(LinhaPendente linha) {
+        Transacao criada;
+        alterou = true;
+        try {
+            criada = ts.updateTransacao(linha.data, linha.valor, linha.descricao);
+        } catch (RuntimeException e) {
+            resultado.registarFalha(linha.numero, e.getMessage());
+            return;
+        }
+        if (criada == null) {
+            resultado.registarFalha(linha.numero, "Transação não gravada.");
+            return;
+        }
+        try {
+            aposGravar.accept(linha, criada);
+            resultado.registarSucesso();
+        } catch (RuntimeException e) {
+            resultado.registarFalha(linha.numero, "Transação gravada, mas não atribuída: " + e.getMessage());
+        }
+    }
+}
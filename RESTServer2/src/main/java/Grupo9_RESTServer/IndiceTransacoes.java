@@ -0,0 +1,476 @@
+package Grupo9_RESTServer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+import grupo9_FinancasPessoais.Transacao;
+import grupo9_FinancasPessoais.TransacaoService;
+
+/**
+ * Índice em memória das transações, com um identificador numérico por
+ * transação e índices secundários por descrição, por dia e pela chave de
+ * paginação (data, descrição e id).
+ *
+ * O domínio só procura transações pela descrição, que pode repetir-se; o
+ * índice atribui a cada transação um id estável enquanto o servidor estiver
+ * a correr, para que os clientes possam endereçar exatamente uma transação.
+ * As escritas feitas por id atualizam o índice de imediato; as restantes
+ * marcam-no como desatualizado e ele é sincronizado na leitura seguinte,
+ * mantendo os ids das transações que já conhecia: dentro de uma mesma
+ * descrição, cada transação fica com o id da que tinha a mesma data e valor
+ * e, na falta desta, com os ids livres pela ordem em que o serviço as
+ * devolve. As escritas por descrição também atualizam o índice de imediato
+ * quando a descrição é única ({@link #atualizarDescricao}).
+ *
+ * A leitura das transações do serviço na sincronização é feita fora do
+ * monitor do índice, para que as escritas não esperem por ela. Cada
+ * alteração ao índice incrementa a geração; uma leitura durante a qual a
+ * geração mudou é descartada e repetida, e só depois de
+ * {@value #TENTATIVAS_FORA_DO_MONITOR} tentativas a sincronização é feita
+ * com o monitor ocupado. Do mesmo modo, {@link #atualizar} lê a transação
+ * fora do monitor e só a aplica se a geração não mudou.
+ *
+ * O índice mantém também os totais diários de gastos ({@link GastosDiarios}),
+ * atualizados a cada transação indexada ou retirada.
+ */
+public class IndiceTransacoes {
+
+    /**
+     * Transação indexada, com os campos usados nos índices tal como estavam
+     * quando foi indexada, para que possa ser retirada mesmo que o serviço
+     * altere o objeto.
+     */
+    static final class Entrada {
+        final Transacao transacao;
+        final String descricao;
+        final String data;
+        final long dia;
+        final double valor;
+        final long centimos;
+        final String categoria;
+        final String subcategoria;
+        final String meta;
+        final String chave;
+
+        Entrada(long id, Transacao transacao) {
+            this.transacao = transacao;
+            this.descricao = transacao.getDescricao();
+            this.data = transacao.getData();
+            this.dia = Datas.diaEpoch(data);
+            this.valor = transacao.getValor();
+            this.centimos = Dinheiro.centimos(valor);
+            this.categoria = transacao.getCategoria() != null ? transacao.getCategoria().getNomeC() : null;
+            this.subcategoria = transacao.getSubcategoria() != null ? transacao.getSubcategoria().getNomeSubc() : null;
+            this.meta = transacao.getMeta() != null ? transacao.getMeta().getNome() : null;
+            this.chave = Datas.chaveOrdenavel(data, descricao) + "|" + Paginacao.comZeros(Long.toString(id), 19);
+        }
+    }
+
+    static final int TENTATIVAS_FORA_DO_MONITOR = 3;
+
+    private final ServicosDominio servicos;
+    private final Map<Long, Entrada> porId = new HashMap<>();
+    private final Map<String, NavigableSet<Long>> porDescricao = new HashMap<>();
+    private final NavigableMap<Long, NavigableSet<Long>> porDia = new TreeMap<>();
+    private final NavigableMap<String, Long> porChave = new TreeMap<>();
+    private final GastosDiarios gastosDiarios = new GastosDiarios();
+    private long proximoId = 1;
+    private long geracao;
+    /** Número de sincronizações aplicadas, para {@link #registar} saber se alguma já viu a transação. */
+    private long sincronizacoes;
+    private boolean atualizado;
+
+    public IndiceTransacoes(ServicosDominio servicos) {
+        this.servicos = servicos;
+    }
+
+    /**
+     * Obtém a transação com o id indicado.
+     *
+     * @return A transação, ou null se o id não existir.
+     */
+    public Transacao obter(long id) {
+        carregar();
+        synchronized (this) {
+            Entrada entrada = porId.get(id);
+            return entrada != null ? entrada.transacao : null;
+        }
+    }
+
+    /**
+     * Obtém os ids das transações com a descrição indicada, por ordem crescente.
+     */
+    public List<Long> idsPorDescricao(String descricao) {
+        carregar();
+        synchronized (this) {
+            NavigableSet<Long> ids = porDescricao.get(descricao);
+            return ids != null ? new ArrayList<>(ids) : Collections.emptyList();
+        }
+    }
+
+    /**
+     * Obtém os ids das transações de um dia, por ordem crescente.
+     *
+     * @param dia O dia, em dias desde 1970-01-01.
+     */
+    public List<Long> idsPorDia(long dia) {
+        carregar();
+        synchronized (this) {
+            NavigableSet<Long> ids = porDia.get(dia);
+            return ids != null ? new ArrayList<>(ids) : Collections.emptyList();
+        }
+    }
+
+    /**
+     * Obtém as transações entre dois dias, inclusive, ordenadas por dia e id.
+     * As transações com data não reconhecida só são incluídas se o intervalo
+     * começar em Long.MIN_VALUE.
+     *
+     * @param de  O primeiro dia, em dias desde 1970-01-01.
+     * @param ate O último dia, em dias desde 1970-01-01.
+     * @return Os ids e as transações do intervalo, por ordem.
+     */
+    public LinkedHashMap<Long, Transacao> entreDias(long de, long ate) {
+        LinkedHashMap<Long, Transacao> resultado = new LinkedHashMap<>();
+        if (de > ate) {
+            return resultado;
+        }
+        carregar();
+        synchronized (this) {
+            for (NavigableSet<Long> ids : porDia.subMap(de, true, ate, true).values()) {
+                for (Long id : ids) {
+                    resultado.put(id, porId.get(id).transacao);
+                }
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Obtém as transações seguintes a uma chave de paginação, por ordem de
+     * data, descrição e id, sem percorrer as anteriores.
+     *
+     * @param depoisDe A chave a partir da qual ler, exclusive, ou null para começar no início.
+     * @param quantas  O número máximo de transações.
+     * @return As chaves e as transações, por ordem.
+     */
+    public List<Map.Entry<String, TransacaoComId>> seguintes(String depoisDe, int quantas) {
+        carregar();
+        synchronized (this) {
+            NavigableMap<String, Long> restantes = depoisDe != null ? porChave.tailMap(depoisDe, false) : porChave;
+            List<Map.Entry<String, TransacaoComId>> resultado = new ArrayList<>(Math.min(quantas, porId.size()));
+            for (Map.Entry<String, Long> e : restantes.entrySet()) {
+                if (resultado.size() >= quantas) {
+                    break;
+                }
+                Long id = e.getValue();
+                resultado.add(Map.entry(e.getKey(), new TransacaoComId(id, porId.get(id).transacao)));
+            }
+            return resultado;
+        }
+    }
+
+    /**
+     * Obtém uma cópia de todas as entradas do índice, ordenadas por dia e id.
+     * As transações com data não reconhecida ficam no início.
+     */
+    List<Entrada> entradasPorDia() {
+        carregar();
+        synchronized (this) {
+            List<Entrada> entradas = new ArrayList<>(porId.size());
+            for (NavigableSet<Long> ids : porDia.values()) {
+                for (Long id : ids) {
+                    entradas.add(porId.get(id));
+                }
+            }
+            return entradas;
+        }
+    }
+
+    /**
+     * Executa uma leitura sobre os totais diários, com o índice sincronizado
+     * e sem escritas concorrentes.
+     */
+    public <R> R lerGastosDiarios(Function<GastosDiarios, R> leitura) {
+        carregar();
+        synchronized (this) {
+            return leitura.apply(gastosDiarios);
+        }
+    }
+
+    /**
+     * Verifica se a descrição identifica uma única transação.
+     */
+    public boolean isDescricaoUnica(String descricao) {
+        carregar();
+        synchronized (this) {
+            return descricaoUnica(descricao);
+        }
+    }
+
+    /**
+     * Marca o início de uma escrita que vai criar uma transação; chamado
+     * antes de a gravar.
+     *
+     * @return O valor a passar a {@link #registar}.
+     */
+    public synchronized long iniciarEscrita() {
+        return sincronizacoes;
+    }
+
+    /**
+     * Regista uma transação acabada de criar. Mesmo com o índice
+     * desatualizado a transação é indexada de imediato com um id novo, que a
+     * sincronização seguinte mantém por ter a mesma descrição, data e valor.
+     *
+     * Uma sincronização aplicada depois de a transação ser gravada já a
+     * indexou; nesse caso é devolvido o id da transação indexada com a mesma
+     * descrição, data e valor em vez de a indexar segunda vez; como essa pode
+     * ser outra transação igual, o índice é também sincronizado na leitura
+     * seguinte. Uma sincronização ainda em curso é descartada, porque o
+     * registo muda a geração.
+     *
+     * @param desde     O valor devolvido por {@link #iniciarEscrita()} antes de gravar.
+     * @param transacao A transação gravada.
+     * @return O id atribuído, ou 0 se a transação for null.
+     */
+    public synchronized long registar(long desde, Transacao transacao) {
+        if (transacao == null) {
+            return 0;
+        }
+        geracao++;
+        if (sincronizacoes != desde) {
+            Long indexada = indexadaIgual(transacao);
+            if (indexada != null) {
+                atualizado = false;
+                return indexada;
+            }
+        }
+        long id = proximoId++;
+        indexar(id, transacao);
+        return id;
+    }
+
+    /**
+     * Retira do índice a transação com o id indicado.
+     */
+    public synchronized void remover(long id) {
+        geracao++;
+        Entrada entrada = porId.remove(id);
+        if (entrada != null) {
+            desindexar(id, entrada);
+        }
+    }
+
+    /**
+     * Volta a ler do serviço a transação com o id indicado depois de uma
+     * escrita feita por id. Se a descrição não for única não é possível
+     * saber qual das transações o serviço devolve, e o índice é sincronizado
+     * na leitura seguinte.
+     */
+    public void atualizar(long id) {
+        String descricao;
+        long lida;
+        synchronized (this) {
+            Entrada antiga = porId.get(id);
+            if (!atualizado || antiga == null || !descricaoUnica(antiga.descricao)) {
+                invalidar();
+                return;
+            }
+            descricao = antiga.descricao;
+            lida = geracao;
+        }
+        Transacao nova = servicos.usar(servicos::transacoes, s -> s.findTransacao(descricao));
+        synchronized (this) {
+            // outra escrita mudou o índice durante a leitura: a transação lida pode já não ser a do id
+            if (lida != geracao) {
+                invalidar();
+                return;
+            }
+            geracao++;
+            desindexar(id, porId.remove(id));
+            if (nova != null) {
+                indexar(id, nova);
+            }
+        }
+    }
+
+    /**
+     * Atualiza o índice depois de uma escrita feita pela descrição. Se a
+     * descrição identificar uma única transação, só essa é lida de novo;
+     * caso contrário o índice é sincronizado na leitura seguinte.
+     */
+    public void atualizarDescricao(String descricao) {
+        Long id;
+        synchronized (this) {
+            NavigableSet<Long> ids = porDescricao.get(descricao);
+            if (!atualizado || ids == null || ids.size() != 1) {
+                invalidar();
+                return;
+            }
+            id = ids.first();
+        }
+        atualizar(id);
+    }
+
+    /**
+     * Retira do índice a transação removida pela descrição, se a descrição
+     * identificar uma única transação; caso contrário o índice é
+     * sincronizado na leitura seguinte.
+     */
+    public synchronized void removerDescricao(String descricao) {
+        NavigableSet<Long> ids = porDescricao.get(descricao);
+        if (!atualizado || ids == null || ids.size() != 1) {
+            invalidar();
+            return;
+        }
+        remover(ids.first());
+    }
+
+    /**
+     * Marca o índice como desatualizado. Os ids atuais são mantidos na
+     * sincronização seguinte.
+     */
+    public synchronized void invalidar() {
+        geracao++;
+        atualizado = false;
+    }
+
+    private boolean descricaoUnica(String descricao) {
+        NavigableSet<Long> ids = porDescricao.get(descricao);
+        return ids != null && ids.size() == 1;
+    }
+
+    /**
+     * Procura a transação indexada mais recente com a mesma descrição, data e valor.
+     */
+    private Long indexadaIgual(Transacao transacao) {
+        NavigableSet<Long> ids = porDescricao.get(transacao.getDescricao());
+        if (ids == null) {
+            return null;
+        }
+        for (Long id : ids.descendingSet()) {
+            Entrada entrada = porId.get(id);
+            if (Objects.equals(entrada.data, transacao.getData()) && entrada.valor == transacao.getValor()) {
+                return id;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Sincroniza o índice se estiver desatualizado, lendo as transações do
+     * serviço fora do monitor.
+     */
+    private void carregar() {
+        for (int tentativa = 1; ; tentativa++) {
+            long lida;
+            synchronized (this) {
+                if (atualizado) {
+                    return;
+                }
+                if (tentativa > TENTATIVAS_FORA_DO_MONITOR) {
+                    sincronizar(servicos.usar(servicos::transacoes, TransacaoService::findAllTransacoes));
+                    return;
+                }
+                lida = geracao;
+            }
+            List<Transacao> todas = servicos.usar(servicos::transacoes, TransacaoService::findAllTransacoes);
+            synchronized (this) {
+                if (atualizado) {
+                    return;
+                }
+                if (lida == geracao) {
+                    sincronizar(todas);
+                    return;
+                }
+            }
+        }
+    }
+
+    private void sincronizar(List<Transacao> todas) {
+        Map<String, List<Transacao>> atuais = new LinkedHashMap<>();
+        if (todas != null) {
+            for (Transacao t : todas) {
+                atuais.computeIfAbsent(t.getDescricao(), d -> new ArrayList<>()).add(t);
+            }
+        }
+        Map<String, NavigableSet<Long>> anteriores = new HashMap<>(porDescricao);
+        Map<Long, Entrada> conhecidas = new HashMap<>(porId);
+        porId.clear();
+        porDescricao.clear();
+        porDia.clear();
+        porChave.clear();
+        gastosDiarios.limpar();
+        for (Map.Entry<String, List<Transacao>> entrada : atuais.entrySet()) {
+            NavigableSet<Long> livres = new TreeSet<>();
+            Map<List<Object>, ArrayDeque<Long>> livresPorDataValor = new HashMap<>();
+            NavigableSet<Long> ids = anteriores.get(entrada.getKey());
+            if (ids != null) {
+                livres.addAll(ids);
+                for (Long id : ids) {
+                    Entrada anterior = conhecidas.get(id);
+                    livresPorDataValor.computeIfAbsent(dataValor(anterior.data, anterior.valor),
+                            k -> new ArrayDeque<>()).add(id);
+                }
+            }
+            List<Transacao> semId = new ArrayList<>();
+            // primeiro mantém o id das transações com a mesma data e valor, depois reutiliza por ordem
+            for (Transacao t : entrada.getValue()) {
+                ArrayDeque<Long> iguais = livresPorDataValor.get(dataValor(t.getData(), t.getValor()));
+                Long id = iguais != null ? iguais.pollFirst() : null;
+                if (id != null) {
+                    livres.remove(id);
+                    indexar(id, t);
+                } else {
+                    semId.add(t);
+                }
+            }
+            for (Transacao t : semId) {
+                Long id = livres.pollFirst();
+                indexar(id != null ? id : proximoId++, t);
+            }
+        }
+        atualizado = true;
+        sincronizacoes++;
+    }
+
+    private static List<Object> dataValor(String data, double valor) {
+        return Arrays.asList(data, valor);
+    }
+
+    private void indexar(long id, Transacao transacao) {
+        Entrada entrada = new Entrada(id, transacao);
+        porId.put(id, entrada);
+        porChave.put(entrada.chave, id);
+        porDescricao.computeIfAbsent(entrada.descricao, d -> new TreeSet<>()).add(id);
+        porDia.computeIfAbsent(entrada.dia, d -> new TreeSet<>()).add(id);
+        gastosDiarios.somar(entrada.dia, entrada.categoria, entrada.subcategoria, entrada.centimos);
+    }
+
+    private void desindexar(long id, Entrada entrada) {
+        retirar(porDescricao, entrada.descricao, id);
+        retirar(porDia, entrada.dia, id);
+        porChave.remove(entrada.chave);
+        gastosDiarios.somar(entrada.dia, entrada.categoria, entrada.subcategoria, -entrada.centimos);
+    }
+
+    private static <K> void retirar(Map<K, NavigableSet<Long>> indice, K chave, long id) {
+        NavigableSet<Long> ids = indice.get(chave);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) {
+            indice.remove(chave);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package Grupo9_RESTServer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import grupo9_FinancasPessoais.Orcamento;
+
+/**
+ * Intervalo de dias coberto por um orçamento: da sua data de criação até à
+ * véspera da criação do orçamento seguinte. O orçamento mais recente não
+ * tem fim.
+ */
+final class IntervaloOrcamento {
+
+    final Orcamento orcamento;
+    final long inicio;
+    /** O último dia, ou Long.MAX_VALUE para o orçamento mais recente. */
+    final long fim;
+
+    private IntervaloOrcamento(Orcamento orcamento, long inicio, long fim) {
+        this.orcamento = orcamento;
+        this.inicio = inicio;
+        this.fim = fim;
+    }
+
+    /**
+     * Calcula os intervalos dos orçamentos, ordenados pela data de criação.
+     * Os orçamentos com data não reconhecida são ignorados.
+     */
+    static List<IntervaloOrcamento> de(List<Orcamento> orcamentos) {
+        List<Orcamento> datados = new ArrayList<>();
+        if (orcamentos != null) {
+            for (Orcamento o : orcamentos) {
+                if (Datas.diaEpoch(o.getDataCriacao()) != Long.MIN_VALUE) {
+                    datados.add(o);
+                }
+            }
+        }
+        datados.sort(Comparator.comparingLong(o -> Datas.diaEpoch(o.getDataCriacao())));
+        List<IntervaloOrcamento> intervalos = new ArrayList<>(datados.size());
+        for (int i = 0; i < datados.size(); i++) {
+            long inicio = Datas.diaEpoch(datados.get(i).getDataCriacao());
+            long fim = i + 1 < datados.size() ? Datas.diaEpoch(datados.get(i + 1).getDataCriacao()) - 1 : Long.MAX_VALUE;
+            intervalos.add(new IntervaloOrcamento(datados.get(i), inicio, fim));
+        }
+        return intervalos;
+    }
+}
@@ -0,0 +1,46 @@
+package Grupo9_RESTServer;
+
+import java.util.Collections;
+
+import javax.json.Json;
+import javax.json.bind.JsonbBuilder;
+import javax.json.stream.JsonGenerator;
+import javax.json.stream.JsonGeneratorFactory;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.eclipse.yasson.YassonJsonb;
+
+/**
+ * Escrita de listagens em JSON diretamente para o corpo da resposta.
+ *
+ * Cada entidade é serializada pelo Yasson para um JsonGenerator ligado ao
+ * output stream do servlet, sem construir antes o JSON completo em memória.
+ */
+final class JsonStreaming {
+
+    private static final YassonJsonb JSONB = (YassonJsonb) JsonbBuilder.create();
+    private static final JsonGeneratorFactory GERADORES = Json.createGeneratorFactory(Collections.emptyMap());
+
+    private JsonStreaming() {
+    }
+
+    /**
+     * Cria a saída que escreve os itens como um array JSON.
+     *
+     * @param itens Os itens a escrever, percorridos uma única vez.
+     * @return A saída para usar como entidade da resposta.
+     */
+    static StreamingOutput lista(Iterable<?> itens) {
+        return output -> {
+            try (JsonGenerator gerador = GERADORES.createGenerator(output)) {
+                gerador.writeStartArray();
+                if (itens != null) {
+                    for (Object item : itens) {
+                        JSONB.toJson(item, gerador);
+                    }
+                }
+                gerador.writeEnd();
+            }
+        };
+    }
+}
@@ -0,0 +1,337 @@
+package Grupo9_RESTServer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import Grupo9_RESTServer.ImportacaoTransacoes.LinhaPendente;
+
+/**
+ * Leitura de extratos bancários em CSV e OFX.
+ *
+ * Os extratos são lidos sequencialmente do corpo do pedido e cada movimento
+ * é entregue à importação assim que é lido, sem carregar o ficheiro inteiro.
+ * O BOM UTF-8 que o Excel e muitos bancos põem no início do CSV é ignorado;
+ * o OFX é descodificado com a codificação indicada no seu cabeçalho.
+ */
+final class LeitorExtratos {
+
+    static final String CSV = "text/csv";
+    static final String OFX = "application/x-ofx";
+
+    private static final DateTimeFormatter DATA_OFX = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private static final char BOM = '\uFEFF';
+    /** Bytes lidos do início do OFX à procura do cabeçalho. */
+    private static final int CABECALHO_OFX = 1024;
+    private static final Charset WINDOWS_1252 = Charset.forName("windows-1252");
+    private static final Pattern CODIFICACAO_XML = Pattern.compile("<\\?xml[^>]*encoding\\s*=\\s*[\"']([^\"']+)[\"']");
+    private static final Pattern ENCODING_SGML = Pattern.compile("(?m)^\\s*ENCODING\\s*:\\s*(\\S+)");
+    private static final Pattern CHARSET_SGML = Pattern.compile("(?m)^\\s*CHARSET\\s*:\\s*(\\S+)");
+
+    private LeitorExtratos() {
+    }
+
+    /**
+     * Lê um extrato CSV separado por ponto e vírgula ou vírgula.
+     *
+     * Se a primeira linha tiver os nomes das colunas, estas são identificadas
+     * pelo nome (data, descricao, valor, categoria, subcategoria); caso
+     * contrário são lidas por essa ordem.
+     *
+     * @param entrada    O conteúdo do extrato.
+     * @param importacao A importação que recebe os movimentos.
+     * @throws IOException se o extrato não puder ser lido.
+     * @throws IllegalArgumentException se o cabeçalho não tiver as colunas obrigatórias.
+     */
+    static void lerCsv(Reader entrada, ImportacaoTransacoes importacao) throws IOException {
+        BufferedReader leitor = new BufferedReader(entrada);
+        String linha = leitor.readLine();
+        if (linha == null) {
+            return;
+        }
+        if (!linha.isEmpty() && linha.charAt(0) == BOM) {
+            linha = linha.substring(1);
+        }
+        char separador = linha.indexOf(';') >= 0 ? ';' : ',';
+        int[] colunas = {0, 1, 2, 3, 4};
+        int numero = 1;
+
+        List<String> campos = dividir(linha, separador);
+        if (eCabecalho(campos)) {
+            colunas = colunasDoCabecalho(campos);
+        } else {
+            adicionarCsv(numero, campos, colunas, importacao);
+        }
+
+        while ((linha = leitor.readLine()) != null) {
+            numero++;
+            if (!linha.isBlank()) {
+                adicionarCsv(numero, dividir(linha, separador), colunas, importacao);
+            }
+        }
+    }
+
+    /**
+     * Lê os movimentos (STMTTRN) de um extrato OFX, em SGML ou XML,
+     * descodificado com a codificação do seu cabeçalho.
+     *
+     * @param entrada    O extrato, em bytes.
+     * @param importacao A importação que recebe os movimentos.
+     * @throws IOException se o extrato não puder ser lido.
+     * @throws IllegalArgumentException se o cabeçalho indicar uma codificação não suportada.
+     */
+    static void lerOfx(InputStream entrada, ImportacaoTransacoes importacao) throws IOException {
+        BufferedInputStream bytes = new BufferedInputStream(entrada, 8192);
+        lerOfx(new InputStreamReader(bytes, codificacaoOfx(bytes)), importacao);
+    }
+
+    /**
+     * Obtém a codificação de um extrato OFX sem consumir o início do stream.
+     *
+     * No OFX 2 (XML) é a da declaração XML, UTF-8 por omissão. No OFX 1
+     * (SGML) o cabeçalho tem ENCODING (USASCII ou UTF-8) e CHARSET (a página
+     * de código, normalmente 1252 ou ISO-8859-1); com USASCII e CHARSET NONE
+     * é usado o windows-1252, que inclui o ASCII e é o que os bancos usam na
+     * prática. Sem cabeçalho, ou com BOM, o extrato é lido como UTF-8.
+     *
+     * @throws IllegalArgumentException se a codificação não for suportada.
+     */
+    static Charset codificacaoOfx(BufferedInputStream entrada) throws IOException {
+        entrada.mark(CABECALHO_OFX);
+        byte[] inicio = entrada.readNBytes(CABECALHO_OFX);
+        entrada.reset();
+        if (inicio.length >= 3 && (inicio[0] & 0xFF) == 0xEF && (inicio[1] & 0xFF) == 0xBB
+                && (inicio[2] & 0xFF) == 0xBF) {
+            return StandardCharsets.UTF_8;
+        }
+        String cabecalho = new String(inicio, StandardCharsets.ISO_8859_1);
+        Matcher xml = CODIFICACAO_XML.matcher(cabecalho);
+        if (xml.find()) {
+            return codificacao(xml.group(1));
+        }
+        // no SGML o cabeçalho termina na primeira marca
+        int marca = cabecalho.indexOf('<');
+        String sgml = marca >= 0 ? cabecalho.substring(0, marca) : cabecalho;
+        Matcher encoding = ENCODING_SGML.matcher(sgml);
+        if (!encoding.find()) {
+            return StandardCharsets.UTF_8;
+        }
+        if (encoding.group(1).equalsIgnoreCase("UTF-8")) {
+            return StandardCharsets.UTF_8;
+        }
+        Matcher charset = CHARSET_SGML.matcher(sgml);
+        if (!charset.find() || charset.group(1).equalsIgnoreCase("NONE")) {
+            return WINDOWS_1252;
+        }
+        String nome = charset.group(1);
+        if (nome.equals("8859-1")) {
+            return StandardCharsets.ISO_8859_1;
+        }
+        // as páginas de código do Windows aparecem só com o número
+        return codificacao(nome.chars().allMatch(Character::isDigit) ? "windows-" + nome : nome);
+    }
+
+    private static Charset codificacao(String nome) {
+        try {
+            return Charset.forName(nome);
+        } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+            throw new IllegalArgumentException("Codificação do extrato não suportada: " + nome);
+        }
+    }
+
+    /**
+     * Lê os movimentos (STMTTRN) de um extrato OFX, em SGML ou XML.
+     *
+     * @param entrada    O conteúdo do extrato.
+     * @param importacao A importação que recebe os movimentos.
+     * @throws IOException se o extrato não puder ser lido.
+     */
+    static void lerOfx(Reader entrada, ImportacaoTransacoes importacao) throws IOException {
+        BufferedReader leitor = new BufferedReader(entrada);
+        StringBuilder marca = new StringBuilder();
+        StringBuilder texto = new StringBuilder();
+        boolean dentroMarca = false;
+        boolean dentroMovimento = false;
+        String marcaAtual = null;
+        String data = null;
+        String valor = null;
+        String nome = null;
+        String memo = null;
+        int numero = 0;
+
+        int c;
+        while ((c = leitor.read()) != -1) {
+            if (c == '<') {
+                if (dentroMovimento && marcaAtual != null) {
+                    String conteudo = texto.toString().trim();
+                    if (!conteudo.isEmpty()) {
+                        switch (marcaAtual) {
+                            case "DTPOSTED": data = conteudo; break;
+                            case "TRNAMT": valor = conteudo; break;
+                            case "NAME": nome = conteudo; break;
+                            case "MEMO": memo = conteudo; break;
+                            default: break;
+                        }
+                    }
+                }
+                texto.setLength(0);
+                marca.setLength(0);
+                dentroMarca = true;
+            } else if (c == '>' && dentroMarca) {
+                dentroMarca = false;
+                marcaAtual = marca.toString().trim().toUpperCase(Locale.ROOT);
+                if (marcaAtual.equals("STMTTRN")) {
+                    dentroMovimento = true;
+                    data = valor = nome = memo = null;
+                } else if (marcaAtual.equals("/STMTTRN")) {
+                    dentroMovimento = false;
+                    numero++;
+                    adicionarOfx(numero, data, valor, memo != null ? memo : nome, importacao);
+                }
+            } else if (dentroMarca) {
+                marca.append((char) c);
+            } else if (dentroMovimento && texto.length() < 1024) {
+                texto.append((char) c);
+            }
+        }
+    }
+
+    private static void adicionarCsv(int numero, List<String> campos, int[] colunas, ImportacaoTransacoes importacao) {
+        String data = campo(campos, colunas[0]);
+        String descricao = campo(campos, colunas[1]);
+        String valor = campo(campos, colunas[2]);
+        if (valor == null) {
+            importacao.falhar(numero, "Linha sem valor.");
+            return;
+        }
+        try {
+            importacao.adicionar(new LinhaPendente(numero, data, interpretarValor(valor), descricao,
+                    campo(campos, colunas[3]), campo(campos, colunas[4])));
+        } catch (NumberFormatException e) {
+            importacao.falhar(numero, "Valor inválido: " + valor);
+        }
+    }
+
+    private static void adicionarOfx(int numero, String data, String valor, String descricao,
+                                     ImportacaoTransacoes importacao) {
+        if (valor == null) {
+            importacao.falhar(numero, "Movimento sem valor.");
+            return;
+        }
+        try {
+            importacao.adicionar(new LinhaPendente(numero, dataOfx(data), interpretarValor(valor), descricao));
+        } catch (NumberFormatException e) {
+            importacao.falhar(numero, "Valor inválido: " + valor);
+        } catch (DateTimeParseException e) {
+            importacao.falhar(numero, "Data inválida: " + data);
+        }
+    }
+
+    /**
+     * Converte a data OFX (AAAAMMDD, seguida opcionalmente da hora) para AAAA-MM-DD.
+     */
+    private static String dataOfx(String data) {
+        if (data == null || data.length() < 8) {
+            throw new DateTimeParseException("Data OFX incompleta", String.valueOf(data), 0);
+        }
+        return LocalDate.parse(data.substring(0, 8), DATA_OFX).toString();
+    }
+
+    /**
+     * Interpreta um valor com ponto ou vírgula decimal, aceitando separadores de milhares.
+     */
+    static double interpretarValor(String valor) {
+        String v = valor.replace(" ", "").replace("\u00A0", "").replace("€", "");
+        int virgula = v.lastIndexOf(',');
+        int ponto = v.lastIndexOf('.');
+        if (virgula > ponto) {
+            v = v.replace(".", "").replace(',', '.');
+        } else if (virgula >= 0) {
+            v = v.replace(",", "");
+        }
+        return Double.parseDouble(v);
+    }
+
+    private static boolean eCabecalho(List<String> campos) {
+        for (String campo : campos) {
+            if (campo != null && normalizar(campo).equals("valor")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[] colunasDoCabecalho(List<String> campos) {
+        int[] colunas = {-1, -1, -1, -1, -1};
+        for (int i = 0; i < campos.size(); i++) {
+            String nome = campos.get(i) != null ? normalizar(campos.get(i)) : "";
+            switch (nome) {
+                case "data": colunas[0] = i; break;
+                case "descricao": colunas[1] = i; break;
+                case "valor": colunas[2] = i; break;
+                case "categoria": colunas[3] = i; break;
+                case "subcategoria": colunas[4] = i; break;
+                default: break;
+            }
+        }
+        if (colunas[0] < 0 || colunas[1] < 0) {
+            throw new IllegalArgumentException("O cabeçalho do CSV deve ter as colunas data, descricao e valor.");
+        }
+        return colunas;
+    }
+
+    private static String normalizar(String nome) {
+        return nome.trim().toLowerCase(Locale.ROOT).replace('ç', 'c').replace('ã', 'a');
+    }
+
+    private static String campo(List<String> campos, int indice) {
+        if (indice < 0 || indice >= campos.size()) {
+            return null;
+        }
+        String valor = campos.get(indice);
+        return valor == null || valor.isEmpty() ? null : valor;
+    }
+
+    /**
+     * Divide uma linha CSV, respeitando campos entre aspas.
+     */
+    private static List<String> dividir(String linha, char separador) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder atual = new StringBuilder();
+        boolean entreAspas = false;
+        for (int i = 0; i < linha.length(); i++) {
+            char c = linha.charAt(i);
+            if (c == '"') {
+                if (entreAspas && i + 1 < linha.length() && linha.charAt(i + 1) == '"') {
+                    atual.append('"');
+                    i++;
+                } else {
+                    entreAspas = !entreAspas;
+                }
+            } else if (c == separador && !entreAspas) {
+                campos.add(atual.toString().trim());
+                atual.setLength(0);
+            } else {
+                atual.append(c);
+            }
+        }
+        campos.add(atual.toString().trim());
+        return campos;
+    }
+}
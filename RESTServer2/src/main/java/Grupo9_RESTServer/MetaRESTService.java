@@ -4,10 +4,18 @@ import grupo9_FinancasPessoais.Categoria;
 import grupo9_FinancasPessoais.Meta;
 import grupo9_FinancasPessoais.MetaService;
 
+import javax.inject.Inject;
+import javax.inject.Provider;
 import javax.ws.rs.*;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseEventSink;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Controlador REST para gerenciar metas financeiras.
@@ -15,7 +23,29 @@ import java.util.List;
 @Path("/meta")
 public class MetaRESTService {
 
-    private MetaService ms = new MetaService();
+    @Inject
+    private Provider<MetaService> ms;
+
+    @Inject
+    private CacheConsultas cache;
+
+    @Inject
+    private DifusorEventos difusor;
+
+    @Inject
+    private IndiceTransacoes indice;
+
+    @Inject
+    private RelatoriosParalelos relatorios;
+
+    @Inject
+    private ExecucaoAssincrona assincrono;
+
+    @Inject
+    private OrcamentoAtual atual;
+
+    @Inject
+    private BloqueiosEntidades bloqueios;
 
     /**
      * Método de saudação em texto simples.
@@ -31,8 +61,13 @@ public class MetaRESTService {
 
     @POST
 	@Path("/addMeta")
+	@Altera(Entidade.META)
 	public Response addCategoria(Meta meta) {		
-    	Meta metaResponse = ms.updateMeta(meta.getNome(), meta.getDescricao(), meta.getValor(), meta.getData());
+    	Meta metaResponse = bloqueios.obter(Entidade.META, meta.getNome(), () -> {
+    		Meta atualizada = ms.get().updateMeta(meta.getNome(), meta.getDescricao(), meta.getValor(), meta.getData());
+    		cache.getMetas().invalidar(meta.getNome());
+    		return atualizada;
+    	});
 		
 		return Response.status(Response.Status.CREATED)
 				.entity(metaResponse)
@@ -42,8 +77,14 @@ public class MetaRESTService {
     
     @DELETE
 	@Path("/deleteMeta/{nomeMeta}")
+	@Altera({Entidade.META, Entidade.TRANSACAO})
 	public Response deleteMeta(@PathParam("nomeMeta") String nomeMeta) {
-		boolean metaRemoved = ms.removeMeta(nomeMeta);
+		boolean metaRemoved = bloqueios.obter(Entidade.META, nomeMeta, () -> {
+			boolean removida = ms.get().removeMeta(nomeMeta);
+			cache.getMetas().invalidar(nomeMeta);
+			return removida;
+		});
+		indice.invalidar();
 		
 		return Response.status(Response.Status.OK)
 				.entity(metaRemoved)
@@ -58,19 +99,43 @@ public class MetaRESTService {
      */
     @GET
     @Path("/getMetas")
+    @Versionado({Entidade.META, Entidade.ORCAMENTO})
     public Response getMetas() {
-    	List<Meta> metas = ms.findAllMetasDoUltimoOrcamento();
+    	List<Meta> metas = atual.getMetas();
 
 		return Response.status(Response.Status.OK)
 				.entity(metas)
 				.type(MediaType.APPLICATION_JSON)
 				.build();
 	}
+
+    /**
+     * Obtém todas as metas. Com os parâmetros limit ou cursor a resposta
+     * é uma página ordenada por nome, com o cursor da página seguinte.
+     *
+     * @param limite O número máximo de metas por página.
+     * @param cursor O cursor devolvido pela página anterior.
+     * @return Resposta HTTP contendo a lista ou a página de metas.
+     */
     @GET
     @Path("/getAllMetas")
-    public Response getAllMetas() {
-    	List<Meta> metas = ms.findAllMetas();
+    @Versionado(Entidade.META)
+    public Response getAllMetas(@QueryParam("limit") Integer limite, @QueryParam("cursor") String cursor) {
+    	List<Meta> metas = ms.get().findAllMetas();
 
+    	if (Paginacao.pedida(limite, cursor)) {
+    		try {
+    			return Response.status(Response.Status.OK)
+    					.entity(Paginacao.paginar(metas, m -> Objects.toString(m.getNome(), ""), cursor, limite))
+    					.type(MediaType.APPLICATION_JSON)
+    					.build();
+    		} catch (IllegalArgumentException e) {
+    			return Response.status(Response.Status.BAD_REQUEST)
+    					.entity("Erro na paginação: " + e.getMessage())
+    					.type(MediaType.TEXT_PLAIN)
+    					.build();
+    		}
+    	}
 		return Response.status(Response.Status.OK)
 				.entity(metas)
 				.type(MediaType.APPLICATION_JSON)
@@ -78,6 +143,29 @@ public class MetaRESTService {
 	}
     
 
+    /**
+     * Obtém todas as metas em streaming, escrevendo cada item
+     * diretamente na resposta à medida que é serializado.
+     *
+     * @return Resposta HTTP com o array JSON escrito em streaming.
+     */
+    @GET
+    @Path("/getAllMetas/stream")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Versionado(Entidade.META)
+    public Response getAllMetasStream() {
+        try {
+            return Response.status(Response.Status.OK)
+                    .entity(JsonStreaming.lista(ms.get().findAllMetas()))
+                    .build();
+        } catch (RuntimeException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Erro ao obter as metas: " + e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        }
+    }
+
     /**
      * Obtém uma categoria com base no nome.
      *
@@ -86,9 +174,10 @@ public class MetaRESTService {
      */
     @GET
     @Path("/getMeta/{nome}")
+    @Versionado(Entidade.META)
     public Response getMeta(@PathParam("nome") String nome) {
         try {
-        	Meta metaResponse = ms.findMeta(nome);
+        	Meta metaResponse = cache.getMetas().obter(nome, n -> ms.get().findMeta(n));
             if (metaResponse != null) {
                 return Response.status(Response.Status.OK)
                         .entity(metaResponse)
@@ -117,10 +206,14 @@ public class MetaRESTService {
      */
     @PUT
     @Path("/alterarValorMeta/{nome}/{novoValor}")
+    @Altera(Entidade.META)
     public Response alterarValorMeta(
             @PathParam("nome") String nome, @PathParam("novoValor") Double novoValor) {
         try {
-            ms.alterarValorMeta(nome, novoValor);
+            bloqueios.executar(Entidade.META, nome, () -> {
+                ms.get().alterarValorMeta(nome, novoValor);
+                cache.getMetas().invalidar(nome);
+            });
             return Response.status(Response.Status.OK)
                     .entity("Valor da Meta " + nome + " alterado para: " + novoValor)
                     .build();
@@ -141,10 +234,14 @@ public class MetaRESTService {
      */
     @PUT
     @Path("/alterarPrazoMeta/{nomeMeta}/{novaData}")
+    @Altera(Entidade.META)
     public Response alterarPrazoMeta(
             @PathParam("nomeMeta") String nomeMeta, @PathParam("novaData") String novaData) {
         try {
-            ms.alterarPrazoMeta(nomeMeta, novaData);
+            bloqueios.executar(Entidade.META, nomeMeta, () -> {
+                ms.get().alterarPrazoMeta(nomeMeta, novaData);
+                cache.getMetas().invalidar(nomeMeta);
+            });
             return Response.status(Response.Status.OK)
                     .entity("Prazo da Meta " + nomeMeta + " alterado!")
                     .build();
@@ -157,44 +254,105 @@ public class MetaRESTService {
     }
 
     /**
-     * Verifica as metas cumpridas.
+     * Verifica as metas cumpridas. O mesmo relatório em JSON está em
+     * {@link #estadoMetas(String, AsyncResponse)}, com estado=cumpridas.
      *
-     * @return Resposta HTTP indicando o resultado da operação.
+     * @param resposta A resposta assíncrona, retomada com o resultado.
      */
     @GET
     @Path("/verificarMetasCumpridas")
-    public Response verificarMetasCumpridas() {
-        try {
-            String resultado = ms.obterMetasCumpridas();
-            return Response.status(Response.Status.OK)
-                    .entity(resultado)
-                    .build();
-        } catch (RuntimeException e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity("Erro ao verificar metas cumpridas: " + e.getMessage())
-                    .type(MediaType.TEXT_PLAIN)
-                    .build();
-        }
+    @Versionado({Entidade.META, Entidade.TRANSACAO})
+    public void verificarMetasCumpridas(@Suspended AsyncResponse resposta) {
+        assincrono.executar(resposta, "verificarMetasCumpridas", () -> {
+            try {
+                String resultado = ms.get().obterMetasCumpridas();
+                return Response.status(Response.Status.OK)
+                        .entity(resultado)
+                        .build();
+            } catch (RuntimeException e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity("Erro ao verificar metas cumpridas: " + e.getMessage())
+                        .type(MediaType.TEXT_PLAIN)
+                        .build();
+            }
+        });
     }
 
     /**
-     * Lista as metas não cumpridas.
+     * Lista as metas não cumpridas. O mesmo relatório em JSON está em
+     * {@link #estadoMetas(String, AsyncResponse)}, com estado=naoCumpridas.
      *
-     * @return Resposta HTTP indicando o resultado da operação.
+     * @param resposta A resposta assíncrona, retomada com o resultado.
      */
     @GET
     @Path("/listarMetasNaoCumpridas")
-    public Response listarMetasNaoCumpridas() {
-        try {
-            String resultadoJson = ms.obterMetasNaoCumpridas();
-            return Response.status(Response.Status.OK)
-                    .entity(resultadoJson)
-                    .build();
-        } catch (RuntimeException e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity("Erro ao listar metas não cumpridas: " + e.getMessage())
-                    .type(MediaType.TEXT_PLAIN)
-                    .build();
-        }
+    @Versionado({Entidade.META, Entidade.TRANSACAO})
+    public void listarMetasNaoCumpridas(@Suspended AsyncResponse resposta) {
+        assincrono.executar(resposta, "listarMetasNaoCumpridas", () -> {
+            try {
+                String resultadoJson = ms.get().obterMetasNaoCumpridas();
+                return Response.status(Response.Status.OK)
+                        .entity(resultadoJson)
+                        .build();
+            } catch (RuntimeException e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity("Erro ao listar metas não cumpridas: " + e.getMessage())
+                        .type(MediaType.TEXT_PLAIN)
+                        .build();
+            }
+        });
+    }
+
+    /**
+     * Obtém o estado das metas em JSON: o valor acumulado nas transações
+     * atribuídas, a percentagem atingida e se cada meta foi cumprida.
+     *
+     * @param estado   todas, cumpridas ou naoCumpridas.
+     * @param resposta A resposta assíncrona, retomada com o resultado.
+     */
+    @GET
+    @Path("/estadoMetas")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Versionado({Entidade.META, Entidade.TRANSACAO})
+    public void estadoMetas(@QueryParam("estado") @DefaultValue("todas") String estado,
+                            @Suspended AsyncResponse resposta) {
+        assincrono.executar(resposta, "estadoMetas", () -> {
+            try {
+                if (!estado.equals("todas") && !estado.equals("cumpridas") && !estado.equals("naoCumpridas")) {
+                    throw new IllegalArgumentException("o estado deve ser todas, cumpridas ou naoCumpridas.");
+                }
+                List<RelatorioMeta> metas = relatorios.estadoMetas();
+                if (!estado.equals("todas")) {
+                    boolean cumpridas = estado.equals("cumpridas");
+                    metas.removeIf(meta -> meta.isCumprida() != cumpridas);
+                }
+                return Response.status(Response.Status.OK)
+                        .entity(RelatoriosJson.metas(metas))
+                        .build();
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("Erro ao obter o estado das metas: " + e.getMessage())
+                        .type(MediaType.TEXT_PLAIN)
+                        .build();
+            } catch (RuntimeException e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity("Erro ao obter o estado das metas: " + e.getMessage())
+                        .type(MediaType.TEXT_PLAIN)
+                        .build();
+            }
+        });
+    }
+
+    /**
+     * Abre um canal Server-Sent Events com as alterações de metas e transações.
+     *
+     * @param sink O canal de eventos do cliente.
+     * @param sse  O contexto SSE.
+     */
+    @GET
+    @Path("/eventos")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    public void eventos(@Context SseEventSink sink, @Context Sse sse) {
+        difusor.subscrever(sink, sse, Entidade.META, Entidade.TRANSACAO);
     }
 }
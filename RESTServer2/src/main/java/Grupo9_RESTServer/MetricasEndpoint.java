@@ -0,0 +1,101 @@
+package Grupo9_RESTServer;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores de um método de recurso: pedidos, erros, pedidos em curso,
+ * latências e compressão das respostas.
+ */
+public class MetricasEndpoint {
+
+    private final String nome;
+    private final LongAdder pedidos = new LongAdder();
+    private final LongAdder errosCliente = new LongAdder();
+    private final LongAdder errosServidor = new LongAdder();
+    private final AtomicLong emCurso = new AtomicLong();
+    private final HistogramaLatencias latencias = new HistogramaLatencias();
+    private final LongAdder respostasComprimidas = new LongAdder();
+    private final LongAdder bytesOriginais = new LongAdder();
+    private final LongAdder bytesComprimidos = new LongAdder();
+    private final LongAdder nanosCompressao = new LongAdder();
+
+    public MetricasEndpoint(String nome) {
+        this.nome = nome;
+    }
+
+    void iniciar() {
+        emCurso.incrementAndGet();
+    }
+
+    /**
+     * Regista o fim de um pedido.
+     *
+     * @param estado O código HTTP da resposta, ou 500 se o pedido falhou.
+     * @param micros A duração do pedido em microssegundos.
+     */
+    void terminar(int estado, long micros) {
+        emCurso.decrementAndGet();
+        pedidos.increment();
+        if (estado >= 500) {
+            errosServidor.increment();
+        } else if (estado >= 400) {
+            errosCliente.increment();
+        }
+        latencias.registar(micros);
+    }
+
+    /**
+     * Regista uma resposta comprimida.
+     *
+     * @param original   Os bytes da resposta antes da compressão.
+     * @param comprimido Os bytes enviados.
+     * @param nanos      O tempo de CPU gasto a comprimir.
+     */
+    void registarCompressao(long original, long comprimido, long nanos) {
+        respostasComprimidas.increment();
+        bytesOriginais.add(original);
+        bytesComprimidos.add(comprimido);
+        nanosCompressao.add(nanos);
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public long getPedidos() {
+        return pedidos.sum();
+    }
+
+    public long getErrosCliente() {
+        return errosCliente.sum();
+    }
+
+    public long getErrosServidor() {
+        return errosServidor.sum();
+    }
+
+    public long getEmCurso() {
+        return emCurso.get();
+    }
+
+    public long getRespostasComprimidas() {
+        return respostasComprimidas.sum();
+    }
+
+    public long getBytesOriginais() {
+        return bytesOriginais.sum();
+    }
+
+    public long getBytesComprimidos() {
+        return bytesComprimidos.sum();
+    }
+
+    public long getNanosCompressao() {
+        return nanosCompressao.sum();
+    }
+
+    public HistogramaLatencias getLatencias() {
+        return latencias;
+    }
+}
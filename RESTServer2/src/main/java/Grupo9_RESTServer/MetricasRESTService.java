@@ -0,0 +1,63 @@
+package Grupo9_RESTServer;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+
+/**
+ * Expõe as métricas do servidor no formato de texto Prometheus: pedidos por
+ * método de recurso, caches de consultas, canais de eventos e execução
+ * assíncrona.
+ */
+@Singleton
+@Path("/metrics")
+public class MetricasRESTService {
+
+    private static final String PROMETHEUS = "text/plain; version=0.0.4; charset=utf-8";
+
+    @Inject
+    private RegistoMetricas metricas;
+
+    @Inject
+    private CacheConsultas cache;
+
+    @Inject
+    private DifusorEventos difusor;
+
+    /**
+     * Obtém todas as métricas.
+     *
+     * @return As métricas em formato de texto Prometheus.
+     */
+    @GET
+    @Produces(PROMETHEUS)
+    public String getMetricas() {
+        StringBuilder saida = new StringBuilder(8192);
+        metricas.escrever(saida);
+
+        RegistoMetricas.cabecalho(saida, "grupo9_cache_acertos_total", "counter", "Consultas respondidas pela cache.");
+        cache(saida, "grupo9_cache_acertos_total", "categorias", cache.getCategorias().getAcertos());
+        cache(saida, "grupo9_cache_acertos_total", "subcategorias", cache.getSubcategorias().getAcertos());
+        cache(saida, "grupo9_cache_acertos_total", "metas", cache.getMetas().getAcertos());
+        RegistoMetricas.cabecalho(saida, "grupo9_cache_falhas_total", "counter", "Consultas que foram ao serviço.");
+        cache(saida, "grupo9_cache_falhas_total", "categorias", cache.getCategorias().getFalhas());
+        cache(saida, "grupo9_cache_falhas_total", "subcategorias", cache.getSubcategorias().getFalhas());
+        cache(saida, "grupo9_cache_falhas_total", "metas", cache.getMetas().getFalhas());
+        RegistoMetricas.cabecalho(saida, "grupo9_cache_entradas", "gauge", "Entradas guardadas em cada cache.");
+        cache(saida, "grupo9_cache_entradas", "categorias", cache.getCategorias().getTamanho());
+        cache(saida, "grupo9_cache_entradas", "subcategorias", cache.getSubcategorias().getTamanho());
+        cache(saida, "grupo9_cache_entradas", "metas", cache.getMetas().getTamanho());
+
+        RegistoMetricas.cabecalho(saida, "grupo9_eventos_subscritores", "gauge", "Canais de eventos abertos.");
+        saida.append("grupo9_eventos_subscritores ").append(difusor.getSubscritores()).append('\n');
+        RegistoMetricas.cabecalho(saida, "grupo9_eventos_desligados_total", "counter", "Canais desligados por estarem atrasados.");
+        saida.append("grupo9_eventos_desligados_total ").append(difusor.getDesligados()).append('\n');
+        return saida.toString();
+    }
+
+    private static void cache(StringBuilder saida, String nome, String cache, long valor) {
+        saida.append(nome).append("{cache=\"").append(cache).append("\"} ").append(valor).append('\n');
+    }
+}
@@ -0,0 +1,410 @@
+package Grupo9_RESTServer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import grupo9_FinancasPessoais.Transacao;
+
+/**
+ * Modelo de leitura imutável dos gastos do último orçamento.
+ *
+ * As transações são guardadas em colunas de tipos primitivos, com os
+ * valores em cêntimos e a categoria e a subcategoria codificadas como
+ * índices num dicionário de nomes; os gastos por categoria e subcategoria
+ * ficam em arrays indexados pelos mesmos índices. Cada alteração devolve
+ * um modelo novo e um modelo publicado pode ser lido sem sincronização.
+ *
+ * Para que uma escrita não copie o modelo inteiro, as colunas estão
+ * divididas em blocos de {@value #LINHAS_POR_BLOCO} linhas e as posições de
+ * cada descrição estão num mapa dividido em partições por hash: uma
+ * alteração copia só o bloco e a partição da linha, mais os arrays de
+ * referências para os blocos e as partições, e partilha o resto. As linhas
+ * removidas ficam vazias no seu bloco, para que as posições das restantes
+ * não mudem; o espaço é recuperado no recálculo seguinte.
+ */
+final class ModeloOrcamento {
+
+    static final int SEM_ID = -1;
+
+    /** Resultado de {@link #posicao(String)} quando há mais de uma transação com a descrição. */
+    static final int REPETIDA = -2;
+
+    static final int LINHAS_POR_BLOCO = 256;
+
+    /** Descrições por partição pretendidas no cálculo do modelo; as partições não crescem depois disso. */
+    private static final int DESCRICOES_POR_PARTICAO = 256;
+    private static final int PARTICOES_MINIMAS = 64;
+
+    private final Bloco[] blocos;
+    private final int linhas;
+    private final Particao[] particoes;
+    private final Dicionario nomesCategorias;
+    private final Dicionario nomesSubcategorias;
+    private final long[] gastoCategorias;
+    private final long[] gastoSubcategorias;
+    private final long total;
+
+    private ModeloOrcamento(Bloco[] blocos, int linhas, Particao[] particoes,
+                            Dicionario nomesCategorias, Dicionario nomesSubcategorias,
+                            long[] gastoCategorias, long[] gastoSubcategorias, long total) {
+        this.blocos = blocos;
+        this.linhas = linhas;
+        this.particoes = particoes;
+        this.nomesCategorias = nomesCategorias;
+        this.nomesSubcategorias = nomesSubcategorias;
+        this.gastoCategorias = gastoCategorias;
+        this.gastoSubcategorias = gastoSubcategorias;
+        this.total = total;
+    }
+
+    /**
+     * Constrói o modelo a partir das transações do último orçamento.
+     */
+    static ModeloOrcamento de(List<Transacao> transacoes) {
+        int n = transacoes != null ? transacoes.size() : 0;
+        Bloco[] blocos = new Bloco[(n + LINHAS_POR_BLOCO - 1) / LINHAS_POR_BLOCO];
+        Particao[] particoes = new Particao[Math.max(PARTICOES_MINIMAS,
+                Integer.highestOneBit(Math.max(1, n / DESCRICOES_POR_PARTICAO)) * 2)];
+        for (int p = 0; p < particoes.length; p++) {
+            particoes[p] = new Particao(new HashMap<>());
+        }
+        Dicionario nomesCategorias = Dicionario.VAZIO;
+        Dicionario nomesSubcategorias = Dicionario.VAZIO;
+        for (int i = 0; i < n; i++) {
+            Transacao t = transacoes.get(i);
+            String categoria = t.getCategoria() != null ? t.getCategoria().getNomeC() : null;
+            String subcategoria = t.getSubcategoria() != null ? t.getSubcategoria().getNomeSubc() : null;
+            nomesCategorias = nomesCategorias.com(categoria);
+            nomesSubcategorias = nomesSubcategorias.com(subcategoria);
+
+            int b = i / LINHAS_POR_BLOCO;
+            if (blocos[b] == null) {
+                blocos[b] = new Bloco(Math.min(LINHAS_POR_BLOCO, n - b * LINHAS_POR_BLOCO));
+            }
+            int o = i % LINHAS_POR_BLOCO;
+            blocos[b].descricoes[o] = t.getDescricao();
+            blocos[b].valores[o] = Dinheiro.centimos(t.getValor());
+            blocos[b].categorias[o] = nomesCategorias.id(categoria);
+            blocos[b].subcategorias[o] = nomesSubcategorias.id(subcategoria);
+            if (t.getDescricao() != null) {
+                particoes[particao(particoes, t.getDescricao())].posicoes.merge(t.getDescricao(),
+                        new int[] {i}, ModeloOrcamento::juntar);
+            }
+        }
+
+        long[] gastoCategorias = new long[nomesCategorias.tamanho()];
+        long[] gastoSubcategorias = new long[nomesSubcategorias.tamanho()];
+        long total = 0;
+        for (Bloco bloco : blocos) {
+            for (int o = 0; o < bloco.valores.length; o++) {
+                total += bloco.valores[o];
+                if (bloco.categorias[o] != SEM_ID) {
+                    gastoCategorias[bloco.categorias[o]] += bloco.valores[o];
+                }
+                if (bloco.subcategorias[o] != SEM_ID) {
+                    gastoSubcategorias[bloco.subcategorias[o]] += bloco.valores[o];
+                }
+            }
+        }
+        return new ModeloOrcamento(blocos, n, particoes, nomesCategorias, nomesSubcategorias,
+                gastoCategorias, gastoSubcategorias, total);
+    }
+
+    /**
+     * @return A posição da transação com a descrição, {@link #SEM_ID} se não
+     *         existir ou {@link #REPETIDA} se houver mais de uma.
+     */
+    int posicao(String descricao) {
+        if (descricao == null) {
+            return SEM_ID;
+        }
+        int[] posicoes = particoes[particao(particoes, descricao)].posicoes.get(descricao);
+        if (posicoes == null) {
+            return SEM_ID;
+        }
+        return posicoes.length == 1 ? posicoes[0] : REPETIDA;
+    }
+
+    /**
+     * @return Um modelo novo com a transação, de valor em cêntimos, acrescentada.
+     */
+    ModeloOrcamento comTransacao(String descricao, long valor, String categoria, String subcategoria) {
+        int posicao = linhas;
+        int b = posicao / LINHAS_POR_BLOCO;
+        Bloco[] novosBlocos = Arrays.copyOf(blocos, b + 1);
+        Bloco bloco = b < blocos.length ? blocos[b].copia(posicao % LINHAS_POR_BLOCO + 1) : new Bloco(1);
+        novosBlocos[b] = bloco;
+        Dicionario novosNomesCategorias = nomesCategorias.com(categoria);
+        Dicionario novosNomesSubcategorias = nomesSubcategorias.com(subcategoria);
+
+        int o = posicao % LINHAS_POR_BLOCO;
+        bloco.descricoes[o] = descricao;
+        bloco.valores[o] = valor;
+        bloco.categorias[o] = novosNomesCategorias.id(categoria);
+        bloco.subcategorias[o] = novosNomesSubcategorias.id(subcategoria);
+        Particao[] novasParticoes = particoes;
+        if (descricao != null) {
+            novasParticoes = comParticao(descricao, juntar(posicoes(descricao), new int[] {posicao}));
+        }
+        return new ModeloOrcamento(novosBlocos, linhas + 1, novasParticoes,
+                novosNomesCategorias, novosNomesSubcategorias,
+                somar(gastoCategorias, novosNomesCategorias.tamanho(), bloco.categorias[o], valor),
+                somar(gastoSubcategorias, novosNomesSubcategorias.tamanho(), bloco.subcategorias[o], valor),
+                total + valor);
+    }
+
+    /**
+     * @return Um modelo novo sem a transação na posição indicada.
+     */
+    ModeloOrcamento semTransacao(int posicao) {
+        Bloco antigo = blocos[posicao / LINHAS_POR_BLOCO];
+        int o = posicao % LINHAS_POR_BLOCO;
+        long valor = antigo.valores[o];
+        String descricao = antigo.descricoes[o];
+        Bloco bloco = antigo.copia(antigo.valores.length);
+        bloco.descricoes[o] = null;
+        bloco.valores[o] = 0;
+        bloco.categorias[o] = SEM_ID;
+        bloco.subcategorias[o] = SEM_ID;
+        Particao[] novasParticoes = particoes;
+        if (descricao != null) {
+            novasParticoes = comParticao(descricao, retirar(posicoes(descricao), posicao));
+        }
+        return new ModeloOrcamento(comBloco(posicao, bloco), linhas, novasParticoes,
+                nomesCategorias, nomesSubcategorias,
+                somar(gastoCategorias, gastoCategorias.length, antigo.categorias[o], -valor),
+                somar(gastoSubcategorias, gastoSubcategorias.length, antigo.subcategorias[o], -valor),
+                total - valor);
+    }
+
+    /**
+     * @return Um modelo novo com a transação na posição indicada passada para a categoria.
+     */
+    ModeloOrcamento comCategoria(int posicao, String categoria) {
+        Bloco antigo = blocos[posicao / LINHAS_POR_BLOCO];
+        int o = posicao % LINHAS_POR_BLOCO;
+        Dicionario nomes = nomesCategorias.com(categoria);
+        Bloco bloco = antigo.copia(antigo.valores.length);
+        bloco.categorias[o] = nomes.id(categoria);
+        long[] gastos = somar(gastoCategorias, nomes.tamanho(), antigo.categorias[o], -antigo.valores[o]);
+        if (bloco.categorias[o] != SEM_ID) {
+            gastos[bloco.categorias[o]] += antigo.valores[o];
+        }
+        return new ModeloOrcamento(comBloco(posicao, bloco), linhas, particoes, nomes, nomesSubcategorias,
+                gastos, gastoSubcategorias, total);
+    }
+
+    /**
+     * @return Um modelo novo com a transação na posição indicada passada para a subcategoria.
+     */
+    ModeloOrcamento comSubcategoria(int posicao, String subcategoria) {
+        Bloco antigo = blocos[posicao / LINHAS_POR_BLOCO];
+        int o = posicao % LINHAS_POR_BLOCO;
+        Dicionario nomes = nomesSubcategorias.com(subcategoria);
+        Bloco bloco = antigo.copia(antigo.valores.length);
+        bloco.subcategorias[o] = nomes.id(subcategoria);
+        long[] gastos = somar(gastoSubcategorias, nomes.tamanho(), antigo.subcategorias[o], -antigo.valores[o]);
+        if (bloco.subcategorias[o] != SEM_ID) {
+            gastos[bloco.subcategorias[o]] += antigo.valores[o];
+        }
+        return new ModeloOrcamento(comBloco(posicao, bloco), linhas, particoes, nomesCategorias, nomes,
+                gastoCategorias, gastos, total);
+    }
+
+    long getTotal() {
+        return total;
+    }
+
+    long getGastoCategoria(String nome) {
+        int id = nomesCategorias.id(nome);
+        return id != SEM_ID ? gastoCategorias[id] : 0;
+    }
+
+    long getGastoSubcategoria(String nome) {
+        int id = nomesSubcategorias.id(nome);
+        return id != SEM_ID ? gastoSubcategorias[id] : 0;
+    }
+
+    Map<String, Long> getGastosPorCategoria() {
+        return nomesCategorias.mapa(gastoCategorias);
+    }
+
+    Map<String, Long> getGastosPorSubcategoria() {
+        return nomesSubcategorias.mapa(gastoSubcategorias);
+    }
+
+    /**
+     * @return O gasto de cada categoria e a sua percentagem no total, lidos
+     *         diretamente das colunas e ordenados pelo nome da categoria.
+     */
+    List<PercentagemGasto> getPercentagensPorCategoria() {
+        List<PercentagemGasto> percentagens = new ArrayList<>(gastoCategorias.length);
+        for (int id = 0; id < gastoCategorias.length; id++) {
+            percentagens.add(new PercentagemGasto(nomesCategorias.nome(id), gastoCategorias[id], total));
+        }
+        percentagens.sort((a, b) -> a.getNome().compareTo(b.getNome()));
+        return percentagens;
+    }
+
+    /**
+     * Copia os gastos para um array com o tamanho indicado e soma o valor ao índice, se existir.
+     */
+    private static long[] somar(long[] gastos, int tamanho, int id, long valor) {
+        long[] novos = Arrays.copyOf(gastos, tamanho);
+        if (id != SEM_ID) {
+            novos[id] += valor;
+        }
+        return novos;
+    }
+
+    private Bloco[] comBloco(int posicao, Bloco bloco) {
+        Bloco[] novos = blocos.clone();
+        novos[posicao / LINHAS_POR_BLOCO] = bloco;
+        return novos;
+    }
+
+    private int[] posicoes(String descricao) {
+        return particoes[particao(particoes, descricao)].posicoes.get(descricao);
+    }
+
+    /**
+     * Copia a partição da descrição com as novas posições, ou sem a descrição se não houver nenhuma.
+     */
+    private Particao[] comParticao(String descricao, int[] posicoes) {
+        int p = particao(particoes, descricao);
+        Map<String, int[]> novas = new HashMap<>(particoes[p].posicoes);
+        if (posicoes != null) {
+            novas.put(descricao, posicoes);
+        } else {
+            novas.remove(descricao);
+        }
+        Particao[] novasParticoes = particoes.clone();
+        novasParticoes[p] = new Particao(novas);
+        return novasParticoes;
+    }
+
+    private static int particao(Particao[] particoes, String descricao) {
+        int h = descricao.hashCode();
+        return (h ^ (h >>> 16)) & (particoes.length - 1);
+    }
+
+    private static int[] juntar(int[] a, int[] b) {
+        if (a == null) {
+            return b;
+        }
+        int[] juntas = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, juntas, a.length, b.length);
+        return juntas;
+    }
+
+    /**
+     * @return As posições sem a indicada, ou null se não restar nenhuma.
+     */
+    private static int[] retirar(int[] posicoes, int posicao) {
+        if (posicoes == null) {
+            return null;
+        }
+        int[] restantes = new int[posicoes.length];
+        int n = 0;
+        for (int p : posicoes) {
+            if (p != posicao) {
+                restantes[n++] = p;
+            }
+        }
+        return n == 0 ? null : Arrays.copyOf(restantes, n);
+    }
+
+    /**
+     * Bloco de linhas das colunas. Só é alterado enquanto é construído ou
+     * logo depois de copiado, antes de o modelo que o contém ser publicado.
+     */
+    private static final class Bloco {
+        final String[] descricoes;
+        final long[] valores;
+        final int[] categorias;
+        final int[] subcategorias;
+
+        Bloco(int tamanho) {
+            this(new String[tamanho], new long[tamanho], new int[tamanho], new int[tamanho]);
+        }
+
+        private Bloco(String[] descricoes, long[] valores, int[] categorias, int[] subcategorias) {
+            this.descricoes = descricoes;
+            this.valores = valores;
+            this.categorias = categorias;
+            this.subcategorias = subcategorias;
+        }
+
+        Bloco copia(int tamanho) {
+            return new Bloco(Arrays.copyOf(descricoes, tamanho), Arrays.copyOf(valores, tamanho),
+                    Arrays.copyOf(categorias, tamanho), Arrays.copyOf(subcategorias, tamanho));
+        }
+    }
+
+    /**
+     * Partição do mapa das posições de cada descrição; como os blocos, não é
+     * alterada depois de o modelo que a contém ser publicado.
+     */
+    private static final class Particao {
+        final Map<String, int[]> posicoes;
+
+        Particao(Map<String, int[]> posicoes) {
+            this.posicoes = posicoes;
+        }
+    }
+
+    /**
+     * Dicionário imutável de nomes; os índices atribuídos não mudam, pelo
+     * que os modelos seguintes podem partilhar as colunas já codificadas.
+     */
+    private static final class Dicionario {
+        static final Dicionario VAZIO = new Dicionario(new String[0], Collections.emptyMap());
+
+        private final String[] nomes;
+        private final Map<String, Integer> ids;
+
+        private Dicionario(String[] nomes, Map<String, Integer> ids) {
+            this.nomes = nomes;
+            this.ids = ids;
+        }
+
+        int id(String nome) {
+            Integer id = nome != null ? ids.get(nome) : null;
+            return id != null ? id : SEM_ID;
+        }
+
+        int tamanho() {
+            return nomes.length;
+        }
+
+        String nome(int id) {
+            return nomes[id];
+        }
+
+        /**
+         * @return Este dicionário, se já tiver o nome, ou uma cópia com o nome acrescentado.
+         */
+        Dicionario com(String nome) {
+            if (nome == null || ids.containsKey(nome)) {
+                return this;
+            }
+            String[] novosNomes = Arrays.copyOf(nomes, nomes.length + 1);
+            novosNomes[nomes.length] = nome;
+            Map<String, Integer> novosIds = new HashMap<>(ids);
+            novosIds.put(nome, nomes.length);
+            return new Dicionario(novosNomes, Collections.unmodifiableMap(novosIds));
+        }
+
+        Map<String, Long> mapa(long[] valores) {
+            Map<String, Long> mapa = new HashMap<>();
+            for (int i = 0; i < nomes.length; i++) {
+                mapa.put(nomes[i], valores[i]);
+            }
+            return mapa;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package Grupo9_RESTServer;
+
+import org.glassfish.jersey.server.ContainerResponse;
+import org.glassfish.jersey.server.model.ResourceMethod;
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+
+/**
+ * Mede cada pedido desde a receção até ao envio da resposta e regista-o nas
+ * métricas do método de recurso correspondente. Os pedidos assíncronos são
+ * contados até a resposta ser retomada.
+ */
+public class MonitorPedidos implements ApplicationEventListener {
+
+    private final RegistoMetricas metricas;
+
+    public MonitorPedidos(RegistoMetricas metricas) {
+        this.metricas = metricas;
+    }
+
+    @Override
+    public void onEvent(ApplicationEvent evento) {
+    }
+
+    @Override
+    public RequestEventListener onRequest(RequestEvent evento) {
+        return new Pedido(System.nanoTime());
+    }
+
+    private final class Pedido implements RequestEventListener {
+
+        private final long inicio;
+        private MetricasEndpoint endpoint;
+
+        Pedido(long inicio) {
+            this.inicio = inicio;
+        }
+
+        @Override
+        public void onEvent(RequestEvent evento) {
+            switch (evento.getType()) {
+                case REQUEST_MATCHED:
+                    ResourceMethod metodo = evento.getUriInfo().getMatchedResourceMethod();
+                    if (metodo != null) {
+                        endpoint = metricas.endpoint(metodo.getInvocable().getDefinitionMethod());
+                        endpoint.iniciar();
+                    }
+                    break;
+                case FINISHED:
+                    if (endpoint != null) {
+                        ContainerResponse resposta = evento.getContainerResponse();
+                        int estado = evento.isSuccess() && resposta != null ? resposta.getStatus() : 500;
+                        endpoint.terminar(estado, (System.nanoTime() - inicio) / 1000);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+}
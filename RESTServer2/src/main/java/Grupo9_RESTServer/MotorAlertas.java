@@ -0,0 +1,202 @@
+package Grupo9_RESTServer;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import grupo9_FinancasPessoais.Categoria;
+import grupo9_FinancasPessoais.Subcategoria;
+
+/**
+ * Alertas de gastos acima dos limites de categorias e subcategorias.
+ *
+ * É chamado pelos controladores depois de cada escrita que muda o gasto ou
+ * o limite de uma categoria ou subcategoria. A verificação usa os totais
+ * mantidos e o limite em cache, por isso o custo não depende do número de
+ * transações. Se os totais tiverem sido invalidados, a escrita não espera
+ * pelo seu recálculo: a verificação fica pendente e é feita na escrita
+ * seguinte que encontre os totais carregados, ou na leitura dos alertas.
+ * Cada limiar gera um alerta quando é ultrapassado e volta a poder gerá-lo
+ * depois de o gasto descer abaixo dele.
+ */
+public class MotorAlertas {
+
+    static final double[] LIMIARES_POR_OMISSAO = {80, 100};
+    static final int CAPACIDADE_REGISTO = 1000;
+
+    static final String CATEGORIA = "categoria";
+    static final String SUBCATEGORIA = "subcategoria";
+
+    private final CacheConsultas cache;
+    private final ServicosDominio servicos;
+    private final TotaisGastos totais;
+
+    private final Map<String, Double> limiaresPersonalizados = new ConcurrentHashMap<>();
+    private final Map<String, Double> ultimaPercentagem = new ConcurrentHashMap<>();
+    private final Set<String> categoriasPendentes = ConcurrentHashMap.newKeySet();
+    private final Set<String> subcategoriasPendentes = ConcurrentHashMap.newKeySet();
+    private final Deque<Alerta> registo = new ArrayDeque<>(CAPACIDADE_REGISTO);
+    private long proximoId = 1;
+
+    public MotorAlertas(CacheConsultas cache, ServicosDominio servicos, TotaisGastos totais) {
+        this.cache = cache;
+        this.servicos = servicos;
+        this.totais = totais;
+    }
+
+    /**
+     * Verifica o gasto de uma categoria face ao seu gasto máximo.
+     */
+    public void verificarCategoria(String nome) {
+        if (nome == null) {
+            return;
+        }
+        ModeloOrcamento modelo = totais.modeloCarregado();
+        if (modelo == null) {
+            categoriasPendentes.add(nome);
+            return;
+        }
+        verificarCategoria(nome, modelo);
+        verificarPendentes(modelo);
+    }
+
+    /**
+     * Verifica o gasto de uma subcategoria face ao seu gasto máximo.
+     */
+    public void verificarSubcategoria(String nome) {
+        if (nome == null) {
+            return;
+        }
+        ModeloOrcamento modelo = totais.modeloCarregado();
+        if (modelo == null) {
+            subcategoriasPendentes.add(nome);
+            return;
+        }
+        verificarSubcategoria(nome, modelo);
+        verificarPendentes(modelo);
+    }
+
+    /**
+     * Define um limiar adicional, em percentagem do gasto máximo, para uma
+     * categoria ou subcategoria.
+     *
+     * @throws IllegalArgumentException se o tipo ou a percentagem forem inválidos.
+     */
+    public void definirLimiar(String tipo, String nome, double percentagem) {
+        if (!CATEGORIA.equals(tipo) && !SUBCATEGORIA.equals(tipo)) {
+            throw new IllegalArgumentException("O tipo deve ser " + CATEGORIA + " ou " + SUBCATEGORIA + ".");
+        }
+        if (percentagem <= 0 || Double.isNaN(percentagem) || Double.isInfinite(percentagem)) {
+            throw new IllegalArgumentException("A percentagem deve ser positiva.");
+        }
+        limiaresPersonalizados.put(chave(tipo, nome), percentagem);
+    }
+
+    /**
+     * Faz as verificações pendentes, recalculando os totais se necessário,
+     * e devolve os alertas.
+     *
+     * @param desde O id do último alerta já conhecido pelo cliente (0 para todos).
+     * @return Os alertas registados depois desse id, do mais antigo para o mais recente.
+     */
+    public List<Alerta> getAlertas(long desde) {
+        if (!categoriasPendentes.isEmpty() || !subcategoriasPendentes.isEmpty()) {
+            try {
+                verificarPendentes(totais.modelo());
+            } catch (RuntimeException e) {
+                // os alertas já registados são devolvidos na mesma
+            }
+        }
+        return alertasDesde(desde);
+    }
+
+    private synchronized List<Alerta> alertasDesde(long desde) {
+        List<Alerta> alertas = new ArrayList<>();
+        for (Alerta alerta : registo) {
+            if (alerta.getId() > desde) {
+                alertas.add(alerta);
+            }
+        }
+        return alertas;
+    }
+
+    private void verificarCategoria(String nome, ModeloOrcamento modelo) {
+        try {
+            Categoria categoria = cache.getCategorias().obter(nome,
+                    n -> servicos.usar(servicos::categorias, s -> s.findCategoria(n)));
+            if (categoria != null) {
+                verificar(CATEGORIA, nome, modelo.getGastoCategoria(nome),
+                        Dinheiro.centimos(categoria.getGastoMaximo()));
+            }
+        } catch (RuntimeException e) {
+            // a verificação de alertas nunca faz falhar a escrita que a originou
+        }
+    }
+
+    private void verificarSubcategoria(String nome, ModeloOrcamento modelo) {
+        try {
+            Subcategoria subcategoria = cache.getSubcategorias().obter(nome,
+                    n -> servicos.usar(servicos::subcategorias, s -> s.findSubcategoria(n)));
+            if (subcategoria != null) {
+                verificar(SUBCATEGORIA, nome, modelo.getGastoSubcategoria(nome),
+                        Dinheiro.centimos(subcategoria.getGastoMaxSubc()));
+            }
+        } catch (RuntimeException e) {
+            // a verificação de alertas nunca faz falhar a escrita que a originou
+        }
+    }
+
+    /**
+     * Faz as verificações que ficaram pendentes enquanto os totais estavam invalidados.
+     */
+    private void verificarPendentes(ModeloOrcamento modelo) {
+        for (String nome : categoriasPendentes) {
+            if (categoriasPendentes.remove(nome)) {
+                verificarCategoria(nome, modelo);
+            }
+        }
+        for (String nome : subcategoriasPendentes) {
+            if (subcategoriasPendentes.remove(nome)) {
+                verificarSubcategoria(nome, modelo);
+            }
+        }
+    }
+
+    private void verificar(String tipo, String nome, long gasto, long gastoMaximo) {
+        if (gastoMaximo <= 0) {
+            return;
+        }
+        String chave = chave(tipo, nome);
+        // os gastos podem estar registados com valores negativos; conta a magnitude
+        double percentagem = Dinheiro.percentagem(Math.abs(gasto), gastoMaximo);
+        Double anterior = ultimaPercentagem.put(chave, percentagem);
+        double antes = anterior != null ? anterior : 0;
+
+        for (double limiar : LIMIARES_POR_OMISSAO) {
+            if (antes < limiar && percentagem >= limiar) {
+                registar(tipo, nome, limiar, gasto, gastoMaximo);
+            }
+        }
+        Double personalizado = limiaresPersonalizados.get(chave);
+        if (personalizado != null && antes < personalizado && percentagem >= personalizado) {
+            registar(tipo, nome, personalizado, gasto, gastoMaximo);
+        }
+    }
+
+    private synchronized void registar(String tipo, String nome, double limiar, long gasto, long gastoMaximo) {
+        if (registo.size() == CAPACIDADE_REGISTO) {
+            registo.removeFirst();
+        }
+        registo.addLast(new Alerta(proximoId++, Instant.now().toString(), tipo, nome, limiar,
+                Dinheiro.euros(gasto), Dinheiro.euros(gastoMaximo)));
+    }
+
+    private static String chave(String tipo, String nome) {
+        return tipo + ':' + nome;
+    }
+}
@@ -0,0 +1,176 @@
+package Grupo9_RESTServer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import grupo9_FinancasPessoais.Categoria;
+import grupo9_FinancasPessoais.CategoriaService;
+import grupo9_FinancasPessoais.Meta;
+import grupo9_FinancasPessoais.MetaService;
+import grupo9_FinancasPessoais.Orcamento;
+import grupo9_FinancasPessoais.OrcamentoService;
+import grupo9_FinancasPessoais.Subcategoria;
+import grupo9_FinancasPessoais.SubcategoriaService;
+import grupo9_FinancasPessoais.Transacao;
+import grupo9_FinancasPessoais.TransacaoService;
+
+/**
+ * Retrato do último orçamento e das suas transações, categorias,
+ * subcategorias e metas, partilhado pelas leituras mais frequentes.
+ *
+ * O retrato é imutável e trocado de forma atómica. Só é substituído quando
+ * um orçamento é criado ou alterado; até lá as leituras não voltam a
+ * procurar qual é o último orçamento. Cada conjunto é carregado na primeira
+ * leitura e guarda as versões das entidades de que depende: se alguma foi
+ * alterada entretanto, o conjunto é lido de novo do serviço.
+ */
+public class OrcamentoAtual {
+
+    private static final int TRANSACOES = 0;
+    private static final int CATEGORIAS = 1;
+    private static final int SUBCATEGORIAS = 2;
+    private static final int METAS = 3;
+
+    /** Entidades de que cada conjunto depende, as mesmas das ETags dos respetivos endpoints. */
+    private static final Entidade[][] DEPENDENCIAS = {
+            {Entidade.TRANSACAO, Entidade.CATEGORIA, Entidade.SUBCATEGORIA, Entidade.META},
+            {Entidade.CATEGORIA, Entidade.SUBCATEGORIA},
+            {Entidade.SUBCATEGORIA, Entidade.CATEGORIA},
+            {Entidade.META}
+    };
+
+    private static final class Conjunto {
+        final List<?> itens;
+        final long[] versoes;
+
+        Conjunto(List<?> itens, long[] versoes) {
+            this.itens = itens;
+            this.versoes = versoes;
+        }
+    }
+
+    private static final class Retrato {
+        final long geracao;
+        final boolean carregado;
+        final Orcamento orcamento;
+        final Conjunto[] conjuntos;
+
+        Retrato(long geracao, boolean carregado, Orcamento orcamento, Conjunto[] conjuntos) {
+            this.geracao = geracao;
+            this.carregado = carregado;
+            this.orcamento = orcamento;
+            this.conjuntos = conjuntos;
+        }
+
+        Retrato comOrcamento(Orcamento orcamento) {
+            return new Retrato(geracao, true, orcamento, conjuntos);
+        }
+
+        Retrato comConjunto(int indice, Conjunto conjunto) {
+            Conjunto[] novos = conjuntos.clone();
+            novos[indice] = conjunto;
+            return new Retrato(geracao, carregado, orcamento, novos);
+        }
+    }
+
+    private final ServicosDominio servicos;
+    private final VersoesEntidades versoes;
+    private final AtomicReference<Retrato> atual =
+            new AtomicReference<>(new Retrato(0, false, null, new Conjunto[DEPENDENCIAS.length]));
+
+    public OrcamentoAtual(ServicosDominio servicos, VersoesEntidades versoes) {
+        this.servicos = servicos;
+        this.versoes = versoes;
+    }
+
+    /**
+     * @return O último orçamento, ou null se não existir nenhum.
+     */
+    public Orcamento getOrcamento() {
+        Retrato retrato = atual.get();
+        if (retrato.carregado) {
+            return retrato.orcamento;
+        }
+        Orcamento orcamento = servicos.usar(servicos::orcamentos, OrcamentoService::obterUltimoOrcamento);
+        instalar(retrato.geracao, r -> r.comOrcamento(orcamento));
+        return orcamento;
+    }
+
+    public List<Transacao> getTransacoes() {
+        return conjunto(TRANSACOES, () -> servicos.usar(servicos::transacoes,
+                TransacaoService::findAllTransacoesDoUltimoOrcamento));
+    }
+
+    public List<Categoria> getCategorias() {
+        return conjunto(CATEGORIAS, () -> servicos.usar(servicos::categorias,
+                CategoriaService::findAllCategoriasDoUltimoOrcamento));
+    }
+
+    public List<Subcategoria> getSubcategorias() {
+        return conjunto(SUBCATEGORIAS, () -> servicos.usar(servicos::subcategorias,
+                SubcategoriaService::findAllSubcategoriasDoUltimoOrcamento));
+    }
+
+    public List<Meta> getMetas() {
+        return conjunto(METAS, () -> servicos.usar(servicos::metas, MetaService::findAllMetasDoUltimoOrcamento));
+    }
+
+    /**
+     * Descarta o retrato depois de um orçamento ser criado ou alterado; o
+     * novo é carregado na leitura seguinte. As leituras que ainda estejam a
+     * carregar o retrato anterior já não o conseguem instalar.
+     */
+    public void substituir() {
+        atual.updateAndGet(r -> new Retrato(r.geracao + 1, false, null, new Conjunto[DEPENDENCIAS.length]));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> List<T> conjunto(int indice, Supplier<List<T>> consulta) {
+        Retrato retrato = atual.get();
+        Conjunto conjunto = retrato.conjuntos[indice];
+        if (conjunto != null && atualizado(conjunto.versoes, DEPENDENCIAS[indice])) {
+            return (List<T>) conjunto.itens;
+        }
+        // as versões são lidas antes da consulta: uma escrita concorrente deixa o conjunto desatualizado, nunca o contrário
+        long[] lidas = versoes(DEPENDENCIAS[indice]);
+        List<T> itens = consulta.get();
+        List<T> copia = itens != null ? Collections.unmodifiableList(new ArrayList<>(itens)) : null;
+        Conjunto novo = new Conjunto(copia, lidas);
+        instalar(retrato.geracao, r -> r.comConjunto(indice, novo));
+        return copia;
+    }
+
+    /**
+     * Instala uma alteração no retrato, desde que este não tenha sido
+     * substituído desde a leitura.
+     */
+    private void instalar(long geracao, UnaryOperator<Retrato> alteracao) {
+        while (true) {
+            Retrato corrente = atual.get();
+            if (corrente.geracao != geracao || atual.compareAndSet(corrente, alteracao.apply(corrente))) {
+                return;
+            }
+        }
+    }
+
+    private long[] versoes(Entidade[] entidades) {
+        long[] lidas = new long[entidades.length];
+        for (int i = 0; i < entidades.length; i++) {
+            lidas[i] = versoes.versao(entidades[i]);
+        }
+        return lidas;
+    }
+
+    private boolean atualizado(long[] lidas, Entidade[] entidades) {
+        for (int i = 0; i < entidades.length; i++) {
+            if (versoes.versao(entidades[i]) != lidas[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
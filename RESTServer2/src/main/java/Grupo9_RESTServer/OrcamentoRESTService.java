@@ -6,10 +6,20 @@ import grupo9_FinancasPessoais.OrcamentoService;
 import grupo9_FinancasPessoais.OrcamentoService.OrcamentoException;
 import grupo9_FinancasPessoais.OrcamentoService.OrcamentoNotFoundException;
 
+import javax.inject.Inject;
+import javax.inject.Provider;
 import javax.ws.rs.*;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseEventSink;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * Controlador REST para gerenciar orçamentos financeiros.
@@ -17,7 +27,32 @@ import java.util.List;
 @Path("/orcamento")
 public class OrcamentoRESTService {
 
-    private OrcamentoService os = new OrcamentoService();
+    /** Número máximo de períodos numa análise de gastos. */
+    private static final int MAXIMO_PERIODOS = 5000;
+
+    @Inject
+    private Provider<OrcamentoService> os;
+
+    @Inject
+    private TotaisGastos totais;
+
+    @Inject
+    private DifusorEventos difusor;
+
+    @Inject
+    private ExecucaoAssincrona assincrono;
+
+    @Inject
+    private IndiceTransacoes indice;
+
+    @Inject
+    private RelatoriosParalelos relatorios;
+
+    @Inject
+    private OrcamentoAtual atual;
+
+    @Inject
+    private BloqueiosEntidades bloqueios;
 
     /**
      * Método de saudação em texto simples.
@@ -32,8 +67,15 @@ public class OrcamentoRESTService {
 
     @POST
 	@Path("/addOrcamento")
+	@Altera(Entidade.ORCAMENTO)
 	public Response addCategoria(Orcamento orcamento) {		
-		Orcamento orcamentoResponse = os.updateOrcamento(orcamento.getDataCriacao(), orcamento.getValorAnual());
+		// um orçamento novo passa a ser o atual, por isso usa o mesmo bloqueio que a alteração do valor
+		Orcamento orcamentoResponse = bloqueios.obter(Entidade.ORCAMENTO, BloqueiosEntidades.ORCAMENTO_ATUAL, () -> {
+			Orcamento criado = os.get().updateOrcamento(orcamento.getDataCriacao(), orcamento.getValorAnual());
+			atual.substituir();
+			return criado;
+		});
+		totais.invalidar();
 		
 		return Response.status(Response.Status.CREATED)
 				.entity(orcamentoResponse)
@@ -45,7 +87,7 @@ public class OrcamentoRESTService {
     @DELETE
 	@Path("/deleteCategoria/{nomeC}")
 	public Response deleteCategoria(@PathParam("nomeC") String nomeC) {
-		boolean categoriaRemoved = os.removeOrcamento(nomeC);
+		boolean categoriaRemoved = os.get().removeOrcamento(nomeC);
 		
 		return Response.status(Response.Status.OK)
 				.entity(categoriaRemoved)
@@ -56,18 +98,60 @@ public class OrcamentoRESTService {
     
     
     /**
-     * Obtém a lista de todos os orçamentos.
+     * Obtém a lista de todos os orçamentos. Com os parâmetros limit ou cursor a
+     * resposta é uma página ordenada por data de criação, com o cursor da
+     * página seguinte. Os orçamentos criados no mesmo dia são desempatados
+     * pelo valor anual e, se forem iguais, pela ordem entre eles.
      *
-     * @return Resposta HTTP contendo a lista de orçamentos.
+     * @param limite O número máximo de orçamentos por página.
+     * @param cursor O cursor devolvido pela página anterior.
+     * @return Resposta HTTP contendo a lista ou a página de orçamentos.
      */
     @GET
     @Path("/getOrcamentos")
-    public Response getOrcamentos() {
+    @Versionado(Entidade.ORCAMENTO)
+    public Response getOrcamentos(@QueryParam("limit") Integer limite, @QueryParam("cursor") String cursor) {
         try {
-            List<Orcamento> orcamentos = os.findAllOrcamentos();
+            List<Orcamento> orcamentos = os.get().findAllOrcamentos();
+            if (Paginacao.pedida(limite, cursor)) {
+                return Response.status(Response.Status.OK)
+                        .entity(Paginacao.paginar(orcamentos, Paginacao.desempatar(orcamentos,
+                                o -> Datas.chaveOrdenavel(o.getDataCriacao(),
+                                        Long.toString(Dinheiro.centimos(o.getValorAnual())))), cursor, limite))
+                        .type(MediaType.APPLICATION_JSON)
+                        .build();
+            }
             return Response.status(Response.Status.OK)
                     .entity(orcamentos)
                     .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("Erro ao obter os orçamentos: " + e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        } catch (RuntimeException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Erro ao obter os orçamentos: " + e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        }
+    }
+
+    /**
+     * Obtém todos os orçamentos em streaming, escrevendo cada item
+     * diretamente na resposta à medida que é serializado.
+     *
+     * @return Resposta HTTP com o array JSON escrito em streaming.
+     */
+    @GET
+    @Path("/getOrcamentos/stream")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Versionado(Entidade.ORCAMENTO)
+    public Response getOrcamentosStream() {
+        try {
+            return Response.status(Response.Status.OK)
+                    .entity(JsonStreaming.lista(os.get().findAllOrcamentos()))
+                    .build();
         } catch (RuntimeException e) {
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .entity("Erro ao obter os orçamentos: " + e.getMessage())
@@ -84,8 +168,9 @@ public class OrcamentoRESTService {
      */
     @GET
     @Path("/getOrcamento/{data}")
+    @Versionado(Entidade.ORCAMENTO)
     public Response getCategoria(@PathParam("data") String data) {
-		Orcamento orcamentoResponse = os.findOrcamento(data);
+		Orcamento orcamentoResponse = os.get().findOrcamento(data);
 		
 		return Response.status(Response.Status.OK)
 				.entity(orcamentoResponse)
@@ -101,9 +186,14 @@ public class OrcamentoRESTService {
      */
     @PUT
     @Path("/adicionarOuReduzirValorOrcamento/{valorAlteracao}")
+    @Altera(Entidade.ORCAMENTO)
     public Response adicionarOuReduzirValorOrcamento(@PathParam("valorAlteracao") double valorAlteracao) {
         try {
-            Orcamento orcamentoResponse = os.adicionarOuReduzirValorOrcamento(valorAlteracao);
+            Orcamento orcamentoResponse = bloqueios.obter(Entidade.ORCAMENTO, BloqueiosEntidades.ORCAMENTO_ATUAL, () -> {
+                Orcamento alterado = os.get().adicionarOuReduzirValorOrcamento(valorAlteracao);
+                atual.substituir();
+                return alterado;
+            });
             return Response.status(Response.Status.OK)
                     .entity(orcamentoResponse)
                     .build();
@@ -122,9 +212,10 @@ public class OrcamentoRESTService {
      */
     @GET
     @Path("/obterUltimoOrcamento")
+    @Versionado(Entidade.ORCAMENTO)
     public Response obterUltimoOrcamento() {
         try {
-            Orcamento orcamentoResponse = os.obterUltimoOrcamento();
+            Orcamento orcamentoResponse = atual.getOrcamento();
             if (orcamentoResponse != null) {
                 return Response.status(Response.Status.OK)
                         .entity(orcamentoResponse)
@@ -144,39 +235,75 @@ public class OrcamentoRESTService {
     }
 
     /**
-     * Imprime o histórico de orçamentos.
+     * Imprime o histórico de orçamentos. O mesmo relatório em JSON está em
+     * {@link #historicoOrcamentos(AsyncResponse)}.
      *
-     * @return Resposta HTTP indicando o resultado da operação.
+     * @param resposta A resposta assíncrona, retomada com o resultado.
      */
     @GET
     @Path("/imprimirHistoricoOrcamentos")
-    public Response obterHistoricoOrcamentos() {
-        try {
-            String historico = os.obterHistoricoOrcamentos();
-            return Response.status(Response.Status.OK)
-                    .entity(historico)
-                    .build();
-        } catch (OrcamentoException e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity("Erro ao obter o histórico de orçamentos: " + e.getMessage())
-                    .type(MediaType.TEXT_PLAIN)
-                    .build();
-        }
+    @Versionado({Entidade.ORCAMENTO, Entidade.TRANSACAO, Entidade.CATEGORIA})
+    public void obterHistoricoOrcamentos(@Suspended AsyncResponse resposta) {
+        assincrono.executar(resposta, "imprimirHistoricoOrcamentos", () -> {
+            try {
+                String historico = os.get().obterHistoricoOrcamentos();
+                return Response.status(Response.Status.OK)
+                        .entity(historico)
+                        .build();
+            } catch (OrcamentoException e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity("Erro ao obter o histórico de orçamentos: " + e.getMessage())
+                        .type(MediaType.TEXT_PLAIN)
+                        .build();
+            }
+        });
+    }
+
+    /**
+     * Obtém o histórico de orçamentos em JSON: o período, o valor anual, o
+     * gasto realizado e o gasto por categoria de cada orçamento, calculados
+     * em paralelo.
+     *
+     * @param resposta A resposta assíncrona, retomada com o resultado.
+     */
+    @GET
+    @Path("/historicoOrcamentos")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Versionado({Entidade.ORCAMENTO, Entidade.TRANSACAO, Entidade.CATEGORIA})
+    public void historicoOrcamentos(@Suspended AsyncResponse resposta) {
+        assincrono.executar(resposta, "historicoOrcamentos", () -> {
+            try {
+                List<RelatorioOrcamento> historico = relatorios.historicoOrcamentos();
+                return Response.status(Response.Status.OK)
+                        .entity(RelatoriosJson.historico(historico))
+                        .build();
+            } catch (RuntimeException e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity("Erro ao obter o histórico de orçamentos: " + e.getMessage())
+                        .type(MediaType.TEXT_PLAIN)
+                        .build();
+            }
+        });
     }
 
     /**
-     * Calcula o gasto realizado com base no valor anual do orçamento.
+     * Calcula o gasto realizado de um orçamento. Para o último orçamento o
+     * valor vem dos totais mantidos a cada escrita.
      *
-     * @param valorAnual O valor anual do orçamento.
+     * @param dataCriacao A data de criação do orçamento.
      * @return Resposta HTTP contendo o gasto realizado ou uma mensagem de erro.
      */
     @GET
     @Path("/calcularGastoRealizado/{dataCriacao}")
-    public Response calcularGastoRealizado(@PathParam("valorAnual") String dataCriacao) {
+    @Versionado({Entidade.ORCAMENTO, Entidade.TRANSACAO})
+    public Response calcularGastoRealizado(@PathParam("dataCriacao") String dataCriacao) {
         try {
-            Orcamento orcamentoResponse = os.findOrcamento(dataCriacao);
+            Orcamento orcamentoResponse = os.get().findOrcamento(dataCriacao);
             if (orcamentoResponse != null) {
-                double gastoRealizado = os.calcularGastoRealizado(orcamentoResponse);
+                Orcamento ultimo = atual.getOrcamento();
+                double gastoRealizado = ultimo != null && Objects.equals(ultimo.getDataCriacao(), dataCriacao)
+                        ? totais.getGastoTotal()
+                        : os.get().calcularGastoRealizado(orcamentoResponse);
                 return Response.status(Response.Status.OK)
                         .entity("Gasto Realizado: " + gastoRealizado + "€")
                         .build();
@@ -195,17 +322,27 @@ public class OrcamentoRESTService {
     }
 
     /**
-     * Mostra o status do orçamento.
+     * Obtém a situação do último orçamento a partir dos totais mantidos a cada escrita.
      *
-     * @return Resposta HTTP indicando o resultado da operação.
+     * @return Resposta HTTP contendo o valor anual, o gasto realizado e o saldo.
      */
     @GET
-    @Path("/mostrarStatusOrcamento")
-    public Response mostrarStatusOrcamento() {
+    @Path("/statusOrcamentoAtual")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Versionado({Entidade.ORCAMENTO, Entidade.TRANSACAO})
+    public Response statusOrcamentoAtual() {
         try {
-            String statusOrcamento = os.obterStatusOrcamento();
+            Orcamento ultimo = atual.getOrcamento();
+            if (ultimo == null) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity("Nenhum orçamento encontrado.")
+                        .type(MediaType.TEXT_PLAIN)
+                        .build();
+            }
+            StatusOrcamento status = new StatusOrcamento(ultimo.getDataCriacao(),
+                    Dinheiro.centimos(ultimo.getValorAnual()), totais.getCentimosTotal());
             return Response.status(Response.Status.OK)
-                    .entity(statusOrcamento)
+                    .entity(RelatoriosJson.status(status))
                     .build();
         } catch (RuntimeException e) {
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
@@ -214,5 +351,174 @@ public class OrcamentoRESTService {
                     .build();
         }
     }
+
+    /**
+     * Compara os totais de gastos mantidos com um recálculo completo das
+     * transações do último orçamento.
+     *
+     * @return Resposta HTTP indicando se os totais estão consistentes e as diferenças encontradas.
+     */
+    @GET
+    @Path("/verificarTotais")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response verificarTotais() {
+        try {
+            List<String> diferencas = totais.verificar();
+            Map<String, Object> resultado = new LinkedHashMap<>();
+            resultado.put("consistente", diferencas.isEmpty());
+            resultado.put("diferencas", diferencas);
+            return Response.status(Response.Status.OK)
+                    .entity(resultado)
+                    .build();
+        } catch (RuntimeException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Erro ao verificar os totais de gastos: " + e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        }
+    }
+
+    /**
+     * Obtém os gastos de um orçamento agrupados por dia, semana ou mês e por
+     * categoria ou subcategoria, a partir dos totais diários mantidos no
+     * índice de transações. Um orçamento vai da sua data de criação até à
+     * véspera do orçamento seguinte; o último vai até ao último gasto.
+     *
+     * @param dataCriacao A data de criação do orçamento; por omissão, o último.
+     * @param periodo     dia, semana ou mes.
+     * @param dimensao    categoria ou subcategoria.
+     * @param de          Primeira data, para restringir o intervalo do orçamento.
+     * @param ate         Última data, para restringir o intervalo do orçamento.
+     * @return Resposta HTTP contendo os gastos de cada período.
+     */
+    @GET
+    @Path("/analiseGastos")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Versionado({Entidade.ORCAMENTO, Entidade.TRANSACAO, Entidade.CATEGORIA, Entidade.SUBCATEGORIA})
+    public Response analiseGastos(@QueryParam("orcamento") String dataCriacao,
+                                  @QueryParam("periodo") @DefaultValue("mes") String periodo,
+                                  @QueryParam("dimensao") @DefaultValue("categoria") String dimensao,
+                                  @QueryParam("de") String de,
+                                  @QueryParam("ate") String ate) {
+        try {
+            GastosDiarios.Periodo agrupamento = periodo(periodo);
+            if (!dimensao.equals("categoria") && !dimensao.equals("subcategoria")) {
+                throw new IllegalArgumentException("a dimensão deve ser categoria ou subcategoria.");
+            }
+            long[] intervalo = intervaloOrcamento(dataCriacao);
+            if (intervalo == null) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity("Orçamento não encontrado.")
+                        .type(MediaType.TEXT_PLAIN)
+                        .build();
+            }
+            long inicio = Math.max(intervalo[0], de != null ? dia(de) : Long.MIN_VALUE);
+            long fimPedido = Math.min(intervalo[1], ate != null ? dia(ate) : Long.MAX_VALUE);
+            AnaliseGastos analise = indice.lerGastosDiarios(gastos -> {
+                long fim = fimPedido != Long.MAX_VALUE ? fimPedido : Math.max(inicio, gastos.getUltimoDia());
+                if (inicio > fim) {
+                    throw new IllegalArgumentException("o intervalo pedido está fora do orçamento.");
+                }
+                return gastos.agrupar(inicio, fim, agrupamento, dimensao.equals("subcategoria"), MAXIMO_PERIODOS);
+            });
+            return Response.status(Response.Status.OK)
+                    .entity(analise)
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("Erro ao analisar os gastos: " + e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        } catch (RuntimeException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Erro ao analisar os gastos: " + e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        }
+    }
+
+    /**
+     * Calcula o intervalo de dias de um orçamento.
+     *
+     * @return O primeiro e o último dia, sendo o último Long.MAX_VALUE para o
+     *         orçamento mais recente, ou null se o orçamento não existir.
+     */
+    private long[] intervaloOrcamento(String dataCriacao) {
+        List<IntervaloOrcamento> intervalos = IntervaloOrcamento.de(os.get().findAllOrcamentos());
+        if (intervalos.isEmpty()) {
+            return null;
+        }
+        if (dataCriacao == null) {
+            IntervaloOrcamento ultimo = intervalos.get(intervalos.size() - 1);
+            return new long[] {ultimo.inicio, ultimo.fim};
+        }
+        long dia = dia(dataCriacao);
+        for (IntervaloOrcamento intervalo : intervalos) {
+            if (intervalo.inicio == dia) {
+                return new long[] {intervalo.inicio, intervalo.fim};
+            }
+        }
+        return null;
+    }
+
+    private static GastosDiarios.Periodo periodo(String periodo) {
+        switch (periodo) {
+            case "dia":
+                return GastosDiarios.Periodo.DIA;
+            case "semana":
+                return GastosDiarios.Periodo.SEMANA;
+            case "mes":
+                return GastosDiarios.Periodo.MES;
+            default:
+                throw new IllegalArgumentException("o período deve ser dia, semana ou mes.");
+        }
+    }
+
+    private static long dia(String data) {
+        long dia = Datas.diaEpoch(data);
+        if (dia == Long.MIN_VALUE) {
+            throw new IllegalArgumentException("data inválida: " + data + ".");
+        }
+        return dia;
+    }
+
+    /**
+     * Abre um canal Server-Sent Events com as alterações de orçamentos, transações, categorias e subcategorias.
+     *
+     * @param sink O canal de eventos do cliente.
+     * @param sse  O contexto SSE.
+     */
+    @GET
+    @Path("/eventos")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    public void eventos(@Context SseEventSink sink, @Context Sse sse) {
+        difusor.subscrever(sink, sse, Entidade.ORCAMENTO, Entidade.TRANSACAO,
+                Entidade.CATEGORIA, Entidade.SUBCATEGORIA);
+    }
+
+    /**
+     * Mostra o status do orçamento. O mesmo relatório em JSON está em
+     * {@link #statusOrcamentoAtual()}.
+     *
+     * @param resposta A resposta assíncrona, retomada com o resultado.
+     */
+    @GET
+    @Path("/mostrarStatusOrcamento")
+    @Versionado({Entidade.ORCAMENTO, Entidade.TRANSACAO, Entidade.CATEGORIA})
+    public void mostrarStatusOrcamento(@Suspended AsyncResponse resposta) {
+        assincrono.executar(resposta, "mostrarStatusOrcamento", () -> {
+            try {
+                String statusOrcamento = os.get().obterStatusOrcamento();
+                return Response.status(Response.Status.OK)
+                        .entity(statusOrcamento)
+                        .build();
+            } catch (RuntimeException e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity("Erro ao mostrar o status do orçamento: " + e.getMessage())
+                        .type(MediaType.TEXT_PLAIN)
+                        .build();
+            }
+        });
+    }
     
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package Grupo9_RESTServer;
+
+import java.util.List;
+
+/**
+ * Página de resultados de uma listagem, com o cursor para a página seguinte.
+ *
+ * @param <T> O tipo dos itens da página.
+ */
+public class Pagina<T> {
+
+    private final List<T> itens;
+    private final String proximoCursor;
+
+    public Pagina(List<T> itens, String proximoCursor) {
+        this.itens = itens;
+        this.proximoCursor = proximoCursor;
+    }
+
+    public List<T> getItens() {
+        return itens;
+    }
+
+    /**
+     * @return O cursor a enviar para obter a página seguinte, ou null se esta for a última.
+     */
+    public String getProximoCursor() {
+        return proximoCursor;
+    }
+}
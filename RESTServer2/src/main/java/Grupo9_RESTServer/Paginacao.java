@@ -0,0 +1,174 @@
+package Grupo9_RESTServer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Paginação por cursor (keyset) sobre as listagens dos serviços.
+ *
+ * Cada item tem uma chave ordenável e única; o cursor guarda a chave do
+ * último item devolvido e a página seguinte começa no primeiro item com
+ * chave superior. Itens com a mesma chave ficariam em parte de fora da
+ * página seguinte, por isso as chaves que se podem repetir são desempatadas
+ * por um id ou com {@link #desempatar(List, Function)}.
+ *
+ * {@link #paginar} recebe a listagem inteira: só os itens da página são
+ * mantidos e ordenados, mas cada página percorre todos os itens, em tempo
+ * O(n log limite), além da memória da própria listagem. As listagens que já
+ * têm um índice ordenado pela chave usam {@link #paginarOrdenada}, que
+ * começa a ler no cursor e só lê os itens da página.
+ */
+final class Paginacao {
+
+    static final int LIMITE_POR_OMISSAO = 50;
+    static final int LIMITE_MAXIMO = 500;
+
+    private Paginacao() {
+    }
+
+    /**
+     * Indica se o pedido usa paginação.
+     */
+    static boolean pedida(Integer limite, String cursor) {
+        return limite != null || cursor != null;
+    }
+
+    /**
+     * Extrai uma página de uma listagem.
+     *
+     * @param itens   Os itens da listagem, em qualquer ordem.
+     * @param chave   A função que dá a chave ordenável e única de cada item.
+     * @param cursor  O cursor recebido do cliente, ou null para a primeira página.
+     * @param limite  O número máximo de itens pedido, ou null para o valor por omissão.
+     * @return A página com os itens seguintes ao cursor.
+     * @throws IllegalArgumentException se o cursor ou o limite forem inválidos.
+     */
+    static <T> Pagina<T> paginar(List<T> itens, Function<? super T, String> chave, String cursor, Integer limite) {
+        int tamanho = validarLimite(limite);
+        String depoisDe = cursor != null ? descodificar(cursor) : null;
+        if (itens == null || itens.isEmpty()) {
+            return new Pagina<>(Collections.emptyList(), null);
+        }
+
+        // max-heap limitado ao tamanho da página: fica com as menores chaves depois do cursor
+        Comparator<Map.Entry<String, T>> porChave = Map.Entry.comparingByKey();
+        PriorityQueue<Map.Entry<String, T>> menores = new PriorityQueue<>(tamanho + 1, porChave.reversed());
+        boolean haMais = false;
+        for (T item : itens) {
+            String k = chave.apply(item);
+            if (depoisDe != null && k.compareTo(depoisDe) <= 0) {
+                continue;
+            }
+            if (menores.size() < tamanho) {
+                menores.add(Map.entry(k, item));
+            } else {
+                haMais = true;
+                if (k.compareTo(menores.peek().getKey()) < 0) {
+                    menores.poll();
+                    menores.add(Map.entry(k, item));
+                }
+            }
+        }
+
+        List<Map.Entry<String, T>> ordenados = new ArrayList<>(menores);
+        ordenados.sort(porChave);
+        List<T> pagina = new ArrayList<>(ordenados.size());
+        for (Map.Entry<String, T> e : ordenados) {
+            pagina.add(e.getValue());
+        }
+        String proximo = haMais ? codificar(ordenados.get(ordenados.size() - 1).getKey()) : null;
+        return new Pagina<>(pagina, proximo);
+    }
+
+    /**
+     * Extrai uma página de uma listagem ordenada pela chave, lendo só os
+     * itens seguintes ao cursor.
+     *
+     * @param seguintes A função que, dada a chave do cursor (null para o início) e um número n,
+     *                  devolve por ordem até n itens com chave superior, com as respetivas chaves.
+     * @param cursor    O cursor recebido do cliente, ou null para a primeira página.
+     * @param limite    O número máximo de itens pedido, ou null para o valor por omissão.
+     * @return A página com os itens seguintes ao cursor.
+     * @throws IllegalArgumentException se o cursor ou o limite forem inválidos.
+     */
+    static <T> Pagina<T> paginarOrdenada(BiFunction<String, Integer, List<Map.Entry<String, T>>> seguintes,
+                                         String cursor, Integer limite) {
+        int tamanho = validarLimite(limite);
+        String depoisDe = cursor != null ? descodificar(cursor) : null;
+        // um item a mais só para saber se há página seguinte
+        List<Map.Entry<String, T>> lidos = seguintes.apply(depoisDe, tamanho + 1);
+        boolean haMais = lidos.size() > tamanho;
+        List<T> pagina = new ArrayList<>(Math.min(lidos.size(), tamanho));
+        for (int i = 0; i < lidos.size() && i < tamanho; i++) {
+            pagina.add(lidos.get(i).getValue());
+        }
+        String proximo = haMais ? codificar(lidos.get(tamanho - 1).getKey()) : null;
+        return new Pagina<>(pagina, proximo);
+    }
+
+    /**
+     * Escreve um número não negativo com zeros à esquerda, para que as chaves
+     * de texto fiquem pela ordem numérica.
+     *
+     * @param digitos Os dígitos do número, por exemplo de Long.toString.
+     * @param largura O número mínimo de carateres.
+     */
+    static String comZeros(String digitos, int largura) {
+        return digitos.length() >= largura ? digitos : "0".repeat(largura - digitos.length()) + digitos;
+    }
+
+    /**
+     * Acrescenta às chaves a ordem de cada item entre os que têm a mesma
+     * chave, para listagens sem um id que as desempate. A chave deve incluir
+     * tudo o que o cliente vê do item: os itens com a mesma chave são então
+     * iguais, e a ordem em que o serviço os devolve não muda as páginas.
+     *
+     * @param itens Os itens da listagem.
+     * @param chave A função que dá a chave ordenável de cada item.
+     * @return A função que dá a chave única de cada item da listagem.
+     */
+    static <T> Function<T, String> desempatar(List<T> itens, Function<? super T, String> chave) {
+        Map<T, String> unicas = new IdentityHashMap<>();
+        Map<String, Integer> ocorrencias = new HashMap<>();
+        if (itens != null) {
+            for (T item : itens) {
+                String k = chave.apply(item);
+                int ordem = ocorrencias.merge(k, 1, Integer::sum);
+                unicas.put(item, k + "|" + comZeros(Integer.toString(ordem), 10));
+            }
+        }
+        return unicas::get;
+    }
+
+    private static int validarLimite(Integer limite) {
+        if (limite == null) {
+            return LIMITE_POR_OMISSAO;
+        }
+        if (limite < 1 || limite > LIMITE_MAXIMO) {
+            throw new IllegalArgumentException("O limite deve estar entre 1 e " + LIMITE_MAXIMO + ".");
+        }
+        return limite;
+    }
+
+    private static String codificar(String chave) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(chave.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String descodificar(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor inválido.");
+        }
+    }
+}
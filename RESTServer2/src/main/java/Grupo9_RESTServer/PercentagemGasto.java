@@ -0,0 +1,35 @@
+package Grupo9_RESTServer;
+
+/**
+ * Gasto de uma categoria e a sua percentagem no total gasto no orçamento.
+ * O gasto é guardado em cêntimos e apresentado em euros.
+ */
+public class PercentagemGasto {
+
+    private final String nome;
+    private final long centimos;
+    private final double percentagem;
+
+    /**
+     * @param nome     O nome da categoria.
+     * @param centimos O gasto da categoria, em cêntimos.
+     * @param total    O total gasto no orçamento, em cêntimos.
+     */
+    public PercentagemGasto(String nome, long centimos, long total) {
+        this.nome = nome;
+        this.centimos = centimos;
+        this.percentagem = Dinheiro.percentagem(centimos, total);
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public double getGasto() {
+        return Dinheiro.euros(centimos);
+    }
+
+    public double getPercentagem() {
+        return percentagem;
+    }
+}
@@ -0,0 +1,76 @@
+package Grupo9_RESTServer;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Conjunto de compressores reutilizáveis, para que cada resposta comprimida
+ * não crie um novo Deflater (com o seu estado nativo) nem novos buffers.
+ */
+class PoolCompressores {
+
+    /**
+     * Deflater, CRC e buffers usados para comprimir uma resposta.
+     */
+    static final class Compressor {
+        final Deflater gzip = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        final Deflater deflate = new Deflater(Deflater.DEFAULT_COMPRESSION, false);
+        final CRC32 crc = new CRC32();
+        final byte[] inicio;
+        final byte[] saida = new byte[8192];
+
+        Compressor(int limiar) {
+            this.inicio = new byte[limiar];
+        }
+
+        void reiniciar() {
+            gzip.reset();
+            deflate.reset();
+            crc.reset();
+        }
+
+        void terminar() {
+            gzip.end();
+            deflate.end();
+        }
+    }
+
+    private final ArrayBlockingQueue<Compressor> livres;
+    private final int limiar;
+
+    /**
+     * @param capacidade O número máximo de compressores guardados para reutilização.
+     * @param limiar     O tamanho a partir do qual as respostas são comprimidas.
+     */
+    PoolCompressores(int capacidade, int limiar) {
+        this.livres = new ArrayBlockingQueue<>(capacidade);
+        this.limiar = limiar;
+    }
+
+    int getLimiar() {
+        return limiar;
+    }
+
+    Compressor obter() {
+        Compressor compressor = livres.poll();
+        return compressor != null ? compressor : new Compressor(limiar);
+    }
+
+    void devolver(Compressor compressor) {
+        compressor.reiniciar();
+        if (!livres.offer(compressor)) {
+            compressor.terminar();
+        }
+    }
+
+    /**
+     * Liberta o estado nativo dos compressores guardados.
+     */
+    void terminar() {
+        Compressor compressor;
+        while ((compressor = livres.poll()) != null) {
+            compressor.terminar();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package Grupo9_RESTServer;
+
+import org.glassfish.jersey.server.ResourceConfig;
+
+/**
+ * Configuração da aplicação Jersey: regista os controladores do pacote,
+ * os serviços partilhados do domínio, os filtros que seguem as alterações,
+ * a compressão das respostas, o formato binário colunar e o monitor que
+ * mede os pedidos.
+ */
+public class RESTApplication extends ResourceConfig {
+
+    public RESTApplication() {
+        this(new ServicosDominio());
+    }
+
+    /**
+     * @param servicos A origem dos serviços do domínio.
+     */
+    RESTApplication(ServicosDominio servicos) {
+        VersoesEntidades versoes = new VersoesEntidades();
+        DifusorEventos difusor = new DifusorEventos(
+                Long.getLong("grupo9.eventos.tempoEnvio", DifusorEventos.TEMPO_MAXIMO_ENVIO_MS));
+        ExecucaoAssincrona assincrono = new ExecucaoAssincrona();
+        RegistoMetricas metricas = new RegistoMetricas();
+        PoolCompressores compressores = new PoolCompressores(
+                Integer.getInteger("grupo9.compressao.pool", 64), Integer.getInteger("grupo9.compressao.limiar", 1024));
+
+        packages("Grupo9_RESTServer");
+        register(new ServicosBinder(servicos, versoes, difusor, assincrono, metricas));
+        register(new VersoesFeature(versoes, difusor));
+        register(new CompressaoFeature(compressores, metricas));
+        register(FormatoColunar.class);
+        register(new Encerramento(assincrono, difusor, compressores));
+        register(new MonitorPedidos(metricas));
+    }
+}
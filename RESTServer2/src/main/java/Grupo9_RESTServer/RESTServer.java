@@ -1,9 +1,12 @@
 package Grupo9_RESTServer;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
+import javax.inject.Inject;
 import javax.persistence.Persistence;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
@@ -24,9 +27,36 @@ import grupo9_FinancasPessoais.TransacaoService;
 @Path("/")
 public class RESTServer {
 	
+	@Inject
+	private CacheConsultas cache;
+
 	@GET
 	@Produces(MediaType.TEXT_PLAIN)
 	public String sayPlainTextHello() {
 		return "REST Server : Olaaa!";
 	}
+
+	/**
+	 * Obtém os contadores das caches de consultas.
+	 *
+	 * @return Acertos, falhas e tamanho de cada cache.
+	 */
+	@GET
+	@Path("/cache")
+	@Produces(MediaType.APPLICATION_JSON)
+	public Map<String, Map<String, Long>> estatisticasCache() {
+		Map<String, Map<String, Long>> estatisticas = new LinkedHashMap<>();
+		estatisticas.put("categorias", estatisticas(cache.getCategorias()));
+		estatisticas.put("subcategorias", estatisticas(cache.getSubcategorias()));
+		estatisticas.put("metas", estatisticas(cache.getMetas()));
+		return estatisticas;
+	}
+
+	private static Map<String, Long> estatisticas(CacheLimitado<?, ?> c) {
+		Map<String, Long> valores = new LinkedHashMap<>();
+		valores.put("acertos", c.getAcertos());
+		valores.put("falhas", c.getFalhas());
+		valores.put("tamanho", (long) c.getTamanho());
+		return valores;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,118 @@
+package Grupo9_RESTServer;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Métricas de todos os métodos de recurso, em formato de texto Prometheus.
+ *
+ * Cada método tem o seu {@link MetricasEndpoint}, criado no primeiro pedido
+ * e depois reutilizado, pelo que os pedidos seguintes só atualizam
+ * contadores.
+ */
+public class RegistoMetricas {
+
+    private static final double[] PERCENTIS = {50, 95, 99};
+
+    private final Map<Method, MetricasEndpoint> endpoints = new ConcurrentHashMap<>();
+
+    /**
+     * Obtém as métricas do método de recurso indicado.
+     */
+    public MetricasEndpoint endpoint(Method metodo) {
+        return endpoints.computeIfAbsent(metodo, RegistoMetricas::criar);
+    }
+
+    public List<MetricasEndpoint> getEndpoints() {
+        List<MetricasEndpoint> lista = new ArrayList<>(endpoints.values());
+        lista.sort(Comparator.comparing(MetricasEndpoint::getNome));
+        return lista;
+    }
+
+    /**
+     * Escreve as métricas dos pedidos no formato de exposição Prometheus.
+     */
+    public void escrever(StringBuilder saida) {
+        List<MetricasEndpoint> lista = getEndpoints();
+
+        cabecalho(saida, "grupo9_pedidos_total", "counter", "Pedidos terminados por método de recurso.");
+        for (MetricasEndpoint e : lista) {
+            linha(saida, "grupo9_pedidos_total", e, null, e.getPedidos());
+        }
+        cabecalho(saida, "grupo9_pedidos_erros_total", "counter", "Respostas 4xx e 5xx por método de recurso.");
+        for (MetricasEndpoint e : lista) {
+            linha(saida, "grupo9_pedidos_erros_total", e, "tipo=\"cliente\"", e.getErrosCliente());
+            linha(saida, "grupo9_pedidos_erros_total", e, "tipo=\"servidor\"", e.getErrosServidor());
+        }
+        cabecalho(saida, "grupo9_pedidos_em_curso", "gauge", "Pedidos em execução por método de recurso.");
+        for (MetricasEndpoint e : lista) {
+            linha(saida, "grupo9_pedidos_em_curso", e, null, e.getEmCurso());
+        }
+        cabecalho(saida, "grupo9_pedidos_latencia_segundos", "summary", "Latência dos pedidos por método de recurso.");
+        for (MetricasEndpoint e : lista) {
+            HistogramaLatencias h = e.getLatencias();
+            for (double p : PERCENTIS) {
+                linha(saida, "grupo9_pedidos_latencia_segundos", e,
+                        String.format(Locale.ROOT, "quantile=\"%.2f\"", p / 100), segundos(h.percentil(p)));
+            }
+            linha(saida, "grupo9_pedidos_latencia_segundos_sum", e, null, segundos(h.getSoma()));
+            linha(saida, "grupo9_pedidos_latencia_segundos_count", e, null, h.getTotal());
+        }
+        cabecalho(saida, "grupo9_pedidos_latencia_maxima_segundos", "gauge", "Maior latência registada por método de recurso.");
+        for (MetricasEndpoint e : lista) {
+            linha(saida, "grupo9_pedidos_latencia_maxima_segundos", e, null, segundos(e.getLatencias().getMaximo()));
+        }
+
+        List<MetricasEndpoint> comprimidos = new ArrayList<>();
+        for (MetricasEndpoint e : lista) {
+            if (e.getRespostasComprimidas() > 0) {
+                comprimidos.add(e);
+            }
+        }
+        cabecalho(saida, "grupo9_compressao_respostas_total", "counter", "Respostas comprimidas por método de recurso.");
+        for (MetricasEndpoint e : comprimidos) {
+            linha(saida, "grupo9_compressao_respostas_total", e, null, e.getRespostasComprimidas());
+        }
+        cabecalho(saida, "grupo9_compressao_bytes_total", "counter", "Bytes das respostas comprimidas, antes e depois da compressão.");
+        for (MetricasEndpoint e : comprimidos) {
+            linha(saida, "grupo9_compressao_bytes_total", e, "fase=\"original\"", e.getBytesOriginais());
+            linha(saida, "grupo9_compressao_bytes_total", e, "fase=\"comprimido\"", e.getBytesComprimidos());
+        }
+        cabecalho(saida, "grupo9_compressao_razao", "gauge", "Bytes comprimidos a dividir pelos bytes originais.");
+        for (MetricasEndpoint e : comprimidos) {
+            linha(saida, "grupo9_compressao_razao", e, null,
+                    String.format(Locale.ROOT, "%.4f", (double) e.getBytesComprimidos() / e.getBytesOriginais()));
+        }
+        cabecalho(saida, "grupo9_compressao_cpu_segundos_total", "counter", "Tempo de CPU gasto a comprimir respostas.");
+        for (MetricasEndpoint e : comprimidos) {
+            linha(saida, "grupo9_compressao_cpu_segundos_total", e, null,
+                    String.format(Locale.ROOT, "%.6f", e.getNanosCompressao() / 1e9));
+        }
+    }
+
+    static void cabecalho(StringBuilder saida, String nome, String tipo, String ajuda) {
+        saida.append("# HELP ").append(nome).append(' ').append(ajuda).append('\n');
+        saida.append("# TYPE ").append(nome).append(' ').append(tipo).append('\n');
+    }
+
+    private static void linha(StringBuilder saida, String nome, MetricasEndpoint e, String etiquetas, Object valor) {
+        saida.append(nome).append("{metodo=\"").append(e.getNome()).append('"');
+        if (etiquetas != null) {
+            saida.append(',').append(etiquetas);
+        }
+        saida.append("} ").append(valor).append('\n');
+    }
+
+    private static String segundos(long micros) {
+        return String.format(Locale.ROOT, "%.6f", micros / 1_000_000.0);
+    }
+
+    private static MetricasEndpoint criar(Method metodo) {
+        return new MetricasEndpoint(metodo.getDeclaringClass().getSimpleName() + "." + metodo.getName());
+    }
+}
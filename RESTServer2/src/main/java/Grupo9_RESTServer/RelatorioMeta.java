@@ -0,0 +1,67 @@
+package Grupo9_RESTServer;
+
+/**
+ * Estado de uma meta: valor pretendido, valor acumulado nas transações
+ * atribuídas e se foi cumprida. Os valores são comparados em cêntimos e
+ * apresentados em euros.
+ */
+public class RelatorioMeta {
+
+    private final String nome;
+    private final String descricao;
+    private final String data;
+    private final long valorCentimos;
+    private final long acumuladoCentimos;
+    private final int transacoes;
+    private final boolean vencida;
+
+    public RelatorioMeta(String nome, String descricao, String data, long valorCentimos, long acumuladoCentimos,
+                         int transacoes, boolean vencida) {
+        this.nome = nome;
+        this.descricao = descricao;
+        this.data = data;
+        this.valorCentimos = valorCentimos;
+        this.acumuladoCentimos = acumuladoCentimos;
+        this.transacoes = transacoes;
+        this.vencida = vencida;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public String getDescricao() {
+        return descricao;
+    }
+
+    public String getData() {
+        return data;
+    }
+
+    public double getValor() {
+        return Dinheiro.euros(valorCentimos);
+    }
+
+    public double getAcumulado() {
+        return Dinheiro.euros(acumuladoCentimos);
+    }
+
+    public double getPercentagem() {
+        return Dinheiro.percentagem(acumuladoCentimos, valorCentimos);
+    }
+
+    public int getTransacoes() {
+        return transacoes;
+    }
+
+    public boolean isCumprida() {
+        return acumuladoCentimos >= valorCentimos;
+    }
+
+    /**
+     * @return Se o prazo da meta já passou sem que tenha sido cumprida.
+     */
+    public boolean isVencida() {
+        return vencida;
+    }
+}
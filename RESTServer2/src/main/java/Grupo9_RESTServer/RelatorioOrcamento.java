@@ -0,0 +1,63 @@
+package Grupo9_RESTServer;
+
+import java.util.List;
+
+/**
+ * Resumo de um orçamento no histórico: período, valor anual, gasto realizado
+ * e gasto por categoria. Os valores são guardados em cêntimos e apresentados
+ * em euros.
+ */
+public class RelatorioOrcamento {
+
+    private final String dataCriacao;
+    private final String fim;
+    private final long valorAnualCentimos;
+    private final long gastoCentimos;
+    private final int transacoes;
+    private final List<PercentagemGasto> gastosPorCategoria;
+
+    public RelatorioOrcamento(String dataCriacao, String fim, long valorAnualCentimos, long gastoCentimos,
+                              int transacoes, List<PercentagemGasto> gastosPorCategoria) {
+        this.dataCriacao = dataCriacao;
+        this.fim = fim;
+        this.valorAnualCentimos = valorAnualCentimos;
+        this.gastoCentimos = gastoCentimos;
+        this.transacoes = transacoes;
+        this.gastosPorCategoria = gastosPorCategoria;
+    }
+
+    public String getDataCriacao() {
+        return dataCriacao;
+    }
+
+    /**
+     * @return O último dia do orçamento, ou null se for o mais recente.
+     */
+    public String getFim() {
+        return fim;
+    }
+
+    public double getValorAnual() {
+        return Dinheiro.euros(valorAnualCentimos);
+    }
+
+    public double getGastoRealizado() {
+        return Dinheiro.euros(gastoCentimos);
+    }
+
+    public double getSaldo() {
+        return Dinheiro.euros(valorAnualCentimos - gastoCentimos);
+    }
+
+    public double getPercentagemUtilizada() {
+        return Dinheiro.percentagem(gastoCentimos, valorAnualCentimos);
+    }
+
+    public int getTransacoes() {
+        return transacoes;
+    }
+
+    public List<PercentagemGasto> getGastosPorCategoria() {
+        return gastosPorCategoria;
+    }
+}
@@ -0,0 +1,112 @@
+package Grupo9_RESTServer;
+
+import java.util.Collections;
+import java.util.List;
+
+import javax.json.Json;
+import javax.json.stream.JsonGenerator;
+import javax.json.stream.JsonGeneratorFactory;
+import javax.ws.rs.core.StreamingOutput;
+
+/**
+ * Escrita dos relatórios em JSON com um JsonGenerator, campo a campo e sem
+ * reflexão, diretamente para o corpo da resposta.
+ *
+ * Os campos são escritos pela mesma ordem alfabética e com os mesmos nomes
+ * que o Yasson usa para os DTOs, e os campos nulos são omitidos, pelo que o
+ * JSON é igual ao da serialização por omissão.
+ */
+final class RelatoriosJson {
+
+    private static final JsonGeneratorFactory GERADORES = Json.createGeneratorFactory(Collections.emptyMap());
+
+    private RelatoriosJson() {
+    }
+
+    static StreamingOutput percentagens(List<PercentagemGasto> percentagens) {
+        return output -> {
+            try (JsonGenerator gerador = GERADORES.createGenerator(output)) {
+                gerador.writeStartArray();
+                for (PercentagemGasto p : percentagens) {
+                    escrever(gerador, p);
+                }
+                gerador.writeEnd();
+            }
+        };
+    }
+
+    static StreamingOutput status(StatusOrcamento status) {
+        return output -> {
+            try (JsonGenerator gerador = GERADORES.createGenerator(output)) {
+                gerador.writeStartObject();
+                texto(gerador, "dataCriacao", status.getDataCriacao());
+                gerador.write("gastoRealizado", status.getGastoRealizado());
+                gerador.write("percentagemUtilizada", status.getPercentagemUtilizada());
+                gerador.write("saldo", status.getSaldo());
+                gerador.write("valorAnual", status.getValorAnual());
+                gerador.writeEnd();
+            }
+        };
+    }
+
+    static StreamingOutput historico(List<RelatorioOrcamento> historico) {
+        return output -> {
+            try (JsonGenerator gerador = GERADORES.createGenerator(output)) {
+                gerador.writeStartArray();
+                for (RelatorioOrcamento r : historico) {
+                    gerador.writeStartObject();
+                    texto(gerador, "dataCriacao", r.getDataCriacao());
+                    texto(gerador, "fim", r.getFim());
+                    gerador.write("gastoRealizado", r.getGastoRealizado());
+                    gerador.writeStartArray("gastosPorCategoria");
+                    for (PercentagemGasto p : r.getGastosPorCategoria()) {
+                        escrever(gerador, p);
+                    }
+                    gerador.writeEnd();
+                    gerador.write("percentagemUtilizada", r.getPercentagemUtilizada());
+                    gerador.write("saldo", r.getSaldo());
+                    gerador.write("transacoes", r.getTransacoes());
+                    gerador.write("valorAnual", r.getValorAnual());
+                    gerador.writeEnd();
+                }
+                gerador.writeEnd();
+            }
+        };
+    }
+
+    static StreamingOutput metas(List<RelatorioMeta> metas) {
+        return output -> {
+            try (JsonGenerator gerador = GERADORES.createGenerator(output)) {
+                gerador.writeStartArray();
+                for (RelatorioMeta m : metas) {
+                    gerador.writeStartObject();
+                    gerador.write("acumulado", m.getAcumulado());
+                    gerador.write("cumprida", m.isCumprida());
+                    texto(gerador, "data", m.getData());
+                    texto(gerador, "descricao", m.getDescricao());
+                    texto(gerador, "nome", m.getNome());
+                    gerador.write("percentagem", m.getPercentagem());
+                    gerador.write("transacoes", m.getTransacoes());
+                    gerador.write("valor", m.getValor());
+                    gerador.write("vencida", m.isVencida());
+                    gerador.writeEnd();
+                }
+                gerador.writeEnd();
+            }
+        };
+    }
+
+    private static void escrever(JsonGenerator gerador, PercentagemGasto p) {
+        gerador.writeStartObject();
+        gerador.write("gasto", p.getGasto());
+        texto(gerador, "nome", p.getNome());
+        gerador.write("percentagem", p.getPercentagem());
+        gerador.writeEnd();
+    }
+
+    private static void texto(JsonGenerator gerador, String nome, String valor) {
+        if (valor != null) {
+            gerador.write(nome, valor);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package Grupo9_RESTServer;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import grupo9_FinancasPessoais.Meta;
+import grupo9_FinancasPessoais.MetaService;
+import grupo9_FinancasPessoais.OrcamentoService;
+
+/**
+ * Relatórios do histórico de orçamentos e do estado das metas, calculados
+ * em paralelo.
+ *
+ * As transações são lidas uma vez do {@link IndiceTransacoes}, já ordenadas
+ * por dia; cada orçamento é depois calculado de forma independente sobre o
+ * seu intervalo, e as metas sobre os totais por meta. O paralelismo é
+ * limitado pela propriedade de sistema grupo9.relatorios.paralelismo (por
+ * omissão, o número de processadores) e não usa o ForkJoinPool comum.
+ */
+public class RelatoriosParalelos {
+
+    private final IndiceTransacoes indice;
+    private final ServicosDominio servicos;
+    private final ForkJoinPool pool;
+
+    public RelatoriosParalelos(IndiceTransacoes indice, ServicosDominio servicos) {
+        this.indice = indice;
+        this.servicos = servicos;
+        int paralelismo = Integer.getInteger("grupo9.relatorios.paralelismo", Runtime.getRuntime().availableProcessors());
+        this.pool = new ForkJoinPool(Math.max(1, paralelismo));
+    }
+
+    /**
+     * Obtém o resumo de cada orçamento, por ordem de data de criação.
+     */
+    public List<RelatorioOrcamento> historicoOrcamentos() {
+        List<IntervaloOrcamento> intervalos = IntervaloOrcamento.de(servicos.usar(servicos::orcamentos,
+                OrcamentoService::findAllOrcamentos));
+        if (intervalos.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<IndiceTransacoes.Entrada> entradas = indice.entradasPorDia();
+        long[] dias = new long[entradas.size()];
+        for (int i = 0; i < dias.length; i++) {
+            dias[i] = entradas.get(i).dia;
+        }
+        return executar(() -> intervalos.parallelStream()
+                .map(intervalo -> resumir(intervalo, entradas, dias))
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Obtém o estado de todas as metas, ordenadas pelo nome.
+     */
+    public List<RelatorioMeta> estadoMetas() {
+        List<Meta> metas = servicos.usar(servicos::metas, MetaService::findAllMetas);
+        if (metas == null || metas.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<IndiceTransacoes.Entrada> entradas = indice.entradasPorDia();
+        long hoje = LocalDate.now().toEpochDay();
+        // soma em cêntimos e número de transações de cada meta, numa passagem
+        Map<String, long[]> porMeta = new HashMap<>();
+        for (IndiceTransacoes.Entrada e : entradas) {
+            if (e.meta != null) {
+                long[] soma = porMeta.computeIfAbsent(e.meta, m -> new long[2]);
+                soma[0] += e.centimos;
+                soma[1]++;
+            }
+        }
+        return executar(() -> metas.parallelStream()
+                .map(meta -> {
+                    long[] soma = porMeta.getOrDefault(meta.getNome(), new long[2]);
+                    long acumulado = Math.abs(soma[0]);
+                    long valor = Dinheiro.centimos(meta.getValor());
+                    long prazo = Datas.diaEpoch(meta.getData());
+                    boolean vencida = acumulado < valor && prazo != Long.MIN_VALUE && prazo < hoje;
+                    return new RelatorioMeta(meta.getNome(), meta.getDescricao(), meta.getData(),
+                            valor, acumulado, (int) soma[1], vencida);
+                })
+                .sorted((a, b) -> String.valueOf(a.getNome()).compareTo(String.valueOf(b.getNome())))
+                .collect(Collectors.toList()));
+    }
+
+    private static RelatorioOrcamento resumir(IntervaloOrcamento intervalo, List<IndiceTransacoes.Entrada> entradas,
+                                              long[] dias) {
+        int de = primeiroIndice(dias, intervalo.inicio);
+        int ate = intervalo.fim == Long.MAX_VALUE ? dias.length : primeiroIndice(dias, intervalo.fim + 1);
+        long gasto = 0;
+        Map<String, long[]> porCategoria = new HashMap<>();
+        for (int i = de; i < ate; i++) {
+            IndiceTransacoes.Entrada e = entradas.get(i);
+            gasto += e.centimos;
+            if (e.categoria != null) {
+                porCategoria.computeIfAbsent(e.categoria, c -> new long[1])[0] += e.centimos;
+            }
+        }
+        List<PercentagemGasto> percentagens = new ArrayList<>(porCategoria.size());
+        for (Map.Entry<String, long[]> c : porCategoria.entrySet()) {
+            percentagens.add(new PercentagemGasto(c.getKey(), c.getValue()[0], gasto));
+        }
+        percentagens.sort((a, b) -> a.getNome().compareTo(b.getNome()));
+        String fim = intervalo.fim == Long.MAX_VALUE ? null : LocalDate.ofEpochDay(intervalo.fim).toString();
+        return new RelatorioOrcamento(intervalo.orcamento.getDataCriacao(), fim,
+                Dinheiro.centimos(intervalo.orcamento.getValorAnual()), gasto, ate - de, percentagens);
+    }
+
+    /**
+     * Primeira posição com dia maior ou igual ao indicado.
+     */
+    private static int primeiroIndice(long[] dias, long dia) {
+        int baixo = 0;
+        int alto = dias.length;
+        while (baixo < alto) {
+            int meio = (baixo + alto) >>> 1;
+            if (dias[meio] < dia) {
+                baixo = meio + 1;
+            } else {
+                alto = meio;
+            }
+        }
+        return baixo;
+    }
+
+    /**
+     * Corre o cálculo no pool dos relatórios, para que as streams paralelas
+     * usem as suas threads em vez das do ForkJoinPool comum.
+     */
+    private <T> T executar(Supplier<T> calculo) {
+        ForkJoinTask<T> tarefa = pool.submit(calculo::get);
+        try {
+            return tarefa.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Cálculo do relatório interrompido.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package Grupo9_RESTServer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado de uma atribuição em lote, com o estado de cada pedido.
+ */
+public class ResultadoAtribuicao {
+
+    /**
+     * Estado de um pedido de atribuição.
+     */
+    public static class Item {
+        private final int indice;
+        private final String descricao;
+        private final boolean sucesso;
+        private final String mensagem;
+
+        Item(int indice, String descricao, boolean sucesso, String mensagem) {
+            this.indice = indice;
+            this.descricao = descricao;
+            this.sucesso = sucesso;
+            this.mensagem = mensagem;
+        }
+
+        public int getIndice() {
+            return indice;
+        }
+
+        public String getDescricao() {
+            return descricao;
+        }
+
+        public boolean isSucesso() {
+            return sucesso;
+        }
+
+        public String getMensagem() {
+            return mensagem;
+        }
+    }
+
+    private final List<Item> itens = new ArrayList<>();
+    private int atribuidas;
+    private int falhadas;
+
+    void registarSucesso(int indice, String descricao) {
+        atribuidas++;
+        itens.add(new Item(indice, descricao, true, null));
+    }
+
+    void registarFalha(int indice, String descricao, String mensagem) {
+        falhadas++;
+        itens.add(new Item(indice, descricao, false, mensagem));
+    }
+
+    public List<Item> getItens() {
+        return itens;
+    }
+
+    public int getAtribuidas() {
+        return atribuidas;
+    }
+
+    public int getFalhadas() {
+        return falhadas;
+    }
+}
@@ -0,0 +1,75 @@
+package Grupo9_RESTServer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Resultado de uma importação de transações: os totais e as linhas com erro.
+ * As linhas importadas só são contadas, para que a resposta não cresça com
+ * o tamanho da importação.
+ */
+public class ResultadoImportacao {
+
+    /**
+     * Linha que não foi importada.
+     */
+    public static class Erro {
+        private final int numero;
+        private final String mensagem;
+
+        Erro(int numero, String mensagem) {
+            this.numero = numero;
+            this.mensagem = mensagem;
+        }
+
+        public int getNumero() {
+            return numero;
+        }
+
+        public String getMensagem() {
+            return mensagem;
+        }
+    }
+
+    private final List<Erro> erros = new ArrayList<>();
+    private int importadas;
+    private int falhadas;
+    private long duracaoMs;
+    private double linhasPorSegundo;
+
+    void registarSucesso() {
+        importadas++;
+    }
+
+    void registarFalha(int numero, String mensagem) {
+        falhadas++;
+        erros.add(new Erro(numero, mensagem));
+    }
+
+    void terminar(long duracaoNanos) {
+        this.duracaoMs = duracaoNanos / 1_000_000;
+        this.linhasPorSegundo = duracaoNanos > 0 ? (importadas + falhadas) * 1e9 / duracaoNanos : 0;
+        erros.sort(Comparator.comparingInt(Erro::getNumero));
+    }
+
+    public List<Erro> getErros() {
+        return erros;
+    }
+
+    public int getImportadas() {
+        return importadas;
+    }
+
+    public int getFalhadas() {
+        return falhadas;
+    }
+
+    public long getDuracaoMs() {
+        return duracaoMs;
+    }
+
+    public double getLinhasPorSegundo() {
+        return linhasPorSegundo;
+    }
+}
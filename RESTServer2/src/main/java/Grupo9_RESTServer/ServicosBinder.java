@@ -0,0 +1,69 @@
+package Grupo9_RESTServer;
+
+import javax.inject.Singleton;
+
+import org.glassfish.jersey.internal.inject.AbstractBinder;
+import org.glassfish.jersey.process.internal.RequestScoped;
+
+import grupo9_FinancasPessoais.CategoriaService;
+import grupo9_FinancasPessoais.MetaService;
+import grupo9_FinancasPessoais.OrcamentoService;
+import grupo9_FinancasPessoais.SubcategoriaService;
+import grupo9_FinancasPessoais.TransacaoService;
+
+/**
+ * Binder HK2 dos componentes partilhados pelos controladores REST: as
+ * caches de consultas, os totais de gastos, o índice de transações, o
+ * retrato do último orçamento, os bloqueios das escritas, os relatórios e
+ * os alertas são criados uma única vez no arranque. Os serviços do domínio
+ * não são partilhados: cada pedido recebe as instâncias que usar, criadas
+ * por {@link ServicosDominio} e fechadas no fim do pedido.
+ */
+public class ServicosBinder extends AbstractBinder {
+
+    private final ServicosDominio servicos;
+    private final VersoesEntidades versoes;
+    private final DifusorEventos difusor;
+    private final ExecucaoAssincrona assincrono;
+    private final RegistoMetricas metricas;
+
+    public ServicosBinder(ServicosDominio servicos, VersoesEntidades versoes, DifusorEventos difusor,
+                          ExecucaoAssincrona assincrono, RegistoMetricas metricas) {
+        this.servicos = servicos;
+        this.versoes = versoes;
+        this.difusor = difusor;
+        this.assincrono = assincrono;
+        this.metricas = metricas;
+    }
+
+    @Override
+    protected void configure() {
+        CacheConsultas cache = new CacheConsultas();
+        TotaisGastos totais = new TotaisGastos(servicos);
+        IndiceTransacoes indice = new IndiceTransacoes(servicos);
+
+        bindFactory(new ServicosDominio.PorPedido<>(servicos::transacoes))
+                .to(TransacaoService.class).in(RequestScoped.class);
+        bindFactory(new ServicosDominio.PorPedido<>(servicos::categorias))
+                .to(CategoriaService.class).in(RequestScoped.class);
+        bindFactory(new ServicosDominio.PorPedido<>(servicos::subcategorias))
+                .to(SubcategoriaService.class).in(RequestScoped.class);
+        bindFactory(new ServicosDominio.PorPedido<>(servicos::metas))
+                .to(MetaService.class).in(RequestScoped.class);
+        bindFactory(new ServicosDominio.PorPedido<>(servicos::orcamentos))
+                .to(OrcamentoService.class).in(RequestScoped.class);
+        bind(servicos).to(ServicosDominio.class).in(Singleton.class);
+        bind(cache).to(CacheConsultas.class).in(Singleton.class);
+        bind(totais).to(TotaisGastos.class).in(Singleton.class);
+        bind(indice).to(IndiceTransacoes.class).in(Singleton.class);
+        bind(new OrcamentoAtual(servicos, versoes)).to(OrcamentoAtual.class).in(Singleton.class);
+        bind(new BloqueiosEntidades(Integer.getInteger("grupo9.bloqueios.faixas", 64)))
+                .to(BloqueiosEntidades.class).in(Singleton.class);
+        bind(new RelatoriosParalelos(indice, servicos)).to(RelatoriosParalelos.class).in(Singleton.class);
+        bind(new MotorAlertas(cache, servicos, totais)).to(MotorAlertas.class).in(Singleton.class);
+        bind(versoes).to(VersoesEntidades.class).in(Singleton.class);
+        bind(difusor).to(DifusorEventos.class).in(Singleton.class);
+        bind(assincrono).to(ExecucaoAssincrona.class).in(Singleton.class);
+        bind(metricas).to(RegistoMetricas.class).in(Singleton.class);
+    }
+}
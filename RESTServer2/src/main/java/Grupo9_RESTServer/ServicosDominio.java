@@ -0,0 +1,102 @@
+package Grupo9_RESTServer;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.glassfish.jersey.internal.inject.DisposableSupplier;
+
+import grupo9_FinancasPessoais.CategoriaService;
+import grupo9_FinancasPessoais.MetaService;
+import grupo9_FinancasPessoais.OrcamentoService;
+import grupo9_FinancasPessoais.SubcategoriaService;
+import grupo9_FinancasPessoais.TransacaoService;
+
+/**
+ * Cria as instâncias dos serviços do domínio.
+ *
+ * Cada serviço tem o seu EntityManager, que não pode ser usado por várias
+ * threads ao mesmo tempo e cujo contexto de persistência cresce e fica
+ * desatualizado se o serviço viver tanto como a aplicação. Por isso os
+ * serviços não são partilhados entre pedidos nem entre threads:
+ * <ul>
+ * <li>os controladores recebem um Provider de cada serviço e o serviço só
+ * é criado na primeira vez que o pedido o usa, uma vez por pedido; no fim
+ * do pedido é fechado ({@link PorPedido});</li>
+ * <li>os componentes partilhados (totais, índice, retrato do último
+ * orçamento, relatórios e alertas) fazem cada carregamento com
+ * {@link #usar}, que cria o serviço, executa a consulta e fecha-o.</li>
+ * </ul>
+ * O módulo do domínio não expõe o EntityManager dos serviços: um serviço é
+ * fechado quando implementa AutoCloseable. A fábrica de EntityManagers
+ * continua a ser a única do módulo do domínio.
+ */
+public class ServicosDominio {
+
+    public TransacaoService transacoes() {
+        return new TransacaoService();
+    }
+
+    public CategoriaService categorias() {
+        return new CategoriaService();
+    }
+
+    public SubcategoriaService subcategorias() {
+        return new SubcategoriaService();
+    }
+
+    public MetaService metas() {
+        return new MetaService();
+    }
+
+    public OrcamentoService orcamentos() {
+        return new OrcamentoService();
+    }
+
+    /**
+     * Executa uma consulta com um serviço criado só para ela e fechado no fim.
+     *
+     * @param criar    Cria o serviço, por exemplo servicos::transacoes.
+     * @param consulta A consulta a executar.
+     * @return O resultado da consulta.
+     */
+    public <S, R> R usar(Supplier<S> criar, Function<? super S, R> consulta) {
+        S servico = criar.get();
+        try {
+            return consulta.apply(servico);
+        } finally {
+            fechar(servico);
+        }
+    }
+
+    static void fechar(Object servico) {
+        if (servico instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) servico).close();
+            } catch (Exception e) {
+                // um serviço que não fecha não faz falhar a consulta que já terminou
+            }
+        }
+    }
+
+    /**
+     * Fornece um serviço a um pedido e fecha-o quando o pedido termina.
+     */
+    static final class PorPedido<S> implements DisposableSupplier<S> {
+
+        private final Supplier<S> criar;
+
+        PorPedido(Supplier<S> criar) {
+            this.criar = criar;
+        }
+
+        @Override
+        public S get() {
+            return criar.get();
+        }
+
+        @Override
+        public void dispose(S servico) {
+            fechar(servico);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package Grupo9_RESTServer;
+
+/**
+ * Situação do último orçamento: valor anual, gasto realizado e saldo,
+ * calculados em cêntimos e apresentados em euros.
+ */
+public class StatusOrcamento {
+
+    private final String dataCriacao;
+    private final long valorAnualCentimos;
+    private final long gastoCentimos;
+
+    public StatusOrcamento(String dataCriacao, long valorAnualCentimos, long gastoCentimos) {
+        this.dataCriacao = dataCriacao;
+        this.valorAnualCentimos = valorAnualCentimos;
+        this.gastoCentimos = gastoCentimos;
+    }
+
+    public String getDataCriacao() {
+        return dataCriacao;
+    }
+
+    public double getValorAnual() {
+        return Dinheiro.euros(valorAnualCentimos);
+    }
+
+    public double getGastoRealizado() {
+        return Dinheiro.euros(gastoCentimos);
+    }
+
+    public double getSaldo() {
+        return Dinheiro.euros(valorAnualCentimos - gastoCentimos);
+    }
+
+    public double getPercentagemUtilizada() {
+        return Dinheiro.percentagem(gastoCentimos, valorAnualCentimos);
+    }
+}
@@ -2,10 +2,13 @@ package Grupo9_RESTServer;
 
 import grupo9_FinancasPessoais.*;
 
+import javax.inject.Inject;
+import javax.inject.Provider;
 import javax.ws.rs.*;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Controlador REST para gerenciar subcategorias de gastos.
@@ -13,7 +16,29 @@ import java.util.List;
 @Path("/subcategoria")
 public class SubcategoriaRESTService {
 
-    private SubcategoriaService ss = new SubcategoriaService();
+    @Inject
+    private Provider<SubcategoriaService> ss;
+
+    @Inject
+    private Provider<CategoriaService> cs;
+
+    @Inject
+    private CacheConsultas cache;
+
+    @Inject
+    private TotaisGastos totais;
+
+    @Inject
+    private MotorAlertas alertas;
+
+    @Inject
+    private IndiceTransacoes indice;
+
+    @Inject
+    private OrcamentoAtual atual;
+
+    @Inject
+    private BloqueiosEntidades bloqueios;
 
     /**
      * Método de saudação em texto simples.
@@ -33,8 +58,9 @@ public class SubcategoriaRESTService {
      */
     @GET
     @Path("/getSubcategorias")
+    @Versionado({Entidade.SUBCATEGORIA, Entidade.CATEGORIA, Entidade.ORCAMENTO})
     public Response getSubcategorias() {
-    	List<Subcategoria> subcategorias = ss.findAllSubcategoriasDoUltimoOrcamento();
+    	List<Subcategoria> subcategorias = atual.getSubcategorias();
 
 		return Response.status(Response.Status.OK)
 				.entity(subcategorias)
@@ -42,17 +68,62 @@ public class SubcategoriaRESTService {
 				.build();
 	}
     
+    /**
+     * Obtém todas as subcategorias. Com os parâmetros limit ou cursor a resposta
+     * é uma página ordenada por nome, com o cursor da página seguinte.
+     *
+     * @param limite O número máximo de subcategorias por página.
+     * @param cursor O cursor devolvido pela página anterior.
+     * @return Resposta HTTP contendo a lista ou a página de subcategorias.
+     */
     @GET
     @Path("/getAllSubcategorias")
-    public Response getAllSubcategorias() {
-    	List<Subcategoria> subcategorias = ss.findAllSubcategorias();
+    @Versionado({Entidade.SUBCATEGORIA, Entidade.CATEGORIA})
+    public Response getAllSubcategorias(@QueryParam("limit") Integer limite, @QueryParam("cursor") String cursor) {
+    	List<Subcategoria> subcategorias = ss.get().findAllSubcategorias();
 
+    	if (Paginacao.pedida(limite, cursor)) {
+    		try {
+    			return Response.status(Response.Status.OK)
+    					.entity(Paginacao.paginar(subcategorias, s -> Objects.toString(s.getNomeSubc(), ""), cursor, limite))
+    					.type(MediaType.APPLICATION_JSON)
+    					.build();
+    		} catch (IllegalArgumentException e) {
+    			return Response.status(Response.Status.BAD_REQUEST)
+    					.entity("Erro na paginação: " + e.getMessage())
+    					.type(MediaType.TEXT_PLAIN)
+    					.build();
+    		}
+    	}
 		return Response.status(Response.Status.OK)
 				.entity(subcategorias)
 				.type(MediaType.APPLICATION_JSON)
 				.build();
 	}
 
+    /**
+     * Obtém todas as subcategorias em streaming, escrevendo cada item
+     * diretamente na resposta à medida que é serializado.
+     *
+     * @return Resposta HTTP com o array JSON escrito em streaming.
+     */
+    @GET
+    @Path("/getAllSubcategorias/stream")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Versionado({Entidade.SUBCATEGORIA, Entidade.CATEGORIA})
+    public Response getAllSubcategoriasStream() {
+        try {
+            return Response.status(Response.Status.OK)
+                    .entity(JsonStreaming.lista(ss.get().findAllSubcategorias()))
+                    .build();
+        } catch (RuntimeException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Erro ao obter as subcategorias: " + e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        }
+    }
+
     /**
      * Obtém uma subcategoria com base no nome.
      *
@@ -61,9 +132,11 @@ public class SubcategoriaRESTService {
      */
     @GET
     @Path("/getSubcategoria/{nomeSubc}")
+    @Versionado({Entidade.SUBCATEGORIA, Entidade.CATEGORIA})
     public Response getSubcategoria(@PathParam("nomeSubc") String nomeSubc) {
         try {
-            Subcategoria subcategoriaResponse = ss.findSubcategoria(nomeSubc);
+            Subcategoria subcategoriaResponse = cache.getSubcategorias().obter(nomeSubc,
+                    n -> ss.get().findSubcategoria(n));
             if (subcategoriaResponse != null) {
                 return Response.status(Response.Status.OK)
                         .entity(subcategoriaResponse)
@@ -90,8 +163,14 @@ public class SubcategoriaRESTService {
      */
     @POST
     @Path("/addSubcategoria")
+    @Altera(Entidade.SUBCATEGORIA)
     public Response addSubcategoria(Subcategoria subcategoria) {
-        Subcategoria subcategoriaResponse = ss.updateSubcategoria(subcategoria.getNomeSubc(), subcategoria.getGastoMaxSubc());
+        Subcategoria subcategoriaResponse = bloqueios.obter(Entidade.SUBCATEGORIA, subcategoria.getNomeSubc(), () -> {
+            Subcategoria atualizada = ss.get().updateSubcategoria(subcategoria.getNomeSubc(),
+                    subcategoria.getGastoMaxSubc());
+            cache.getSubcategorias().invalidar(subcategoria.getNomeSubc());
+            return atualizada;
+        });
         
         return Response.status(Response.Status.CREATED)
                 .entity(subcategoriaResponse)
@@ -109,10 +188,15 @@ public class SubcategoriaRESTService {
      */
     @PUT
     @Path("/alterarGastoMaximo/{nomeSubcategoria}/{gastoMaximo}")
+    @Altera(Entidade.SUBCATEGORIA)
     public Response alterarGastoMaximoCategoria(
             @PathParam("nomeSubcategoria") String nomeSubcategoria, @PathParam("gastoMaximo") Double gastoMaximo) {
         try {
-            ss.alterarGastoMaximoSubCategoria(nomeSubcategoria, gastoMaximo);
+            bloqueios.executar(Entidade.SUBCATEGORIA, nomeSubcategoria, () -> {
+                ss.get().alterarGastoMaximoSubCategoria(nomeSubcategoria, gastoMaximo);
+                cache.getSubcategorias().invalidar(nomeSubcategoria);
+            });
+            alertas.verificarSubcategoria(nomeSubcategoria);
             return Response.status(Response.Status.OK)
                     .entity("Valor máximo da Categoria " + nomeSubcategoria + " alterado para: " + gastoMaximo)
                     .build();
@@ -138,8 +222,15 @@ public class SubcategoriaRESTService {
      */
     @DELETE
 	@Path("/deleteSubcategoria/{nomeSubc}")
+	@Altera({Entidade.SUBCATEGORIA, Entidade.TRANSACAO})
 	public Response deleteSubcategoria(@PathParam("nomeSubc") String nomeSubc) {
-		boolean subcategoriaRemoved = ss.removeSubcategoria(nomeSubc);
+		boolean subcategoriaRemoved = bloqueios.obter(Entidade.SUBCATEGORIA, nomeSubc, () -> {
+			boolean removida = ss.get().removeSubcategoria(nomeSubc);
+			cache.getSubcategorias().invalidar(nomeSubc);
+			return removida;
+		});
+		totais.invalidar();
+		indice.invalidar();
 		
 		return Response.status(Response.Status.OK)
 				.entity(subcategoriaRemoved)
@@ -156,12 +247,14 @@ public class SubcategoriaRESTService {
      */
     @GET
     @Path("/calcularPercentagemGastos/{nomeSubc}/{gastosCategoria}")
+    @Versionado({Entidade.SUBCATEGORIA, Entidade.TRANSACAO})
     public Response calcularPercentagemGastos(@PathParam("nomeSubc") String nomeSubc,
                                               @PathParam("gastosCategoria") double gastosCategoria) {
         try {
-            Subcategoria subcategoriaResponse = ss.findSubcategoria(nomeSubc);
+            // o serviço só recebe entidades do seu contexto, nunca as partilhadas pela cache
+            Subcategoria subcategoriaResponse = ss.get().findSubcategoria(nomeSubc);
             if (subcategoriaResponse != null) {
-                double percentagem = ss.calcularPercentagemGastosSubcategoriaComRelacaoCategoria(
+                double percentagem = ss.get().calcularPercentagemGastosSubcategoriaComRelacaoCategoria(
                         subcategoriaResponse, gastosCategoria);
                 return Response.status(Response.Status.OK)
                         .entity("Percentagem de gastos da subcategoria: " + percentagem + "%")
@@ -182,14 +275,18 @@ public class SubcategoriaRESTService {
     
     @PUT
     @Path("/atribuirCategoriaNaSubcategoria/{nomeC}/{nomeSubc}")
+    @Altera({Entidade.SUBCATEGORIA, Entidade.CATEGORIA})
     public Response atribuirCategoriaNaSubcategoria(@PathParam("nomeC") String nomeC,
                                               @PathParam("nomeSubc") String nomeSubc) {
         try {
-        	CategoriaService cs = new CategoriaService();
-        	Categoria categoriaResponse = cs.findCategoria(nomeC);
-            Subcategoria subcategoriaResponse = ss.findSubcategoria(nomeSubc);
+            // as entidades da cache são partilhadas pelos pedidos: a escrita usa as do seu próprio serviço
+            // e invalida as entradas antes e depois de escrever
+            cache.getCategorias().invalidar(nomeC);
+            cache.getSubcategorias().invalidar(nomeSubc);
+        	Categoria categoriaResponse = cs.get().findCategoria(nomeC);
+            Subcategoria subcategoriaResponse = ss.get().findSubcategoria(nomeSubc);
             if (categoriaResponse != null && subcategoriaResponse != null) {
-                ss.atribuirCategoriaNaSubcategoria(categoriaResponse, subcategoriaResponse);
+                ss.get().atribuirCategoriaNaSubcategoria(categoriaResponse, subcategoriaResponse);
                 return Response.status(Response.Status.OK)
                         .entity("Categoria atribuída com sucesso à subcategoria.")
                         .build();
@@ -204,6 +301,9 @@ public class SubcategoriaRESTService {
                     .entity("Erro ao calcular a percentagem de gastos: " + e.getMessage())
                     .type(MediaType.TEXT_PLAIN)
                     .build();
+        } finally {
+            cache.getCategorias().invalidar(nomeC);
+            cache.getSubcategorias().invalidar(nomeSubc);
         }
     }
     
@@ -0,0 +1,241 @@
+package Grupo9_RESTServer;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import grupo9_FinancasPessoais.Transacao;
+import grupo9_FinancasPessoais.TransacaoService;
+
+/**
+ * Totais de gastos do último orçamento, por categoria e por subcategoria.
+ *
+ * Os totais são calculados uma vez a partir das transações do último
+ * orçamento e depois mantidos pelos controladores a cada escrita, para que
+ * os relatórios sejam respondidos sem percorrer as transações. Quando uma
+ * escrita não pode ser aplicada de forma incremental (nova data, novo
+ * orçamento, descrição repetida), os totais são invalidados e recalculados
+ * na leitura seguinte.
+ *
+ * Os totais são somados em cêntimos e vivem num {@link ModeloOrcamento} imutável: cada escrita publica
+ * um modelo novo, que só copia do anterior o bloco da linha alterada, e as leituras usam o modelo publicado
+ * sem sincronização.
+ *
+ * Uma escrita grava a transação antes de atualizar os totais, por isso um
+ * recálculo feito entre as duas já a conta. Os totais têm uma geração que
+ * {@link #invalidar()} e cada recálculo publicado incrementam: a escrita
+ * obtém-na com {@link #iniciarEscrita()} antes de gravar e só aplica a
+ * diferença se a geração não mudou; caso contrário não se sabe se o modelo
+ * já a inclui e os totais são invalidados. Da mesma forma, o recálculo é
+ * feito fora do lock e descartado se os totais foram invalidados entretanto.
+ */
+public class TotaisGastos {
+
+    private final ServicosDominio servicos;
+    private volatile ModeloOrcamento modelo;
+    private long geracao;
+    /** Garante um só recálculo de cada vez, sem bloquear as escritas. */
+    private final Object recalculo = new Object();
+
+    public TotaisGastos(ServicosDominio servicos) {
+        this.servicos = servicos;
+    }
+
+    /**
+     * Marca o início de uma escrita nas transações; chamado antes de a gravar.
+     *
+     * @return A geração dos totais, a passar à atualização da escrita.
+     */
+    public synchronized long iniciarEscrita() {
+        return geracao;
+    }
+
+    /**
+     * Regista uma transação nova do último orçamento.
+     *
+     * @param desde     A geração devolvida por {@link #iniciarEscrita()} antes de gravar.
+     * @param transacao A transação gravada.
+     */
+    public synchronized void registar(long desde, Transacao transacao) {
+        if (!carregadoDesde(desde) || transacao == null) {
+            return;
+        }
+        // uma descrição repetida fica com ambos os lançamentos; as alterações seguintes invalidam os totais
+        modelo = modelo.comTransacao(transacao.getDescricao(), Dinheiro.centimos(transacao.getValor()),
+                nomeCategoria(transacao), nomeSubcategoria(transacao));
+    }
+
+    /**
+     * Retira dos totais a transação com a descrição indicada.
+     */
+    public synchronized void remover(long desde, String descricao) {
+        int posicao = posicaoUnica(desde, descricao);
+        if (posicao >= 0) {
+            modelo = modelo.semTransacao(posicao);
+        }
+    }
+
+    /**
+     * Passa o valor da transação para outra categoria.
+     */
+    public synchronized void alterarCategoria(long desde, String descricao, String categoria) {
+        int posicao = posicaoUnica(desde, descricao);
+        if (posicao >= 0) {
+            modelo = modelo.comCategoria(posicao, categoria);
+        }
+    }
+
+    /**
+     * Passa o valor da transação para outra subcategoria.
+     */
+    public synchronized void alterarSubcategoria(long desde, String descricao, String subcategoria) {
+        int posicao = posicaoUnica(desde, descricao);
+        if (posicao >= 0) {
+            modelo = modelo.comSubcategoria(posicao, subcategoria);
+        }
+    }
+
+    /**
+     * Descarta os totais; são recalculados na próxima leitura.
+     */
+    public synchronized void invalidar() {
+        modelo = null;
+        geracao++;
+    }
+
+    public double getGastoTotal() {
+        return Dinheiro.euros(modelo().getTotal());
+    }
+
+    public long getCentimosTotal() {
+        return modelo().getTotal();
+    }
+
+    public long getCentimosCategoria(String nome) {
+        return modelo().getGastoCategoria(nome);
+    }
+
+    public long getCentimosSubcategoria(String nome) {
+        return modelo().getGastoSubcategoria(nome);
+    }
+
+    public List<PercentagemGasto> getPercentagensPorCategoria() {
+        return modelo().getPercentagensPorCategoria();
+    }
+
+    /**
+     * Compara os totais mantidos com um recálculo completo das transações.
+     *
+     * @return As diferenças encontradas; vazia se os totais estiverem corretos.
+     */
+    public List<String> verificar() {
+        ModeloOrcamento mantido = modelo();
+        ModeloOrcamento recalculo = ModeloOrcamento.de(servicos.usar(servicos::transacoes,
+                TransacaoService::findAllTransacoesDoUltimoOrcamento));
+        List<String> diferencas = new ArrayList<>();
+        if (recalculo.getTotal() != mantido.getTotal()) {
+            diferencas.add("total: mantido " + Dinheiro.euros(mantido.getTotal())
+                    + ", recalculado " + Dinheiro.euros(recalculo.getTotal()));
+        }
+        comparar("categoria", mantido.getGastosPorCategoria(), recalculo.getGastosPorCategoria(), diferencas);
+        comparar("subcategoria", mantido.getGastosPorSubcategoria(), recalculo.getGastosPorSubcategoria(),
+                diferencas);
+        return diferencas;
+    }
+
+    /**
+     * Devolve o modelo publicado sem o calcular.
+     *
+     * @return O modelo, ou null se os totais foram invalidados e ainda não voltaram a ser lidos.
+     */
+    ModeloOrcamento modeloCarregado() {
+        return modelo;
+    }
+
+    /**
+     * Devolve o modelo publicado, calculando-o se os totais foram invalidados.
+     */
+    ModeloOrcamento modelo() {
+        ModeloOrcamento atual = modelo;
+        if (atual != null) {
+            return atual;
+        }
+        synchronized (recalculo) {
+            long inicio;
+            synchronized (this) {
+                if (modelo != null) {
+                    return modelo;
+                }
+                inicio = geracao;
+            }
+            ModeloOrcamento recalculado = ModeloOrcamento.de(servicos.usar(servicos::transacoes,
+                    TransacaoService::findAllTransacoesDoUltimoOrcamento));
+            synchronized (this) {
+                // invalidado durante o recálculo: o modelo pode não incluir a escrita que o invalidou
+                if (geracao == inicio) {
+                    modelo = recalculado;
+                    geracao++;
+                }
+            }
+            return recalculado;
+        }
+    }
+
+    /**
+     * Indica se o modelo publicado pode receber a diferença de uma escrita
+     * iniciada na geração indicada. Se entretanto houve um recálculo, o
+     * modelo pode já incluir a escrita e os totais são invalidados.
+     */
+    private boolean carregadoDesde(long desde) {
+        if (modelo == null) {
+            return false;
+        }
+        if (geracao != desde) {
+            invalidar();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Devolve a posição da transação com a descrição, ou -1 se os totais não
+     * estiverem carregados desde o início da escrita ou a descrição não for conhecida. Se a descrição
+     * for ambígua não é possível saber qual das transações mudou, por isso
+     * os totais são invalidados.
+     */
+    private int posicaoUnica(long desde, String descricao) {
+        if (!carregadoDesde(desde)) {
+            return -1;
+        }
+        int posicao = modelo.posicao(descricao);
+        if (posicao == ModeloOrcamento.REPETIDA) {
+            invalidar();
+            return -1;
+        }
+        return posicao;
+    }
+
+    private static void comparar(String tipo, Map<String, Long> mantidos, Map<String, Long> recalculados,
+                                 List<String> diferencas) {
+        Set<String> nomes = new HashSet<>(mantidos.keySet());
+        nomes.addAll(recalculados.keySet());
+        for (String nome : nomes) {
+            long mantido = mantidos.getOrDefault(nome, 0L);
+            long recalculado = recalculados.getOrDefault(nome, 0L);
+            if (mantido != recalculado) {
+                diferencas.add(tipo + " " + nome + ": mantido " + Dinheiro.euros(mantido)
+                        + ", recalculado " + Dinheiro.euros(recalculado));
+            }
+        }
+    }
+
+    private static String nomeCategoria(Transacao transacao) {
+        return transacao.getCategoria() != null ? transacao.getCategoria().getNomeC() : null;
+    }
+
+    private static String nomeSubcategoria(Transacao transacao) {
+        return transacao.getSubcategoria() != null ? transacao.getSubcategoria().getNomeSubc() : null;
+    }
+}
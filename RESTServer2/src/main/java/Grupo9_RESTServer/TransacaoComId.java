@@ -0,0 +1,25 @@
+package Grupo9_RESTServer;
+
+import grupo9_FinancasPessoais.Transacao;
+
+/**
+ * Transação acompanhada do id atribuído pelo {@link IndiceTransacoes}.
+ */
+public class TransacaoComId {
+
+    private final long id;
+    private final Transacao transacao;
+
+    public TransacaoComId(long id, Transacao transacao) {
+        this.id = id;
+        this.transacao = transacao;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public Transacao getTransacao() {
+        return transacao;
+    }
+}
@@ -2,11 +2,24 @@ package Grupo9_RESTServer;
 
 import grupo9_FinancasPessoais.*;
 
+import javax.inject.Inject;
+import javax.inject.Provider;
 import javax.persistence.EntityManager;
 import javax.ws.rs.*;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Controlador REST para gerenciar transações financeiras.
@@ -14,7 +27,49 @@ import java.util.List;
 @Path("/transacao")
 public class TransacaoRESTService {
 
-    private TransacaoService ts = new TransacaoService();
+    /** Cabeçalho com o id da transação criada, para os endpoints por id. */
+    static final String CABECALHO_ID = "Transacao-Id";
+
+    /** Número máximo de atribuições num pedido de {@link #atribuirTransacoes}. */
+    static final int ATRIBUICOES_MAXIMAS = 1000;
+
+    @Context
+    private ContainerRequestContext pedido;
+
+    @Inject
+    private Provider<TransacaoService> ts;
+
+    @Inject
+    private Provider<CategoriaService> cs;
+
+    @Inject
+    private Provider<SubcategoriaService> ss;
+
+    @Inject
+    private Provider<MetaService> ms;
+
+    @Inject
+    private CacheConsultas cache;
+
+    @Inject
+    private TotaisGastos totais;
+
+    @Inject
+    private MotorAlertas alertas;
+
+    @Inject
+    private IndiceTransacoes indice;
+
+    @Inject
+    private OrcamentoAtual atual;
+
+    @Inject
+    private BloqueiosEntidades bloqueios;
+
+    // destinos das escritas deste pedido, procurados no seu próprio serviço e não na cache
+    private final Map<String, Categoria> categoriasEscrita = new HashMap<>();
+    private final Map<String, Subcategoria> subcategoriasEscrita = new HashMap<>();
+    private final Map<String, Meta> metasEscrita = new HashMap<>();
 
     /**
      * Método de saudação em texto simples.
@@ -34,9 +89,10 @@ public class TransacaoRESTService {
      */
     @GET
     @Path("/getTransacoes")
+    @Versionado({Entidade.TRANSACAO, Entidade.CATEGORIA, Entidade.SUBCATEGORIA, Entidade.META, Entidade.ORCAMENTO})
     public Response getTransacoes() {
         try {
-            List<Transacao> transacoes = ts.findAllTransacoesDoUltimoOrcamento();
+            List<Transacao> transacoes = atual.getTransacoes();
             return Response.status(Response.Status.OK)
                     .entity(transacoes)
                     .build();
@@ -48,14 +104,87 @@ public class TransacaoRESTService {
         }
     }
     
+    /**
+     * Obtém as transações do último orçamento em streaming, escrevendo cada item
+     * diretamente na resposta à medida que é serializado.
+     *
+     * @return Resposta HTTP com o array JSON escrito em streaming.
+     */
+    @GET
+    @Path("/getTransacoes/stream")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Versionado({Entidade.TRANSACAO, Entidade.CATEGORIA, Entidade.SUBCATEGORIA, Entidade.META, Entidade.ORCAMENTO})
+    public Response getTransacoesStream() {
+        try {
+            return Response.status(Response.Status.OK)
+                    .entity(JsonStreaming.lista(atual.getTransacoes()))
+                    .build();
+        } catch (RuntimeException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Erro ao obter as transações: " + e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        }
+    }
+
+    /**
+     * Obtém todas as transações. Com os parâmetros limit ou cursor a resposta
+     * é uma página ordenada por data, descrição e id do índice, com o cursor
+     * da página seguinte.
+     *
+     * @param limite O número máximo de transações por página.
+     * @param cursor O cursor devolvido pela página anterior.
+     * @return Resposta HTTP contendo a lista ou a página de transações.
+     */
     @GET
     @Path("/getAllTransacoes")
-    public Response getAllTransacoes() {
+    @Versionado({Entidade.TRANSACAO, Entidade.CATEGORIA, Entidade.SUBCATEGORIA, Entidade.META})
+    public Response getAllTransacoes(@QueryParam("limit") Integer limite, @QueryParam("cursor") String cursor) {
         try {
-            List<Transacao> transacoes = ts.findAllTransacoes();
+            if (Paginacao.pedida(limite, cursor)) {
+                // o índice está ordenado pela chave de paginação: a página começa no cursor
+                Pagina<TransacaoComId> pagina = Paginacao.paginarOrdenada(indice::seguintes, cursor, limite);
+                List<Transacao> itens = new ArrayList<>(pagina.getItens().size());
+                for (TransacaoComId item : pagina.getItens()) {
+                    itens.add(item.getTransacao());
+                }
+                return Response.status(Response.Status.OK)
+                        .entity(new Pagina<>(itens, pagina.getProximoCursor()))
+                        .type(MediaType.APPLICATION_JSON)
+                        .build();
+            }
+            List<Transacao> transacoes = ts.get().findAllTransacoes();
             return Response.status(Response.Status.OK)
                     .entity(transacoes)
                     .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("Erro ao obter as transações: " + e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        } catch (RuntimeException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Erro ao obter as transações: " + e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        }
+    }
+
+    /**
+     * Obtém todas as transações em streaming, escrevendo cada item
+     * diretamente na resposta à medida que é serializado.
+     *
+     * @return Resposta HTTP com o array JSON escrito em streaming.
+     */
+    @GET
+    @Path("/getAllTransacoes/stream")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Versionado({Entidade.TRANSACAO, Entidade.CATEGORIA, Entidade.SUBCATEGORIA, Entidade.META})
+    public Response getAllTransacoesStream() {
+        try {
+            return Response.status(Response.Status.OK)
+                    .entity(JsonStreaming.lista(ts.get().findAllTransacoes()))
+                    .build();
         } catch (RuntimeException e) {
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .entity("Erro ao obter as transações: " + e.getMessage())
@@ -72,9 +201,10 @@ public class TransacaoRESTService {
      */
     @GET
     @Path("/getTransacao/{descricao}")
+    @Versionado({Entidade.TRANSACAO, Entidade.CATEGORIA, Entidade.SUBCATEGORIA, Entidade.META})
     public Response getTransacao(@PathParam("descricao") String descricao) {
         try {
-            Transacao transacaoResponse = ts.findTransacao(descricao);
+            Transacao transacaoResponse = ts.get().findTransacao(descricao);
             if (transacaoResponse != null) {
                 return Response.status(Response.Status.OK)
                         .entity(transacaoResponse)
@@ -101,15 +231,204 @@ public class TransacaoRESTService {
      */
     @POST
 	@Path("/addTransacao")
+	@Altera(Entidade.TRANSACAO)
 	public Response addCategoria(Transacao transacao) {		
-		Transacao transacaoResponse = ts.updateTransacao(transacao.getData(), transacao.getValor(), transacao.getDescricao());
+		long desde = totais.iniciarEscrita();
+		long desdeIndice = indice.iniciarEscrita();
+		Transacao transacaoResponse = ts.get().updateTransacao(transacao.getData(), transacao.getValor(),
+				transacao.getDescricao());
+		totais.registar(desde, transacaoResponse);
+		long id = indice.registar(desdeIndice, transacaoResponse);
+		if (transacaoResponse != null && transacaoResponse.getCategoria() != null) {
+			alertas.verificarCategoria(transacaoResponse.getCategoria().getNomeC());
+		}
+		if (transacaoResponse != null && transacaoResponse.getSubcategoria() != null) {
+			alertas.verificarSubcategoria(transacaoResponse.getSubcategoria().getNomeSubc());
+		}
 		
 		return Response.status(Response.Status.CREATED)
 				.entity(transacaoResponse)
+				.header(CABECALHO_ID, id)
 				.type(MediaType.APPLICATION_JSON)
 				.build();
 	}
 
+    /**
+     * Importa um array JSON de transações, gravadas à medida que são lidas.
+     *
+     * @param corpo O corpo do pedido com o array de transações.
+     * @return Resposta HTTP com os totais, o débito em linhas por segundo e as linhas com erro.
+     */
+    @POST
+    @Path("/importarTransacoes")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    @Altera(Entidade.TRANSACAO)
+    public Response importarTransacoes(InputStream corpo) {
+        ImportacaoTransacoes importacao = null;
+        try {
+            importacao = new ImportacaoTransacoes(ts.get());
+            ResultadoImportacao resultado = importacao.importarArrayJson(corpo);
+            return Response.status(Response.Status.OK)
+                    .entity(resultado)
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("Erro ao importar as transações: " + e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        } catch (RuntimeException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Erro ao importar as transações: " + e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        } finally {
+            terminarImportacao(importacao);
+        }
+    }
+
+    /**
+     * Importa transações em NDJSON (um objeto por linha), gravadas à medida que são lidas.
+     *
+     * @param corpo O corpo do pedido com uma transação por linha.
+     * @return Resposta HTTP com os totais, o débito em linhas por segundo e as linhas com erro.
+     */
+    @POST
+    @Path("/importarTransacoes")
+    @Consumes(ImportacaoTransacoes.NDJSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    @Altera(Entidade.TRANSACAO)
+    public Response importarTransacoesNdjson(InputStream corpo) {
+        ImportacaoTransacoes importacao = null;
+        try {
+            importacao = new ImportacaoTransacoes(ts.get());
+            ResultadoImportacao resultado = importacao.importarNdjson(corpo);
+            return Response.status(Response.Status.OK)
+                    .entity(resultado)
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("Erro ao importar as transações: " + e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        } catch (IOException | RuntimeException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Erro ao importar as transações: " + e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        } finally {
+            terminarImportacao(importacao);
+        }
+    }
+
+    /**
+     * Importa transações no formato binário colunar, gravadas à medida que
+     * são lidas e atribuídas à categoria e à subcategoria indicadas em cada linha.
+     *
+     * @param corpo As transações no formato {@value FormatoColunar#TIPO}.
+     * @return Resposta HTTP com os totais, o débito em linhas por segundo e as linhas com erro.
+     */
+    @POST
+    @Path("/importarTransacoes")
+    @Consumes(FormatoColunar.TIPO)
+    @Produces(MediaType.APPLICATION_JSON)
+    @Altera(Entidade.TRANSACAO)
+    public Response importarTransacoesColunar(InputStream corpo) {
+        ImportacaoTransacoes importacao = null;
+        try {
+            importacao = new ImportacaoTransacoes(ts.get()).aposGravar(this::atribuirCategorias);
+            FormatoColunar.lerTransacoes(corpo, importacao);
+            ResultadoImportacao resultado = importacao.terminar();
+            return Response.status(Response.Status.OK)
+                    .entity(resultado)
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("Erro ao importar as transações: " + e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        } catch (IOException | RuntimeException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Erro ao importar as transações: " + e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        } finally {
+            terminarImportacao(importacao);
+        }
+    }
+
+    /**
+     * Importa um extrato bancário em CSV, gravando cada transação à medida
+     * que é lida e atribuindo a categoria e a subcategoria indicadas em cada linha.
+     *
+     * @param corpo O extrato enviado no corpo do pedido.
+     * @return Resposta HTTP com os totais, o débito em linhas por segundo e as linhas com erro.
+     */
+    @POST
+    @Path("/importarExtrato")
+    @Consumes(LeitorExtratos.CSV)
+    @Produces(MediaType.APPLICATION_JSON)
+    @Altera(Entidade.TRANSACAO)
+    public Response importarExtratoCsv(InputStream corpo) {
+        ImportacaoTransacoes importacao = null;
+        try {
+            importacao = new ImportacaoTransacoes(ts.get()).aposGravar(this::atribuirCategorias);
+            LeitorExtratos.lerCsv(new InputStreamReader(corpo, StandardCharsets.UTF_8), importacao);
+            ResultadoImportacao resultado = importacao.terminar();
+            return Response.status(Response.Status.OK)
+                    .entity(resultado)
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("Erro ao importar o extrato: " + e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        } catch (IOException | RuntimeException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Erro ao importar o extrato: " + e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        } finally {
+            terminarImportacao(importacao);
+        }
+    }
+
+    /**
+     * Importa um extrato bancário em OFX, gravando cada transação à medida
+     * que é lida e atribuindo a categoria e a subcategoria indicadas em cada linha.
+     *
+     * @param corpo O extrato enviado no corpo do pedido.
+     * @return Resposta HTTP com os totais, o débito em linhas por segundo e as linhas com erro.
+     */
+    @POST
+    @Path("/importarExtrato")
+    @Consumes(LeitorExtratos.OFX)
+    @Produces(MediaType.APPLICATION_JSON)
+    @Altera(Entidade.TRANSACAO)
+    public Response importarExtratoOfx(InputStream corpo) {
+        ImportacaoTransacoes importacao = null;
+        try {
+            importacao = new ImportacaoTransacoes(ts.get()).aposGravar(this::atribuirCategorias);
+            LeitorExtratos.lerOfx(corpo, importacao);
+            ResultadoImportacao resultado = importacao.terminar();
+            return Response.status(Response.Status.OK)
+                    .entity(resultado)
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("Erro ao importar o extrato: " + e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        } catch (IOException | RuntimeException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Erro ao importar o extrato: " + e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        } finally {
+            terminarImportacao(importacao);
+        }
+    }
+
     /**
      * Atualiza uma transação existente.
      *
@@ -125,8 +444,15 @@ public class TransacaoRESTService {
      */
     @DELETE
 	@Path("/deleteTransacao/{data}")
+	@Altera(Entidade.TRANSACAO)
 	public Response deleteTransacao(@PathParam("data") String data) {
-		boolean transacaoRemoved = ts.removeTransacao(ts.findTransacao(data));
+		Transacao transacao = ts.get().findTransacao(data);
+		long desde = totais.iniciarEscrita();
+		boolean transacaoRemoved = ts.get().removeTransacao(transacao);
+		if (transacaoRemoved && transacao != null) {
+			totais.remover(desde, transacao.getDescricao());
+			indice.removerDescricao(transacao.getDescricao());
+		}
 		
 		return Response.status(Response.Status.OK)
 				.entity(transacaoRemoved)
@@ -136,10 +462,15 @@ public class TransacaoRESTService {
     
     @PUT
     @Path("/alterarCategoria/{descricao}/{novaCategoria}")
+    @Altera(Entidade.TRANSACAO)
     public Response alterarCategoria(@PathParam("descricao") String descricao,
                                         @PathParam("novaCategoria") String novaCategoria) {
         try {
-            ts.alterarCategoriaTransacao(descricao, novaCategoria);
+            long desde = totais.iniciarEscrita();
+            ts.get().alterarCategoriaTransacao(descricao, novaCategoria);
+            totais.alterarCategoria(desde, descricao, novaCategoria);
+            indice.atualizarDescricao(descricao);
+            alertas.verificarCategoria(novaCategoria);
             return Response.status(Response.Status.OK)
                     .entity("Categoria da transação alterada.")
                     .build();
@@ -160,10 +491,15 @@ public class TransacaoRESTService {
      */
     @PUT
     @Path("/alterarSubcategoria/{descricao}/{novaSubcategoria}")
+    @Altera(Entidade.TRANSACAO)
     public Response alterarSubcategoria(@PathParam("descricao") String descricao,
                                         @PathParam("novaSubcategoria") String novaSubcategoria) {
         try {
-            ts.alterarSubcategoriaTransacao(descricao, novaSubcategoria);
+            long desde = totais.iniciarEscrita();
+            ts.get().alterarSubcategoriaTransacao(descricao, novaSubcategoria);
+            totais.alterarSubcategoria(desde, descricao, novaSubcategoria);
+            indice.atualizarDescricao(descricao);
+            alertas.verificarSubcategoria(novaSubcategoria);
             return Response.status(Response.Status.OK)
                     .entity("Subcategoria da transação alterada.")
                     .build();
@@ -177,10 +513,13 @@ public class TransacaoRESTService {
     
     @PUT
     @Path("/alterarData/{descricao}/{novaData}")
+    @Altera(Entidade.TRANSACAO)
     public Response alterarData(@PathParam("descricao") String descricao,
                                         @PathParam("novaData") String novaData) {
         try {
-            ts.alterarDataTransacao(descricao, novaData);
+            ts.get().alterarDataTransacao(descricao, novaData);
+            totais.invalidar();
+            indice.atualizarDescricao(descricao);
             return Response.status(Response.Status.OK)
                     .entity("Data da transacao alterada.")
                     .build();
@@ -194,15 +533,19 @@ public class TransacaoRESTService {
     
     @PUT
     @Path("/atribuirTransacaoEmCategoria/{nomeCategoria}/{descricao}")
+    @Altera(Entidade.TRANSACAO)
     public Response atribuirTransacaoEmCategoria(
             @PathParam("nomeCategoria") String nomeCategoria,
             @PathParam("descricao")String descricao) {
         try {
-        	CategoriaService cs = new CategoriaService();
-            Categoria categoria = cs.findCategoria(nomeCategoria);
-            Transacao transacao = ts.findTransacao(descricao);
+            Categoria categoria = categoriaParaEscrita(nomeCategoria);
+            Transacao transacao = ts.get().findTransacao(descricao);
             if (categoria != null && transacao != null) {
-                ts.atribuirTransacaoEmCategoria(transacao, categoria);
+                long desde = totais.iniciarEscrita();
+                ts.get().atribuirTransacaoEmCategoria(transacao, categoria);
+                totais.alterarCategoria(desde, transacao.getDescricao(), categoria.getNomeC());
+                indice.atualizarDescricao(transacao.getDescricao());
+                alertas.verificarCategoria(categoria.getNomeC());
                 return Response.status(Response.Status.OK)
                         .entity("Transação atribuída com sucesso à categoria.")
                         .build();
@@ -217,20 +560,26 @@ public class TransacaoRESTService {
                     .entity("Erro ao atribuir transação à categoria: " + e.getMessage())
                     .type(MediaType.TEXT_PLAIN)
                     .build();
+        } finally {
+            invalidarDestinos();
         }
     }
 
     @PUT
     @Path("/atribuirTransacaoEmSubcategoria/{nomeSubcategoria}/{descricao}")
+    @Altera(Entidade.TRANSACAO)
     public Response atribuirTransacaoEmSubcategoria(
             @PathParam("nomeSubcategoria") String nomeSubcategoria,
             @PathParam("descricao") String descricao) {
         try {
-        	SubcategoriaService ss = new SubcategoriaService();
-            Subcategoria subcategoria = ss.findSubcategoria(nomeSubcategoria);
-            Transacao transacao = ts.findTransacao(descricao);
+            Subcategoria subcategoria = subcategoriaParaEscrita(nomeSubcategoria);
+            Transacao transacao = ts.get().findTransacao(descricao);
             if (subcategoria != null && transacao != null) {
-                ts.atribuirTransacaoEmSubcategoria(transacao, subcategoria);
+                long desde = totais.iniciarEscrita();
+                ts.get().atribuirTransacaoEmSubcategoria(transacao, subcategoria);
+                totais.alterarSubcategoria(desde, transacao.getDescricao(), subcategoria.getNomeSubc());
+                indice.atualizarDescricao(transacao.getDescricao());
+                alertas.verificarSubcategoria(subcategoria.getNomeSubc());
                 return Response.status(Response.Status.OK)
                         .entity("Transação atribuída com sucesso à subcategoria.")
                         .build();
@@ -245,34 +594,656 @@ public class TransacaoRESTService {
                     .entity("Erro ao atribuir transação à subcategoria: " + e.getMessage())
                     .type(MediaType.TEXT_PLAIN)
                     .build();
+        } finally {
+            invalidarDestinos();
         }
     }
     
     @PUT
     @Path("/atribuirTransacaoEmMeta/{nomeMeta}/{descricao}")
+    @Altera({Entidade.TRANSACAO, Entidade.META})
     public Response atribuirTransacaoEmMeta(
             @PathParam("nomeMeta") String nomeMeta,
             @PathParam("descricao")String descricao) {
         try {
-        	MetaService ms = new MetaService();
-        	Meta meta = ms.findMeta(nomeMeta);
-            Transacao transacao = ts.findTransacao(descricao);
-            if (meta != null && transacao != null) {
-                ts.atribuirTransacaoEmMeta(transacao, meta);
-                return Response.status(Response.Status.OK)
-                        .entity("Transação atribuída com sucesso à categoria.")
-                        .build();
+            // o progresso da meta muda, por isso a escrita não se intercala com as da própria meta
+            return bloqueios.obter(Entidade.META, nomeMeta, () -> {
+                Meta meta = metaParaEscrita(nomeMeta);
+                Transacao transacao = ts.get().findTransacao(descricao);
+                if (meta != null && transacao != null) {
+                    ts.get().atribuirTransacaoEmMeta(transacao, meta);
+                    indice.atualizarDescricao(transacao.getDescricao());
+                    return Response.status(Response.Status.OK)
+                            .entity("Transação atribuída com sucesso à categoria.")
+                            .build();
+                } else {
+                    return Response.status(Response.Status.NOT_FOUND)
+                            .entity("Categoria não encontrada.")
+                            .type(MediaType.TEXT_PLAIN)
+                            .build();
+                }
+            });
+        } catch (RuntimeException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Erro ao atribuir transação à categoria: " + e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        } finally {
+            invalidarDestinos();
+        }
+    }
+
+    /**
+     * Atribui várias transações a categorias, subcategorias e metas num só
+     * pedido. Cada destino distinto é procurado uma vez e as transações são
+     * obtidas numa única consulta; cada pedido da lista tem o seu estado na
+     * resposta.
+     *
+     * @param atribuicoes A lista de atribuições a aplicar.
+     * @return Resposta HTTP com o estado de cada atribuição.
+     */
+    @POST
+    @Path("/atribuirTransacoes")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    @Altera({Entidade.TRANSACAO, Entidade.META})
+    public Response atribuirTransacoes(List<AtribuicaoTransacao> atribuicoes) {
+        try {
+            if (atribuicoes == null || atribuicoes.isEmpty()) {
+                throw new IllegalArgumentException("a lista de atribuições está vazia.");
+            }
+            if (atribuicoes.size() > ATRIBUICOES_MAXIMAS) {
+                throw new IllegalArgumentException("no máximo " + ATRIBUICOES_MAXIMAS
+                        + " atribuições por pedido.");
+            }
+            return Response.status(Response.Status.OK)
+                    .entity(atribuir(atribuicoes))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("Erro ao atribuir as transações: " + e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        } catch (RuntimeException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Erro ao atribuir as transações: " + e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        } finally {
+            invalidarDestinos();
+        }
+    }
+
+    private ResultadoAtribuicao atribuir(List<AtribuicaoTransacao> atribuicoes) {
+        // descrições repetidas são resolvidas pelo serviço, como nos pedidos individuais
+        Map<String, Transacao> transacoes = new HashMap<>();
+        Set<String> repetidas = new HashSet<>();
+        List<Transacao> todas = ts.get().findAllTransacoes();
+        if (todas != null) {
+            for (Transacao t : todas) {
+                if (transacoes.putIfAbsent(t.getDescricao(), t) != null) {
+                    repetidas.add(t.getDescricao());
+                }
+            }
+        }
+
+        ResultadoAtribuicao resultado = new ResultadoAtribuicao();
+        Set<String> categoriasAlteradas = new HashSet<>();
+        Set<String> subcategoriasAlteradas = new HashSet<>();
+        for (int i = 0; i < atribuicoes.size(); i++) {
+            AtribuicaoTransacao a = atribuicoes.get(i);
+            String descricao = a != null ? a.getDescricao() : null;
+            if (descricao == null) {
+                resultado.registarFalha(i, null, "Descrição em falta.");
+                continue;
+            }
+            if (a.getCategoria() == null && a.getSubcategoria() == null && a.getMeta() == null) {
+                resultado.registarFalha(i, descricao, "Nenhuma categoria, subcategoria ou meta indicada.");
+                continue;
+            }
+            Transacao transacao = repetidas.contains(descricao)
+                    ? ts.get().findTransacao(descricao) : transacoes.get(descricao);
+            Categoria categoria = a.getCategoria() != null ? categoriaParaEscrita(a.getCategoria()) : null;
+            Subcategoria subcategoria = a.getSubcategoria() != null
+                    ? subcategoriaParaEscrita(a.getSubcategoria()) : null;
+            Meta meta = a.getMeta() != null ? metaParaEscrita(a.getMeta()) : null;
+            if (transacao == null) {
+                resultado.registarFalha(i, descricao, "Transação não encontrada.");
+            } else if (a.getCategoria() != null && categoria == null) {
+                resultado.registarFalha(i, descricao, "Categoria " + a.getCategoria() + " não encontrada.");
+            } else if (a.getSubcategoria() != null && subcategoria == null) {
+                resultado.registarFalha(i, descricao, "Subcategoria " + a.getSubcategoria() + " não encontrada.");
+            } else if (a.getMeta() != null && meta == null) {
+                resultado.registarFalha(i, descricao, "Meta " + a.getMeta() + " não encontrada.");
+            } else {
+                try {
+                    if (categoria != null) {
+                        long desde = totais.iniciarEscrita();
+                        ts.get().atribuirTransacaoEmCategoria(transacao, categoria);
+                        totais.alterarCategoria(desde, descricao, categoria.getNomeC());
+                        categoriasAlteradas.add(categoria.getNomeC());
+                    }
+                    if (subcategoria != null) {
+                        long desde = totais.iniciarEscrita();
+                        ts.get().atribuirTransacaoEmSubcategoria(transacao, subcategoria);
+                        totais.alterarSubcategoria(desde, descricao, subcategoria.getNomeSubc());
+                        subcategoriasAlteradas.add(subcategoria.getNomeSubc());
+                    }
+                    if (meta != null) {
+                        bloqueios.executar(Entidade.META, a.getMeta(),
+                                () -> ts.get().atribuirTransacaoEmMeta(transacao, meta));
+                    }
+                    resultado.registarSucesso(i, descricao);
+                } catch (RuntimeException e) {
+                    resultado.registarFalha(i, descricao, e.getMessage());
+                }
+            }
+        }
+
+        if (resultado.getAtribuidas() > 0) {
+            indice.invalidar();
+        }
+        for (String nome : categoriasAlteradas) {
+            alertas.verificarCategoria(nome);
+        }
+        for (String nome : subcategoriasAlteradas) {
+            alertas.verificarSubcategoria(nome);
+        }
+        return resultado;
+    }
+
+    /**
+     * Procura os ids das transações com a descrição e/ou a data indicadas.
+     *
+     * @param descricao A descrição das transações.
+     * @param data      A data das transações.
+     * @return Resposta HTTP contendo as transações encontradas e os seus ids.
+     */
+    @GET
+    @Path("/procurarTransacoes")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Versionado({Entidade.TRANSACAO, Entidade.CATEGORIA, Entidade.SUBCATEGORIA, Entidade.META})
+    public Response procurarTransacoes(@QueryParam("descricao") String descricao, @QueryParam("data") String data) {
+        try {
+            List<Long> ids;
+            if (descricao != null) {
+                ids = indice.idsPorDescricao(descricao);
+                if (data != null) {
+                    Set<Long> doDia = new HashSet<>(indice.idsPorDia(diaValido(data)));
+                    ids.removeIf(id -> !doDia.contains(id));
+                }
+            } else if (data != null) {
+                ids = indice.idsPorDia(diaValido(data));
             } else {
+                throw new IllegalArgumentException("indique a descrição ou a data.");
+            }
+            List<TransacaoComId> encontradas = new ArrayList<>();
+            for (Long id : ids) {
+                Transacao transacao = indice.obter(id);
+                if (transacao != null) {
+                    encontradas.add(new TransacaoComId(id, transacao));
+                }
+            }
+            return Response.status(Response.Status.OK)
+                    .entity(encontradas)
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("Erro ao procurar as transações: " + e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        } catch (RuntimeException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Erro ao procurar as transações: " + e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        }
+    }
+
+    /**
+     * Consulta as transações por intervalo de datas e de valores, categoria,
+     * subcategoria e meta. O resultado é sempre paginado.
+     *
+     * @param de           A primeira data, inclusive.
+     * @param ate          A última data, inclusive.
+     * @param valorMinimo  O valor mínimo, inclusive.
+     * @param valorMaximo  O valor máximo, inclusive.
+     * @param categoria    O nome da categoria.
+     * @param subcategoria O nome da subcategoria.
+     * @param meta         O nome da meta.
+     * @param ordenar      O campo de ordenação: data ou valor.
+     * @param ordem        asc ou desc.
+     * @param limite       O número máximo de transações por página.
+     * @param cursor       O cursor devolvido pela página anterior.
+     * @return Resposta HTTP contendo a página de transações e os seus ids.
+     */
+    @GET
+    @Path("/consultarTransacoes")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Versionado({Entidade.TRANSACAO, Entidade.CATEGORIA, Entidade.SUBCATEGORIA, Entidade.META})
+    public Response consultarTransacoes(@QueryParam("de") String de,
+                                        @QueryParam("ate") String ate,
+                                        @QueryParam("valorMin") Double valorMinimo,
+                                        @QueryParam("valorMax") Double valorMaximo,
+                                        @QueryParam("categoria") String categoria,
+                                        @QueryParam("subcategoria") String subcategoria,
+                                        @QueryParam("meta") String meta,
+                                        @QueryParam("ordenar") String ordenar,
+                                        @QueryParam("ordem") String ordem,
+                                        @QueryParam("limit") Integer limite,
+                                        @QueryParam("cursor") String cursor) {
+        try {
+            ConsultaTransacoes consulta = new ConsultaTransacoes(de, ate, valorMinimo, valorMaximo,
+                    categoria, subcategoria, meta, ordenar, ordem);
+            return Response.status(Response.Status.OK)
+                    .entity(consulta.executar(indice, cursor, limite))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("Erro ao consultar as transações: " + e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        } catch (RuntimeException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Erro ao consultar as transações: " + e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        }
+    }
+
+    /**
+     * Obtém uma transação pelo seu id.
+     *
+     * @param id O id da transação.
+     * @return Resposta HTTP contendo a transação encontrada ou uma mensagem de erro.
+     */
+    @GET
+    @Path("/getTransacaoPorId/{id: [0-9]+}")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Versionado({Entidade.TRANSACAO, Entidade.CATEGORIA, Entidade.SUBCATEGORIA, Entidade.META})
+    public Response getTransacaoPorId(@PathParam("id") long id) {
+        try {
+            Transacao transacao = indice.obter(id);
+            if (transacao == null) {
+                return naoEncontrada();
+            }
+            return Response.status(Response.Status.OK)
+                    .entity(new TransacaoComId(id, transacao))
+                    .build();
+        } catch (RuntimeException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Erro ao obter a transação: " + e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        }
+    }
+
+    /**
+     * Remove a transação com o id indicado.
+     *
+     * @param id O id da transação.
+     * @return Resposta HTTP indicando o resultado da operação.
+     */
+    @DELETE
+    @Path("/deleteTransacaoPorId/{id: [0-9]+}")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Altera(Entidade.TRANSACAO)
+    public Response deleteTransacaoPorId(@PathParam("id") long id) {
+        try {
+            Transacao transacao = indice.obter(id);
+            if (transacao == null) {
+                return naoEncontrada();
+            }
+            long desde = totais.iniciarEscrita();
+            boolean removida = ts.get().removeTransacao(transacao);
+            if (removida) {
+                totais.remover(desde, transacao.getDescricao());
+                indice.remover(id);
+            }
+            return Response.status(Response.Status.OK)
+                    .entity(removida)
+                    .build();
+        } catch (RuntimeException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Erro ao remover a transação: " + e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        }
+    }
+
+    /**
+     * Altera a data da transação com o id indicado. O serviço só altera datas
+     * pela descrição, por isso a descrição da transação tem de ser única.
+     *
+     * @param id       O id da transação.
+     * @param novaData A nova data da transação.
+     * @return Resposta HTTP indicando o resultado da operação.
+     */
+    @PUT
+    @Path("/alterarDataPorId/{id: [0-9]+}/{novaData}")
+    @Altera(Entidade.TRANSACAO)
+    public Response alterarDataPorId(@PathParam("id") long id, @PathParam("novaData") String novaData) {
+        try {
+            Transacao transacao = indice.obter(id);
+            if (transacao == null) {
+                return naoEncontrada();
+            }
+            if (!indice.isDescricaoUnica(transacao.getDescricao())) {
+                return Response.status(Response.Status.CONFLICT)
+                        .entity("Existem várias transações com esta descrição; a data não pode ser alterada.")
+                        .type(MediaType.TEXT_PLAIN)
+                        .build();
+            }
+            ts.get().alterarDataTransacao(transacao.getDescricao(), novaData);
+            totais.invalidar();
+            indice.atualizar(id);
+            return Response.status(Response.Status.OK)
+                    .entity("Data da transacao alterada.")
+                    .build();
+        } catch (RuntimeException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Erro ao alterar a data da transacao: " + e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        }
+    }
+
+    /**
+     * Altera a categoria da transação com o id indicado.
+     *
+     * @param id            O id da transação.
+     * @param novaCategoria A nova categoria.
+     * @return Resposta HTTP indicando o resultado da operação.
+     */
+    @PUT
+    @Path("/alterarCategoriaPorId/{id: [0-9]+}/{novaCategoria}")
+    @Altera(Entidade.TRANSACAO)
+    public Response alterarCategoriaPorId(@PathParam("id") long id,
+                                          @PathParam("novaCategoria") String novaCategoria) {
+        try {
+            Transacao transacao = indice.obter(id);
+            if (transacao == null) {
+                return naoEncontrada();
+            }
+            if (!indice.isDescricaoUnica(transacao.getDescricao())) {
+                return Response.status(Response.Status.CONFLICT)
+                        .entity("Existem várias transações com esta descrição; a categoria não pode ser "
+                                + "alterada.")
+                        .type(MediaType.TEXT_PLAIN)
+                        .build();
+            }
+            long desde = totais.iniciarEscrita();
+            ts.get().alterarCategoriaTransacao(transacao.getDescricao(), novaCategoria);
+            totais.alterarCategoria(desde, transacao.getDescricao(), novaCategoria);
+            indice.atualizar(id);
+            alertas.verificarCategoria(novaCategoria);
+            return Response.status(Response.Status.OK)
+                    .entity("Categoria da transação alterada.")
+                    .build();
+        } catch (RuntimeException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Erro ao alterar a categoria da transação: " + e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        }
+    }
+
+    /**
+     * Altera a subcategoria da transação com o id indicado.
+     *
+     * @param id               O id da transação.
+     * @param novaSubcategoria A nova subcategoria.
+     * @return Resposta HTTP indicando o resultado da operação.
+     */
+    @PUT
+    @Path("/alterarSubcategoriaPorId/{id: [0-9]+}/{novaSubcategoria}")
+    @Altera(Entidade.TRANSACAO)
+    public Response alterarSubcategoriaPorId(@PathParam("id") long id,
+                                             @PathParam("novaSubcategoria") String novaSubcategoria) {
+        try {
+            Transacao transacao = indice.obter(id);
+            if (transacao == null) {
+                return naoEncontrada();
+            }
+            if (!indice.isDescricaoUnica(transacao.getDescricao())) {
+                return Response.status(Response.Status.CONFLICT)
+                        .entity("Existem várias transações com esta descrição; a subcategoria não pode ser "
+                                + "alterada.")
+                        .type(MediaType.TEXT_PLAIN)
+                        .build();
+            }
+            long desde = totais.iniciarEscrita();
+            ts.get().alterarSubcategoriaTransacao(transacao.getDescricao(), novaSubcategoria);
+            totais.alterarSubcategoria(desde, transacao.getDescricao(), novaSubcategoria);
+            indice.atualizar(id);
+            alertas.verificarSubcategoria(novaSubcategoria);
+            return Response.status(Response.Status.OK)
+                    .entity("Subcategoria da transação alterada.")
+                    .build();
+        } catch (RuntimeException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Erro ao alterar a subcategoria da transação: " + e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        }
+    }
+
+    /**
+     * Atribui a transação com o id indicado a uma categoria.
+     *
+     * @param nomeCategoria O nome da categoria.
+     * @param id            O id da transação.
+     * @return Resposta HTTP indicando o resultado da operação.
+     */
+    @PUT
+    @Path("/atribuirTransacaoEmCategoriaPorId/{nomeCategoria}/{id: [0-9]+}")
+    @Altera(Entidade.TRANSACAO)
+    public Response atribuirTransacaoEmCategoriaPorId(@PathParam("nomeCategoria") String nomeCategoria,
+                                                      @PathParam("id") long id) {
+        try {
+            Transacao transacao = indice.obter(id);
+            Categoria categoria = categoriaParaEscrita(nomeCategoria);
+            if (transacao == null || categoria == null) {
                 return Response.status(Response.Status.NOT_FOUND)
-                        .entity("Categoria não encontrada.")
+                        .entity("Categoria/transacao não encontrada.")
                         .type(MediaType.TEXT_PLAIN)
                         .build();
             }
+            long desde = totais.iniciarEscrita();
+            ts.get().atribuirTransacaoEmCategoria(transacao, categoria);
+            totais.alterarCategoria(desde, transacao.getDescricao(), categoria.getNomeC());
+            indice.atualizar(id);
+            alertas.verificarCategoria(categoria.getNomeC());
+            return Response.status(Response.Status.OK)
+                    .entity("Transação atribuída com sucesso à categoria.")
+                    .build();
         } catch (RuntimeException e) {
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .entity("Erro ao atribuir transação à categoria: " + e.getMessage())
                     .type(MediaType.TEXT_PLAIN)
                     .build();
+        } finally {
+            invalidarDestinos();
+        }
+    }
+
+    /**
+     * Atribui a transação com o id indicado a uma subcategoria.
+     *
+     * @param nomeSubcategoria O nome da subcategoria.
+     * @param id               O id da transação.
+     * @return Resposta HTTP indicando o resultado da operação.
+     */
+    @PUT
+    @Path("/atribuirTransacaoEmSubcategoriaPorId/{nomeSubcategoria}/{id: [0-9]+}")
+    @Altera(Entidade.TRANSACAO)
+    public Response atribuirTransacaoEmSubcategoriaPorId(@PathParam("nomeSubcategoria") String nomeSubcategoria,
+                                                         @PathParam("id") long id) {
+        try {
+            Transacao transacao = indice.obter(id);
+            Subcategoria subcategoria = subcategoriaParaEscrita(nomeSubcategoria);
+            if (transacao == null || subcategoria == null) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity("Subcategoria/transacao não encontrada.")
+                        .type(MediaType.TEXT_PLAIN)
+                        .build();
+            }
+            long desde = totais.iniciarEscrita();
+            ts.get().atribuirTransacaoEmSubcategoria(transacao, subcategoria);
+            totais.alterarSubcategoria(desde, transacao.getDescricao(), subcategoria.getNomeSubc());
+            indice.atualizar(id);
+            alertas.verificarSubcategoria(subcategoria.getNomeSubc());
+            return Response.status(Response.Status.OK)
+                    .entity("Transação atribuída com sucesso à subcategoria.")
+                    .build();
+        } catch (RuntimeException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Erro ao atribuir transação à subcategoria: " + e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        } finally {
+            invalidarDestinos();
+        }
+    }
+
+    /**
+     * Atribui a transação com o id indicado a uma meta.
+     *
+     * @param nomeMeta O nome da meta.
+     * @param id       O id da transação.
+     * @return Resposta HTTP indicando o resultado da operação.
+     */
+    @PUT
+    @Path("/atribuirTransacaoEmMetaPorId/{nomeMeta}/{id: [0-9]+}")
+    @Altera({Entidade.TRANSACAO, Entidade.META})
+    public Response atribuirTransacaoEmMetaPorId(@PathParam("nomeMeta") String nomeMeta,
+                                                 @PathParam("id") long id) {
+        try {
+            Transacao transacao = indice.obter(id);
+            return bloqueios.obter(Entidade.META, nomeMeta, () -> {
+                Meta meta = metaParaEscrita(nomeMeta);
+                if (transacao == null || meta == null) {
+                    return Response.status(Response.Status.NOT_FOUND)
+                            .entity("Meta/transacao não encontrada.")
+                            .type(MediaType.TEXT_PLAIN)
+                            .build();
+                }
+                ts.get().atribuirTransacaoEmMeta(transacao, meta);
+                indice.atualizar(id);
+                return Response.status(Response.Status.OK)
+                        .entity("Transação atribuída com sucesso à meta.")
+                        .build();
+            });
+        } catch (RuntimeException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Erro ao atribuir transação à meta: " + e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        } finally {
+            invalidarDestinos();
+        }
+    }
+
+    private static Response naoEncontrada() {
+        return Response.status(Response.Status.NOT_FOUND)
+                .entity("Transação não encontrada.")
+                .type(MediaType.TEXT_PLAIN)
+                .build();
+    }
+
+    private static long diaValido(String data) {
+        long dia = Datas.diaEpoch(data);
+        if (dia == Long.MIN_VALUE) {
+            throw new IllegalArgumentException("data inválida: " + data);
+        }
+        return dia;
+    }
+
+    /**
+     * Termina uma importação, com ou sem erro. As transações gravadas antes
+     * de um erro ficam gravadas, por isso os totais e o índice são
+     * invalidados e a alteração é registada mesmo que a resposta não seja
+     * de sucesso.
+     */
+    /**
+     * Procura a categoria a que este pedido vai atribuir transações.
+     *
+     * As entidades da {@link CacheConsultas} são partilhadas por todos os
+     * pedidos e só servem leituras: um serviço que recebesse uma delas
+     * alterava-a fora do seu contexto de persistência, à vista dos outros
+     * pedidos. As escritas usam a entidade do serviço deste pedido, procurada
+     * uma vez por pedido, e a entrada da cache é invalidada antes de a
+     * procurar e, em {@link #invalidarDestinos}, depois de escrever.
+     */
+    private Categoria categoriaParaEscrita(String nome) {
+        if (!categoriasEscrita.containsKey(nome)) {
+            cache.getCategorias().invalidar(nome);
+            categoriasEscrita.put(nome, cs.get().findCategoria(nome));
+        }
+        return categoriasEscrita.get(nome);
+    }
+
+    /**
+     * Procura a subcategoria a que este pedido vai atribuir transações, como
+     * em {@link #categoriaParaEscrita}.
+     */
+    private Subcategoria subcategoriaParaEscrita(String nome) {
+        if (!subcategoriasEscrita.containsKey(nome)) {
+            cache.getSubcategorias().invalidar(nome);
+            subcategoriasEscrita.put(nome, ss.get().findSubcategoria(nome));
+        }
+        return subcategoriasEscrita.get(nome);
+    }
+
+    /**
+     * Procura a meta a que este pedido vai atribuir transações, como em
+     * {@link #categoriaParaEscrita}.
+     */
+    private Meta metaParaEscrita(String nome) {
+        if (!metasEscrita.containsKey(nome)) {
+            cache.getMetas().invalidar(nome);
+            metasEscrita.put(nome, ms.get().findMeta(nome));
+        }
+        return metasEscrita.get(nome);
+    }
+
+    /**
+     * Invalida na cache as entradas dos destinos procurados para escrita, que
+     * as escritas deste pedido podem ter alterado.
+     */
+    private void invalidarDestinos() {
+        categoriasEscrita.keySet().forEach(cache.getCategorias()::invalidar);
+        subcategoriasEscrita.keySet().forEach(cache.getSubcategorias()::invalidar);
+        metasEscrita.keySet().forEach(cache.getMetas()::invalidar);
+    }
+
+    private void terminarImportacao(ImportacaoTransacoes importacao) {
+        invalidarDestinos();
+        if (importacao == null || !importacao.isAlterou()) {
+            return;
+        }
+        totais.invalidar();
+        indice.invalidar();
+        pedido.setProperty(FiltroAlteracoes.ALTERACAO_PARCIAL, true);
+    }
+
+    /**
+     * Atribui a transação importada à categoria e à subcategoria da linha do extrato.
+     */
+    private void atribuirCategorias(ImportacaoTransacoes.LinhaPendente linha, Transacao transacao) {
+        if (linha.categoria != null) {
+            Categoria categoria = categoriaParaEscrita(linha.categoria);
+            if (categoria == null) {
+                throw new IllegalArgumentException("Categoria " + linha.categoria + " não encontrada.");
+            }
+            ts.get().atribuirTransacaoEmCategoria(transacao, categoria);
+        }
+        if (linha.subcategoria != null) {
+            Subcategoria subcategoria = subcategoriaParaEscrita(linha.subcategoria);
+            if (subcategoria == null) {
+                throw new IllegalArgumentException("Subcategoria " + linha.subcategoria + " não encontrada.");
+            }
+            ts.get().atribuirTransacaoEmSubcategoria(transacao, subcategoria);
         }
     }
 
@@ -0,0 +1,17 @@
+package Grupo9_RESTServer;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marca um método de leitura cuja resposta depende apenas das entidades
+ * indicadas. A resposta leva ETag e Last-Modified e os pedidos condicionais
+ * recebem 304 Not Modified sem executar o método.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Versionado {
+    Entidade[] value();
+}
@@ -0,0 +1,63 @@
+package Grupo9_RESTServer;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.ws.rs.core.EntityTag;
+
+/**
+ * Contador de versões por tipo de entidade, incrementado a cada escrita.
+ *
+ * As ETags combinam o instante de arranque com as versões das entidades de
+ * que a resposta depende, pelo que mudam sempre que uma delas é alterada e
+ * não se repetem entre reinícios do servidor.
+ */
+public class VersoesEntidades {
+
+    private final String arranque = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLongArray versoes = new AtomicLongArray(Entidade.values().length);
+    private final AtomicLongArray alteradoEm = new AtomicLongArray(Entidade.values().length);
+
+    public VersoesEntidades() {
+        long agora = System.currentTimeMillis();
+        for (int i = 0; i < alteradoEm.length(); i++) {
+            alteradoEm.set(i, agora);
+        }
+    }
+
+    /**
+     * Regista uma alteração das entidades indicadas.
+     */
+    public void alterado(Entidade... entidades) {
+        long agora = System.currentTimeMillis();
+        for (Entidade e : entidades) {
+            versoes.incrementAndGet(e.ordinal());
+            alteradoEm.accumulateAndGet(e.ordinal(), agora, Math::max);
+        }
+    }
+
+    public long versao(Entidade entidade) {
+        return versoes.get(entidade.ordinal());
+    }
+
+    /**
+     * @return A ETag forte para uma resposta que depende das entidades indicadas.
+     */
+    public EntityTag etag(Entidade... entidades) {
+        StringBuilder valor = new StringBuilder(arranque);
+        for (Entidade e : entidades) {
+            valor.append('-').append(versoes.get(e.ordinal()));
+        }
+        return new EntityTag(valor.toString());
+    }
+
+    /**
+     * @return O instante, em milissegundos, da última alteração das entidades indicadas.
+     */
+    public long ultimaAlteracao(Entidade... entidades) {
+        long ultima = 0;
+        for (Entidade e : entidades) {
+            ultima = Math.max(ultima, alteradoEm.get(e.ordinal()));
+        }
+        return ultima;
+    }
+}
@@ -0,0 +1,32 @@
+package Grupo9_RESTServer;
+
+import javax.ws.rs.container.DynamicFeature;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.FeatureContext;
+
+/**
+ * Regista os filtros de versões nos métodos marcados com {@link Versionado}
+ * ou {@link Altera}.
+ */
+public class VersoesFeature implements DynamicFeature {
+
+    private final VersoesEntidades versoes;
+    private final DifusorEventos difusor;
+
+    public VersoesFeature(VersoesEntidades versoes, DifusorEventos difusor) {
+        this.versoes = versoes;
+        this.difusor = difusor;
+    }
+
+    @Override
+    public void configure(ResourceInfo recurso, FeatureContext contexto) {
+        Versionado leitura = recurso.getResourceMethod().getAnnotation(Versionado.class);
+        if (leitura != null) {
+            contexto.register(new FiltroVersoes(versoes, leitura.value()));
+        }
+        Altera escrita = recurso.getResourceMethod().getAnnotation(Altera.class);
+        if (escrita != null) {
+            contexto.register(new FiltroAlteracoes(versoes, difusor, escrita.value()));
+        }
+    }
+}
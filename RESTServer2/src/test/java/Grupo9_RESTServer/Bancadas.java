@@ -0,0 +1,218 @@
+package Grupo9_RESTServer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+
+import grupo9_FinancasPessoais.Categoria;
+import grupo9_FinancasPessoais.Transacao;
+
+import Grupo9_RESTServer.ImportacaoTransacoes.LinhaPendente;
+
+/**
+ * Micro-benchmarks dos caminhos quentes do servidor, sem base de dados:
+ * <ul>
+ * <li>paginação de getAllTransacoes: a página percorrendo a listagem inteira
+ * ({@link Paginacao#paginar}) e a página lida a partir do cursor num índice
+ * ordenado ({@link Paginacao#paginarOrdenada});</li>
+ * <li>percentagem de gastos por categoria e escrita no modelo dos totais
+ * ({@link ModeloOrcamento});</li>
+ * <li>importação de NDJSON, da leitura do corpo até cada linha ser entregue
+ * para gravação ({@link ImportacaoTransacoes});</li>
+ * <li>escrita do formato colunar ({@link FormatoColunar}).</li>
+ * </ul>
+ *
+ * Cada medição tem rondas de aquecimento e rondas medidas, e mostra a mediana
+ * e o mínimo do tempo por operação. Os resultados são consumidos para que o
+ * JIT não elimine o trabalho medido. Não faz parte de {@link Testes}; para
+ * comparar duas versões, executar em cada uma com os mesmos argumentos:
+ *
+ * <pre>
+ * java -cp ... Grupo9_RESTServer.Bancadas [transações]
+ * </pre>
+ */
+public class Bancadas {
+
+    private static final int RONDAS_AQUECIMENTO = 5;
+    private static final int RONDAS_MEDIDAS = 10;
+    private static final long NANOS_POR_RONDA = 200_000_000L;
+
+    /** Destino dos resultados, lido no fim para que o trabalho não seja eliminado. */
+    private static long sumidouro;
+
+    public static void main(String[] args) throws Exception {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        Random aleatorio = new Random(13);
+        List<Transacao> transacoes = new ArrayList<>(n);
+        LocalDate inicio = LocalDate.of(2020, 1, 1);
+        for (int i = 0; i < n; i++) {
+            transacoes.add(transacao(inicio.plusDays(aleatorio.nextInt(1_500)).toString(),
+                    aleatorio.nextInt(100_000) / 100.0, "compra " + aleatorio.nextInt(n), "c" + aleatorio.nextInt(20)));
+        }
+        System.out.printf("%d transações, %d rondas de %d ms%n", n, RONDAS_MEDIDAS, NANOS_POR_RONDA / 1_000_000);
+
+        paginacao(transacoes);
+        percentagens(transacoes);
+        importacao(transacoes);
+        escritaColunar(transacoes);
+        System.out.println("(sumidouro " + sumidouro + ")");
+    }
+
+    private static void paginacao(List<Transacao> transacoes) throws Exception {
+        List<TransacaoComId> todas = new ArrayList<>(transacoes.size());
+        NavigableMap<String, TransacaoComId> indice = new TreeMap<>();
+        for (int i = 0; i < transacoes.size(); i++) {
+            TransacaoComId item = new TransacaoComId(i + 1, transacoes.get(i));
+            todas.add(item);
+            indice.put(chave(item), item);
+        }
+        // cursor a meio da listagem, como um cliente que já leu metade das páginas
+        List<String> chaves = new ArrayList<>(indice.keySet());
+        String cursorCodificado = cursorDe(chaves.get(chaves.size() / 2));
+
+        medir("getAllTransacoes página de 50, listagem inteira", () ->
+                Paginacao.paginar(todas, Bancadas::chave, cursorCodificado, 50).getItens().size());
+        medir("getAllTransacoes página de 50, a partir do cursor", () ->
+                Paginacao.paginarOrdenada((depoisDe, quantos) -> {
+                    List<Map.Entry<String, TransacaoComId>> lidos = new ArrayList<>(quantos);
+                    for (Map.Entry<String, TransacaoComId> e : indice.tailMap(depoisDe, false).entrySet()) {
+                        if (lidos.size() == quantos) {
+                            break;
+                        }
+                        lidos.add(e);
+                    }
+                    return lidos;
+                }, cursorCodificado, 50).getItens().size());
+    }
+
+    private static void percentagens(List<Transacao> transacoes) throws Exception {
+        ModeloOrcamento modelo = ModeloOrcamento.de(transacoes);
+        medir("percentagem de gastos por categoria", () -> modelo.getPercentagensPorCategoria().size());
+        medir("calcular o modelo dos totais", () -> ModeloOrcamento.de(transacoes).getTotal());
+
+        int[] proxima = {0};
+        ModeloOrcamento[] atual = {modelo};
+        medir("escrita no modelo dos totais", () -> {
+            ModeloOrcamento m = atual[0];
+            int posicao = proxima[0]++ % transacoes.size();
+            atual[0] = m.comCategoria(posicao, "c" + (posicao % 20));
+            return atual[0].getTotal();
+        });
+    }
+
+    private static void importacao(List<Transacao> transacoes) throws Exception {
+        StringBuilder corpo = new StringBuilder();
+        for (Transacao t : transacoes) {
+            corpo.append("{\"data\":\"").append(t.getData()).append("\",\"valor\":").append(t.getValor())
+                    .append(",\"descricao\":\"").append(t.getDescricao()).append("\"}\n");
+        }
+        byte[] bytes = corpo.toString().getBytes(StandardCharsets.UTF_8);
+        medir("importar " + transacoes.size() + " linhas NDJSON", () -> {
+            Contagem contagem = new Contagem();
+            contagem.importarNdjson(new ByteArrayInputStream(bytes));
+            return contagem.linhas;
+        });
+    }
+
+    private static void escritaColunar(List<Transacao> transacoes) throws Exception {
+        List<Object> linhas = new ArrayList<>(transacoes);
+        medir("escrever " + transacoes.size() + " transações no formato colunar", () -> {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            FormatoColunar.escrever((byte) 'T', linhas, new DataOutputStream(bytes));
+            return bytes.size();
+        });
+    }
+
+    /**
+     * Mede o tempo por operação: repete a operação durante cada ronda e
+     * mostra a mediana e o mínimo das rondas medidas.
+     */
+    private static void medir(String nome, Callable<Number> operacao) throws Exception {
+        double[] nanosPorOperacao = new double[RONDAS_MEDIDAS];
+        for (int ronda = -RONDAS_AQUECIMENTO; ronda < RONDAS_MEDIDAS; ronda++) {
+            long operacoes = 0;
+            long inicio = System.nanoTime();
+            long decorrido;
+            do {
+                sumidouro += operacao.call().longValue();
+                operacoes++;
+                decorrido = System.nanoTime() - inicio;
+            } while (decorrido < NANOS_POR_RONDA);
+            if (ronda >= 0) {
+                nanosPorOperacao[ronda] = (double) decorrido / operacoes;
+            }
+        }
+        Arrays.sort(nanosPorOperacao);
+        System.out.printf("%-60s mediana %12.1f µs/op, mínimo %12.1f µs/op%n", nome,
+                nanosPorOperacao[RONDAS_MEDIDAS / 2] / 1000, nanosPorOperacao[0] / 1000);
+    }
+
+    /** Chave de paginação de getAllTransacoes, a mesma do índice das transações. */
+    private static String chave(TransacaoComId item) {
+        return Datas.chaveOrdenavel(item.getTransacao().getData(), item.getTransacao().getDescricao())
+                + "|" + Paginacao.comZeros(Long.toString(item.getId()), 19);
+    }
+
+    /** Cursor como o devolvido em proximoCursor pela página anterior. */
+    private static String cursorDe(String chave) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(chave.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Importação que só conta as linhas, para medir a leitura sem a base de dados.
+     */
+    private static final class Contagem extends ImportacaoTransacoes {
+        long linhas;
+
+        Contagem() {
+            super(null);
+        }
+
+        @Override
+        void adicionar(LinhaPendente linha) {
+            linhas++;
+        }
+    }
+
+    private static Transacao transacao(String data, double valor, String descricao, String categoria) {
+        Categoria c = new Categoria() {
+            @Override
+            public String getNomeC() {
+                return categoria;
+            }
+        };
+        return new Transacao() {
+            @Override
+            public String getData() {
+                return data;
+            }
+
+            @Override
+            public double getValor() {
+                return valor;
+            }
+
+            @Override
+            public String getDescricao() {
+                return descricao;
+            }
+
+            @Override
+            public Categoria getCategoria() {
+                return c;
+            }
+        };
+    }
+}
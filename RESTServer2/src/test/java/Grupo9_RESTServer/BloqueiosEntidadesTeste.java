@@ -0,0 +1,86 @@
+package Grupo9_RESTServer;
+
+import static Grupo9_RESTServer.Testes.iguais;
+import static Grupo9_RESTServer.Testes.verificar;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Teste de carga dos bloqueios por entidade: várias threads fazem leituras
+ * e escritas não atómicas sobre as mesmas entidades e nenhuma atualização
+ * se pode perder.
+ */
+public class BloqueiosEntidadesTeste {
+
+    private static final int THREADS = 16;
+    private static final int ENTIDADES = 32;
+    private static final int ESCRITAS_POR_THREAD = 20_000;
+
+    public static void main(String[] args) throws Exception {
+        arredondaFaixas();
+        naoPerdeAtualizacoes(64);
+        naoPerdeAtualizacoes(1);
+        System.out.println("BloqueiosEntidadesTeste: ok");
+    }
+
+    static void arredondaFaixas() {
+        iguais(1, new BloqueiosEntidades(0).getFaixas(), "faixas para 0");
+        iguais(1, new BloqueiosEntidades(1).getFaixas(), "faixas para 1");
+        iguais(64, new BloqueiosEntidades(64).getFaixas(), "faixas para 64");
+        iguais(128, new BloqueiosEntidades(100).getFaixas(), "faixas para 100");
+        BloqueiosEntidades bloqueios = new BloqueiosEntidades(64);
+        iguais(bloqueios.faixa(Entidade.META, "ferias"), bloqueios.faixa(Entidade.META, "ferias"), "mesma entidade");
+    }
+
+    /**
+     * Cada thread soma 1 ao valor de entidades escolhidas em rotação, lendo
+     * o valor, cedendo o processador e escrevendo-o, como um serviço que lê
+     * e grava o gasto máximo.
+     */
+    static void naoPerdeAtualizacoes(int faixas) throws Exception {
+        BloqueiosEntidades bloqueios = new BloqueiosEntidades(faixas);
+        long[] valores = new long[ENTIDADES];
+        CountDownLatch partida = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> tarefas = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                tarefas.add(executor.submit(() -> {
+                    partida.await();
+                    for (int i = 0; i < ESCRITAS_POR_THREAD; i++) {
+                        int entidade = (thread + i) % ENTIDADES;
+                        Entidade tipo = entidade % 2 == 0 ? Entidade.CATEGORIA : Entidade.META;
+                        bloqueios.executar(tipo, "e" + entidade, () -> {
+                            long lido = valores[entidade];
+                            Thread.yield();
+                            valores[entidade] = lido + 1;
+                        });
+                    }
+                    return null;
+                }));
+            }
+            partida.countDown();
+            for (Future<?> tarefa : tarefas) {
+                tarefa.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        long soma = 0;
+        for (long v : valores) {
+            soma += v;
+        }
+        iguais((long) THREADS * ESCRITAS_POR_THREAD, soma, "atualizações com " + faixas + " faixas");
+        for (int e = 0; e < ENTIDADES; e++) {
+            verificar(valores[e] == (long) THREADS * ESCRITAS_POR_THREAD / ENTIDADES,
+                    "valor da entidade e" + e + " com " + faixas + " faixas: " + valores[e]);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package Grupo9_RESTServer;
+
+import static Grupo9_RESTServer.Testes.iguais;
+import static Grupo9_RESTServer.Testes.lanca;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Testes da cache limitada: acertos, expiração, capacidade e invalidação
+ * durante um carregamento.
+ */
+public class CacheLimitadoTeste {
+
+    public static void main(String[] args) throws Exception {
+        guardaValoresMasNaoNull();
+        expiraEntradas();
+        removeAUsadaHaMaisTempo();
+        invalidarDuranteCarregamentoNaoGuardaValorAntigo();
+        limparDuranteCarregamentoNaoGuardaValorAntigo();
+        carregamentoFalhadoNaoDeixaChavePresa();
+        System.out.println("CacheLimitadoTeste: ok");
+    }
+
+    static void guardaValoresMasNaoNull() {
+        CacheLimitado<String, String> cache = new CacheLimitado<>(10, 1, TimeUnit.MINUTES);
+        AtomicInteger cargas = new AtomicInteger();
+        cache.obter("a", k -> {
+            cargas.incrementAndGet();
+            return "A";
+        });
+        iguais("A", cache.obter("a", k -> "outro"), "valor em cache");
+        iguais(1, cargas.get(), "cargas de a");
+        iguais(null, cache.obter("b", k -> null), "valor null");
+        iguais("B", cache.obter("b", k -> "B"), "null não fica em cache");
+        iguais(1L, cache.getAcertos(), "acertos");
+        iguais(3L, cache.getFalhas(), "falhas");
+    }
+
+    static void expiraEntradas() throws InterruptedException {
+        CacheLimitado<String, String> cache = new CacheLimitado<>(10, 20, TimeUnit.MILLISECONDS);
+        cache.obter("a", k -> "antigo");
+        Thread.sleep(40);
+        iguais("novo", cache.obter("a", k -> "novo"), "valor expirado");
+    }
+
+    static void removeAUsadaHaMaisTempo() {
+        CacheLimitado<String, String> cache = new CacheLimitado<>(2, 1, TimeUnit.MINUTES);
+        cache.obter("a", k -> "A");
+        cache.obter("b", k -> "B");
+        cache.obter("a", k -> "x");
+        cache.obter("c", k -> "C");
+        iguais(2, cache.getTamanho(), "tamanho");
+        iguais("A", cache.obter("a", k -> "x"), "a foi usada há pouco");
+        iguais("novo", cache.obter("b", k -> "novo"), "b foi removida");
+        lanca(IllegalArgumentException.class, () -> new CacheLimitado<>(0, 1, TimeUnit.MINUTES), "capacidade 0");
+    }
+
+    static void invalidarDuranteCarregamentoNaoGuardaValorAntigo() throws Exception {
+        CacheLimitado<String, String> cache = new CacheLimitado<>(10, 1, TimeUnit.MINUTES);
+        carregarDuranteEscrita(cache, () -> cache.invalidar("a"));
+        iguais("escrito", cache.obter("a", k -> "escrito"), "valor depois da escrita");
+    }
+
+    static void limparDuranteCarregamentoNaoGuardaValorAntigo() throws Exception {
+        CacheLimitado<String, String> cache = new CacheLimitado<>(10, 1, TimeUnit.MINUTES);
+        carregarDuranteEscrita(cache, cache::limpar);
+        iguais("escrito", cache.obter("a", k -> "escrito"), "valor depois da limpeza");
+    }
+
+    static void carregamentoFalhadoNaoDeixaChavePresa() {
+        CacheLimitado<String, String> cache = new CacheLimitado<>(10, 1, TimeUnit.MINUTES);
+        lanca(IllegalStateException.class, () -> cache.obter("a", k -> {
+            throw new IllegalStateException("falha");
+        }), "carregamento falhado");
+        cache.obter("a", k -> "A");
+        iguais("A", cache.obter("a", k -> "x"), "valor depois da falha");
+    }
+
+    /**
+     * Inicia um carregamento de "a" que lê o valor antigo, executa a escrita
+     * enquanto o carregamento está em curso e espera que este termine.
+     */
+    private static void carregarDuranteEscrita(CacheLimitado<String, String> cache, Runnable escrita)
+            throws Exception {
+        CountDownLatch lido = new CountDownLatch(1);
+        CountDownLatch escrito = new CountDownLatch(1);
+        CompletableFuture<String> leitura = CompletableFuture.supplyAsync(() -> cache.obter("a", k -> {
+            lido.countDown();
+            try {
+                escrito.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "antigo";
+        }));
+        lido.await();
+        escrita.run();
+        escrito.countDown();
+        iguais("antigo", leitura.get(5, TimeUnit.SECONDS), "valor devolvido à leitura concorrente");
+    }
+}
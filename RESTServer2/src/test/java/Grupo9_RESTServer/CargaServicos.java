@@ -0,0 +1,174 @@
+package Grupo9_RESTServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.glassfish.jersey.internal.MapPropertiesDelegate;
+import org.glassfish.jersey.server.ApplicationHandler;
+import org.glassfish.jersey.server.ContainerRequest;
+import org.glassfish.jersey.server.ContainerResponse;
+import org.glassfish.jersey.server.spi.ContainerResponseWriter;
+
+import grupo9_FinancasPessoais.CategoriaService;
+import grupo9_FinancasPessoais.MetaService;
+import grupo9_FinancasPessoais.OrcamentoService;
+import grupo9_FinancasPessoais.SubcategoriaService;
+import grupo9_FinancasPessoais.TransacaoService;
+
+/**
+ * Teste de carga do ciclo de vida dos serviços do domínio: executa pedidos
+ * de leitura em paralelo contra a aplicação em memória, sem servidor HTTP,
+ * e mede por pedido os serviços criados, os bytes alocados e a latência.
+ *
+ * Não faz parte de {@link Testes}: usa a base de dados configurada no módulo
+ * do domínio e demora. Para comparar duas versões, executar em cada uma:
+ *
+ * <pre>
+ * java -cp ... Grupo9_RESTServer.CargaServicos [threads] [pedidos por thread]
+ * </pre>
+ */
+public class CargaServicos {
+
+    private static final String[] PEDIDOS = {
+        "/transacao/getAllTransacoes?limit=50",
+        "/transacao/getTransacaoPorId/1",
+        "/categoria/getAllCategorias",
+        "/meta/getMeta/ferias",
+        "/orcamento/getOrcamentos",
+    };
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int porThread = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+
+        AtomicLong criados = new AtomicLong();
+        ServicosDominio servicos = new ServicosDominio() {
+            @Override
+            public TransacaoService transacoes() {
+                criados.incrementAndGet();
+                return super.transacoes();
+            }
+
+            @Override
+            public CategoriaService categorias() {
+                criados.incrementAndGet();
+                return super.categorias();
+            }
+
+            @Override
+            public SubcategoriaService subcategorias() {
+                criados.incrementAndGet();
+                return super.subcategorias();
+            }
+
+            @Override
+            public MetaService metas() {
+                criados.incrementAndGet();
+                return super.metas();
+            }
+
+            @Override
+            public OrcamentoService orcamentos() {
+                criados.incrementAndGet();
+                return super.orcamentos();
+            }
+        };
+        ApplicationHandler aplicacao = new ApplicationHandler(new RESTApplication(servicos));
+
+        // aquecimento, que também carrega o índice, os totais e as caches
+        executar(aplicacao, threads, Math.max(1, porThread / 4), new HistogramaLatencias(), new AtomicLong());
+
+        criados.set(0);
+        HistogramaLatencias latencias = new HistogramaLatencias();
+        AtomicLong alocados = new AtomicLong();
+        long inicio = System.nanoTime();
+        executar(aplicacao, threads, porThread, latencias, alocados);
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+
+        long pedidos = latencias.getTotal();
+        System.out.printf("pedidos: %d em %.2f s (%.0f/s), %d threads%n", pedidos, segundos, pedidos / segundos, threads);
+        System.out.printf("serviços criados por pedido: %.3f%n", (double) criados.get() / pedidos);
+        System.out.printf("bytes alocados por pedido: %d%n", alocados.get() / pedidos);
+        System.out.printf("latência (µs): p50 %d, p99 %d, máx %d%n",
+                latencias.percentil(50), latencias.percentil(99), latencias.getMaximo());
+        System.exit(0);
+    }
+
+    private static void executar(ApplicationHandler aplicacao, int threads, int porThread,
+                                 HistogramaLatencias latencias, AtomicLong alocados) throws Exception {
+        com.sun.management.ThreadMXBean memoria =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> tarefas = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                tarefas.add(executor.submit(() -> {
+                    long id = Thread.currentThread().getId();
+                    for (int i = 0; i < porThread; i++) {
+                        String caminho = PEDIDOS[(thread + i) % PEDIDOS.length];
+                        long bytes = memoria.getThreadAllocatedBytes(id);
+                        long inicio = System.nanoTime();
+                        int estado = pedir(aplicacao, caminho);
+                        latencias.registar((System.nanoTime() - inicio) / 1000);
+                        alocados.addAndGet(memoria.getThreadAllocatedBytes(id) - bytes);
+                        if (estado >= 500) {
+                            throw new IllegalStateException(caminho + " respondeu " + estado);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> tarefa : tarefas) {
+                tarefa.get(10, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static int pedir(ApplicationHandler aplicacao, String caminho) throws Exception {
+        ContainerRequest pedido = new ContainerRequest(URI.create("http://localhost/"),
+                URI.create("http://localhost" + caminho), "GET", null, new MapPropertiesDelegate(), null);
+        pedido.header("Accept", "application/json");
+        ByteArrayOutputStream corpo = new ByteArrayOutputStream();
+        pedido.setWriter(new ContainerResponseWriter() {
+            @Override
+            public OutputStream writeResponseStatusAndHeaders(long comprimento, ContainerResponse resposta) {
+                return corpo;
+            }
+
+            @Override
+            public boolean suspend(long tempo, TimeUnit unidade, TimeoutHandler expiracao) {
+                return true;
+            }
+
+            @Override
+            public void setSuspendTimeout(long tempo, TimeUnit unidade) {
+            }
+
+            @Override
+            public void commit() {
+            }
+
+            @Override
+            public void failure(Throwable erro) {
+            }
+
+            @Override
+            public boolean enableResponseBuffering() {
+                return true;
+            }
+        });
+        return aplicacao.apply(pedido, corpo).get().getStatus();
+    }
+}
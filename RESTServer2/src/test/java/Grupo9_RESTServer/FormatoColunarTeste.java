@@ -0,0 +1,206 @@
+package Grupo9_RESTServer;
+
+import static Grupo9_RESTServer.Testes.iguais;
+import static Grupo9_RESTServer.Testes.lanca;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import grupo9_FinancasPessoais.Categoria;
+import grupo9_FinancasPessoais.Meta;
+import grupo9_FinancasPessoais.Subcategoria;
+import grupo9_FinancasPessoais.Transacao;
+
+import Grupo9_RESTServer.ImportacaoTransacoes.LinhaPendente;
+
+/**
+ * Testes do formato colunar: transações escritas e lidas de volta, e
+ * corpos inválidos.
+ */
+public class FormatoColunarTeste {
+
+    public static void main(String[] args) throws Exception {
+        transacoesVoltamIguais();
+        listaVaziaNaoImportaNada();
+        indiceDeTextoInvalidoFalhaSoALinha();
+        rejeitaCorposInvalidos();
+        System.out.println("FormatoColunarTeste: ok");
+    }
+
+    static void transacoesVoltamIguais() throws IOException {
+        List<Object> transacoes = List.of(
+                transacao("2024-01-31", 12.34, "renda", "casa", "aluguer", "poupar"),
+                transacao("2024-02-01", -0.01, "renda", "casa", null, null),
+                transacao(null, 1_000_000.99, "café ☕", null, "aluguer", null));
+
+        Leitura leitura = ler(escrever((byte) 'T', transacoes));
+        iguais(3, leitura.linhas.size(), "linhas lidas");
+        iguais("[1, 2024-01-31, 12.34, renda, casa, aluguer]", texto(leitura.linhas.get(0)), "primeira linha");
+        iguais("[2, 2024-02-01, -0.01, renda, casa, null]", texto(leitura.linhas.get(1)), "segunda linha");
+        iguais("[3, null, 1000000.99, café ☕, null, aluguer]", texto(leitura.linhas.get(2)), "terceira linha");
+        iguais(List.of(), leitura.falhas, "falhas");
+    }
+
+    static void listaVaziaNaoImportaNada() throws IOException {
+        Leitura leitura = ler(escrever((byte) 0, new ArrayList<>()));
+        iguais(0, leitura.linhas.size(), "linhas de uma lista vazia");
+    }
+
+    static void indiceDeTextoInvalidoFalhaSoALinha() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream saida = new DataOutputStream(bytes);
+        saida.writeInt(FormatoColunar.ASSINATURA);
+        saida.writeByte('T');
+        saida.writeInt(2);
+        saida.writeInt(1);
+        saida.writeInt(1);
+        saida.writeBytes("a");
+        escreverInts(saida, 0, FormatoColunar.SEM_DIA);
+        saida.writeLong(100);
+        saida.writeLong(200);
+        escreverInts(saida, 0, 7);
+        escreverInts(saida, FormatoColunar.SEM_TEXTO, FormatoColunar.SEM_TEXTO);
+        escreverInts(saida, FormatoColunar.SEM_TEXTO, FormatoColunar.SEM_TEXTO);
+        escreverInts(saida, FormatoColunar.SEM_TEXTO, FormatoColunar.SEM_TEXTO);
+
+        Leitura leitura = ler(bytes.toByteArray());
+        iguais(1, leitura.linhas.size(), "linhas válidas");
+        iguais("[1, 1970-01-01, 1.0, a, null, null]", texto(leitura.linhas.get(0)), "linha válida");
+        iguais(List.of("2: Índice de texto inválido."), leitura.falhas, "linha com índice inválido");
+    }
+
+    static void rejeitaCorposInvalidos() throws IOException {
+        byte[] valido = escrever((byte) 'T',
+                List.of(transacao("2024-01-01", 1, "a", null, null, null)));
+        byte[] assinatura = valido.clone();
+        assinatura[0] = 'X';
+        lanca(IllegalArgumentException.class, () -> lerSemErros(assinatura), "assinatura errada");
+        lanca(IllegalArgumentException.class,
+                () -> lerSemErros(Arrays.copyOf(valido, valido.length - 1)), "corpo truncado");
+        byte[] categorias = escrever((byte) 'C', List.of(new Categoria() {
+            @Override
+            public String getNomeC() {
+                return "casa";
+            }
+        }));
+        lanca(IllegalArgumentException.class, () -> lerSemErros(categorias), "categorias em vez de transações");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream saida = new DataOutputStream(bytes);
+        saida.writeInt(FormatoColunar.ASSINATURA);
+        saida.writeByte('T');
+        saida.writeInt(FormatoColunar.LINHAS_MAXIMAS + 1);
+        lanca(IllegalArgumentException.class, () -> lerSemErros(bytes.toByteArray()), "linhas a mais");
+    }
+
+    /**
+     * Importação que guarda as linhas lidas em vez de as gravar.
+     */
+    private static final class Leitura extends ImportacaoTransacoes {
+        final List<LinhaPendente> linhas = new ArrayList<>();
+        final List<String> falhas = new ArrayList<>();
+
+        Leitura() {
+            super(null);
+        }
+
+        @Override
+        void adicionar(LinhaPendente linha) {
+            linhas.add(linha);
+        }
+
+        @Override
+        void falhar(int numero, String mensagem) {
+            falhas.add(numero + ": " + mensagem);
+        }
+    }
+
+    private static Leitura ler(byte[] corpo) throws IOException {
+        Leitura leitura = new Leitura();
+        FormatoColunar.lerTransacoes(new ByteArrayInputStream(corpo), leitura);
+        return leitura;
+    }
+
+    private static void lerSemErros(byte[] corpo) {
+        try {
+            ler(corpo);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] escrever(byte tipo, List<Object> linhas) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream saida = new DataOutputStream(bytes);
+        FormatoColunar.escrever(tipo, linhas, saida);
+        saida.flush();
+        return bytes.toByteArray();
+    }
+
+    private static void escreverInts(DataOutputStream saida, int... valores) throws IOException {
+        for (int valor : valores) {
+            saida.writeInt(valor);
+        }
+    }
+
+    private static String texto(LinhaPendente linha) {
+        return Arrays.asList(linha.numero, linha.data, linha.valor, linha.descricao, linha.categoria,
+                linha.subcategoria).toString();
+    }
+
+    private static Transacao transacao(String data, double valor, String descricao, String categoria,
+                                       String subcategoria, String meta) {
+        return new Transacao() {
+            @Override
+            public String getData() {
+                return data;
+            }
+
+            @Override
+            public double getValor() {
+                return valor;
+            }
+
+            @Override
+            public String getDescricao() {
+                return descricao;
+            }
+
+            @Override
+            public Categoria getCategoria() {
+                return categoria == null ? null : new Categoria() {
+                    @Override
+                    public String getNomeC() {
+                        return categoria;
+                    }
+                };
+            }
+
+            @Override
+            public Subcategoria getSubcategoria() {
+                return subcategoria == null ? null : new Subcategoria() {
+                    @Override
+                    public String getNomeSubc() {
+                        return subcategoria;
+                    }
+                };
+            }
+
+            @Override
+            public Meta getMeta() {
+                return meta == null ? null : new Meta() {
+                    @Override
+                    public String getNome() {
+                        return meta;
+                    }
+                };
+            }
+        };
+    }
+}
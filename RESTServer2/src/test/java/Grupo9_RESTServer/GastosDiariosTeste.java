@@ -0,0 +1,74 @@
+package Grupo9_RESTServer;
+
+import static Grupo9_RESTServer.Testes.iguais;
+import static Grupo9_RESTServer.Testes.lanca;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Testes dos totais diários: agrupamento por período, datas muito afastadas
+ * e transações retiradas.
+ */
+public class GastosDiariosTeste {
+
+    public static void main(String[] args) {
+        agrupaPorMesECategoria();
+        datasMuitoAfastadasNaoOcupamOIntervalo();
+        ultimoDiaIgnoraDiasAnulados();
+        rejeitaIntervalosDemasiados();
+        System.out.println("GastosDiariosTeste: ok");
+    }
+
+    static void agrupaPorMesECategoria() {
+        GastosDiarios gastos = new GastosDiarios();
+        gastos.somar(dia("2024-01-31"), "casa", null, 1000);
+        gastos.somar(dia("2024-02-01"), "casa", null, 250);
+        gastos.somar(dia("2024-02-29"), "lazer", null, 500);
+        gastos.somar(dia("2024-04-01"), "casa", null, 7);
+
+        AnaliseGastos analise = gastos.agrupar(dia("2024-01-15"), dia("2024-03-31"),
+                GastosDiarios.Periodo.MES, false, 12);
+        iguais("[2024-01-15, 2024-02-01, 2024-03-01]", Arrays.toString(analise.getIntervalos()), "intervalos");
+        iguais("[10.0, 7.5, 0.0]", Arrays.toString(analise.getTotais()), "totais por mês");
+        iguais(2, analise.getSeries().size(), "séries");
+        iguais("casa", analise.getSeries().get(0).getNome(), "primeira série");
+        iguais("[10.0, 2.5, 0.0]", Arrays.toString(analise.getSeries().get(0).getValores()), "valores de casa");
+        iguais("[0.0, 5.0, 0.0]", Arrays.toString(analise.getSeries().get(1).getValores()), "valores de lazer");
+    }
+
+    static void datasMuitoAfastadasNaoOcupamOIntervalo() {
+        GastosDiarios gastos = new GastosDiarios();
+        // sem blocos por dia com gastos, isto pediria um array com mais de 3 milhões de dias
+        gastos.somar(dia("0001-01-01"), null, null, 100);
+        gastos.somar(dia("9999-12-31"), null, null, 200);
+        gastos.somar(dia("2024-06-10"), null, null, 300);
+
+        AnaliseGastos analise = gastos.agrupar(dia("2024-06-09"), dia("2024-06-11"),
+                GastosDiarios.Periodo.DIA, false, 10);
+        iguais("[0.0, 3.0, 0.0]", Arrays.toString(analise.getTotais()), "totais diários");
+        iguais(GastosDiarios.SEM_NOME, analise.getSeries().get(0).getNome(), "série sem categoria");
+        iguais(dia("9999-12-31"), gastos.getUltimoDia(), "último dia");
+    }
+
+    static void ultimoDiaIgnoraDiasAnulados() {
+        GastosDiarios gastos = new GastosDiarios();
+        iguais(Long.MIN_VALUE, gastos.getUltimoDia(), "último dia sem gastos");
+        gastos.somar(dia("2024-01-01"), "casa", null, 100);
+        gastos.somar(dia("2024-03-01"), "casa", null, 100);
+        gastos.somar(dia("2024-03-01"), "casa", null, -100);
+        iguais(dia("2024-01-01"), gastos.getUltimoDia(), "último dia depois de retirar");
+        gastos.limpar();
+        iguais(Long.MIN_VALUE, gastos.getUltimoDia(), "último dia depois de limpar");
+    }
+
+    static void rejeitaIntervalosDemasiados() {
+        GastosDiarios gastos = new GastosDiarios();
+        lanca(IllegalArgumentException.class, () -> gastos.agrupar(dia("2024-01-01"), dia("2024-12-31"),
+                GastosDiarios.Periodo.SEMANA, false, 10), "demasiadas semanas");
+    }
+
+    private static long dia(String data) {
+        return LocalDate.parse(data).toEpochDay();
+    }
+}
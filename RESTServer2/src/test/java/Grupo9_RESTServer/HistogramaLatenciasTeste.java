@@ -0,0 +1,79 @@
+package Grupo9_RESTServer;
+
+import static Grupo9_RESTServer.Testes.iguais;
+import static Grupo9_RESTServer.Testes.verificar;
+
+/**
+ * Testes do histograma de latências: intervalos exatos abaixo de 16 µs,
+ * erro relativo dos restantes e percentis.
+ */
+public class HistogramaLatenciasTeste {
+
+    public static void main(String[] args) {
+        semRegistosDevolveZero();
+        valoresPequenosSaoExatos();
+        limitesDosIntervalosTemErroRelativoPequeno();
+        percentisSeguemADistribuicao();
+        valoresForaDoIntervaloSaoLimitados();
+        System.out.println("HistogramaLatenciasTeste: ok");
+    }
+
+    static void semRegistosDevolveZero() {
+        HistogramaLatencias histograma = new HistogramaLatencias();
+        iguais(0L, histograma.percentil(50), "percentil sem registos");
+        iguais(0L, histograma.getTotal(), "total sem registos");
+    }
+
+    static void valoresPequenosSaoExatos() {
+        for (long v = 0; v < 16; v++) {
+            HistogramaLatencias histograma = new HistogramaLatencias();
+            histograma.registar(v);
+            iguais(v, histograma.percentil(100), "valor " + v);
+        }
+    }
+
+    static void limitesDosIntervalosTemErroRelativoPequeno() {
+        // o percentil devolve o limite superior do intervalo, limitado pelo máximo registado
+        for (long v = 16; v < 1L << 30; v += 1 + v / 7) {
+            HistogramaLatencias histograma = new HistogramaLatencias();
+            histograma.registar(v);
+            histograma.registar(1L << 35);
+            long limite = histograma.percentil(50);
+            verificar(limite >= v, "limite " + limite + " abaixo de " + v);
+            verificar(limite - v < v / 16.0, "erro de " + (limite - v) + " para " + v);
+        }
+        HistogramaLatencias histograma = new HistogramaLatencias();
+        histograma.registar(16);
+        histograma.registar(17);
+        histograma.registar(32);
+        histograma.registar(33);
+        histograma.registar(1000);
+        iguais(16L, histograma.percentil(20), "intervalo de 16");
+        iguais(17L, histograma.percentil(40), "intervalo de 17");
+        iguais(33L, histograma.percentil(60), "intervalo de 32 e 33");
+        iguais(33L, histograma.percentil(80), "intervalo de 32 e 33");
+    }
+
+    static void percentisSeguemADistribuicao() {
+        HistogramaLatencias histograma = new HistogramaLatencias();
+        for (long v = 1; v <= 1000; v++) {
+            histograma.registar(v);
+        }
+        iguais(1000L, histograma.getTotal(), "total");
+        iguais(500_500L, histograma.getSoma(), "soma");
+        iguais(1000L, histograma.getMaximo(), "máximo");
+        iguais(1L, histograma.percentil(0), "percentil 0");
+        verificar(Math.abs(histograma.percentil(50) - 500) <= 500 / 16, "mediana " + histograma.percentil(50));
+        verificar(Math.abs(histograma.percentil(99) - 990) <= 990 / 16, "percentil 99 " + histograma.percentil(99));
+        iguais(1000L, histograma.percentil(100), "percentil 100 limitado pelo máximo");
+    }
+
+    static void valoresForaDoIntervaloSaoLimitados() {
+        HistogramaLatencias histograma = new HistogramaLatencias();
+        histograma.registar(-5);
+        iguais(0L, histograma.percentil(100), "negativo conta como 0");
+        histograma.registar(Long.MAX_VALUE);
+        iguais((1L << 36) - 1, histograma.getMaximo(), "máximo distinguido");
+        iguais((1L << 36) - 1, histograma.percentil(100), "percentil do valor limitado");
+    }
+}
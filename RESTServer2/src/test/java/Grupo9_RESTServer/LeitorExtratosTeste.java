@@ -0,0 +1,111 @@
+package Grupo9_RESTServer;
+
+import static Grupo9_RESTServer.Testes.iguais;
+import static Grupo9_RESTServer.Testes.lanca;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import Grupo9_RESTServer.ImportacaoTransacoes.LinhaPendente;
+
+/**
+ * Testes da leitura de extratos: cabeçalho do CSV com BOM e codificação do
+ * OFX indicada no cabeçalho.
+ */
+public class LeitorExtratosTeste {
+
+    private static final String MOVIMENTO = "<STMTTRN><DTPOSTED>20240131<TRNAMT>-12,50<NAME>Café Açores</STMTTRN>";
+
+    public static void main(String[] args) throws IOException {
+        cabecalhoCsvComBomEReconhecido();
+        ofxSgmlUsaCharsetDoCabecalho();
+        ofxXmlUsaCodificacaoDaDeclaracao();
+        ofxSemCabecalhoELidoEmUtf8();
+        rejeitaCodificacaoDesconhecida();
+        System.out.println("LeitorExtratosTeste: ok");
+    }
+
+    static void cabecalhoCsvComBomEReconhecido() throws IOException {
+        Leitura leitura = new Leitura();
+        LeitorExtratos.lerCsv(new StringReader("\uFEFFdescricao;valor;data\nrenda;-500,00;2024-01-01\n"), leitura);
+        iguais(1, leitura.linhas.size(), "linhas do CSV");
+        iguais("renda 2024-01-01 -500.0", texto(leitura.linhas.get(0)), "colunas pelo nome do cabeçalho");
+    }
+
+    static void ofxSgmlUsaCharsetDoCabecalho() throws IOException {
+        String cabecalho = "OFXHEADER:100\r\nDATA:OFXSGML\r\nVERSION:102\r\nENCODING:USASCII\r\n";
+        iguais("Café Açores", lerOfx(cabecalho + "CHARSET:1252\r\n\r\n<OFX>" + MOVIMENTO,
+                Charset.forName("windows-1252")), "CHARSET 1252");
+        iguais("Café Açores", lerOfx(cabecalho + "CHARSET:ISO-8859-1\r\n\r\n<OFX>" + MOVIMENTO,
+                StandardCharsets.ISO_8859_1), "CHARSET ISO-8859-1");
+        iguais("Café Açores", lerOfx(cabecalho + "CHARSET:NONE\r\n\r\n<OFX>" + MOVIMENTO,
+                Charset.forName("windows-1252")), "CHARSET NONE");
+        iguais("Café Açores", lerOfx("OFXHEADER:100\r\nENCODING:UTF-8\r\nCHARSET:NONE\r\n\r\n<OFX>" + MOVIMENTO,
+                StandardCharsets.UTF_8), "ENCODING UTF-8");
+    }
+
+    static void ofxXmlUsaCodificacaoDaDeclaracao() throws IOException {
+        iguais("Café Açores", lerOfx("<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?>\n<?OFX OFXHEADER=\"200\"?><OFX>"
+                + MOVIMENTO, StandardCharsets.ISO_8859_1), "declaração ISO-8859-1");
+        iguais("Café Açores", lerOfx("<?xml version=\"1.0\"?>\n<OFX>" + MOVIMENTO, StandardCharsets.UTF_8),
+                "declaração sem codificação");
+    }
+
+    static void ofxSemCabecalhoELidoEmUtf8() throws IOException {
+        iguais("Café Açores", lerOfx("\uFEFF<OFX>" + MOVIMENTO, StandardCharsets.UTF_8), "com BOM");
+        iguais("Café Açores", lerOfx("<OFX>" + MOVIMENTO, StandardCharsets.UTF_8), "sem cabeçalho");
+    }
+
+    static void rejeitaCodificacaoDesconhecida() {
+        lanca(IllegalArgumentException.class, () -> {
+            try {
+                lerOfx("OFXHEADER:100\r\nENCODING:USASCII\r\nCHARSET:XPTO\r\n\r\n<OFX>", StandardCharsets.US_ASCII);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, "CHARSET desconhecido");
+    }
+
+    /**
+     * Lê um OFX codificado em bytes e devolve a descrição do único movimento.
+     */
+    private static String lerOfx(String ofx, Charset codificacao) throws IOException {
+        Leitura leitura = new Leitura();
+        LeitorExtratos.lerOfx(new BufferedInputStream(new ByteArrayInputStream(ofx.getBytes(codificacao))), leitura);
+        iguais(1, leitura.linhas.size(), "movimentos do OFX");
+        iguais(-12.5, leitura.linhas.get(0).valor, "valor do movimento");
+        return leitura.linhas.get(0).descricao;
+    }
+
+    private static String texto(LinhaPendente linha) {
+        return linha.descricao + " " + linha.data + " " + linha.valor;
+    }
+
+    /**
+     * Importação que guarda as linhas lidas em vez de as gravar.
+     */
+    private static final class Leitura extends ImportacaoTransacoes {
+        final List<LinhaPendente> linhas = new ArrayList<>();
+
+        Leitura() {
+            super(null);
+        }
+
+        @Override
+        void adicionar(LinhaPendente linha) {
+            linhas.add(linha);
+        }
+
+        @Override
+        void falhar(int numero, String mensagem) {
+            throw new AssertionError("linha " + numero + ": " + mensagem);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package Grupo9_RESTServer;
+
+import static Grupo9_RESTServer.Testes.iguais;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Testes do modelo dos totais: escritas ao longo de vários blocos comparadas
+ * com um recálculo simples, e modelos anteriores intactos depois de cada escrita.
+ */
+public class ModeloOrcamentoTeste {
+
+    public static void main(String[] args) {
+        escritasIguaisAoRecalculo();
+        modelosAnterioresNaoMudam();
+        System.out.println("ModeloOrcamentoTeste: ok");
+    }
+
+    /** Linha da referência; uma linha removida fica a null, como no modelo. */
+    private static final class Linha {
+        final String descricao;
+        final long valor;
+        String categoria;
+        String subcategoria;
+
+        Linha(String descricao, long valor, String categoria, String subcategoria) {
+            this.descricao = descricao;
+            this.valor = valor;
+            this.categoria = categoria;
+            this.subcategoria = subcategoria;
+        }
+    }
+
+    static void escritasIguaisAoRecalculo() {
+        Random aleatorio = new Random(5);
+        ModeloOrcamento modelo = ModeloOrcamento.de(Collections.emptyList());
+        List<Linha> linhas = new ArrayList<>();
+        for (int passo = 0; passo < 4 * ModeloOrcamento.LINHAS_POR_BLOCO; passo++) {
+            int operacao = linhas.isEmpty() ? 0 : aleatorio.nextInt(4);
+            if (operacao == 0) {
+                Linha linha = new Linha("t" + aleatorio.nextInt(700), aleatorio.nextInt(10_000),
+                        nome("c", aleatorio), nome("s", aleatorio));
+                modelo = modelo.comTransacao(linha.descricao, linha.valor, linha.categoria, linha.subcategoria);
+                linhas.add(linha);
+                continue;
+            }
+            String descricao = "t" + aleatorio.nextInt(700);
+            int posicao = modelo.posicao(descricao);
+            iguais(posicaoEsperada(linhas, descricao), posicao, "posição de " + descricao);
+            if (posicao < 0) {
+                continue;
+            }
+            if (operacao == 1) {
+                modelo = modelo.semTransacao(posicao);
+                linhas.set(posicao, null);
+            } else if (operacao == 2) {
+                linhas.get(posicao).categoria = nome("c", aleatorio);
+                modelo = modelo.comCategoria(posicao, linhas.get(posicao).categoria);
+            } else {
+                linhas.get(posicao).subcategoria = nome("s", aleatorio);
+                modelo = modelo.comSubcategoria(posicao, linhas.get(posicao).subcategoria);
+            }
+            verificarTotais(linhas, modelo, "passo " + passo);
+        }
+        verificarTotais(linhas, modelo, "fim");
+    }
+
+    static void modelosAnterioresNaoMudam() {
+        ModeloOrcamento modelo = ModeloOrcamento.de(Collections.emptyList());
+        for (int i = 0; i < ModeloOrcamento.LINHAS_POR_BLOCO + 10; i++) {
+            modelo = modelo.comTransacao("t" + i, 100, "casa", null);
+        }
+        ModeloOrcamento anterior = modelo;
+        int posicao = modelo.posicao("t3");
+        ModeloOrcamento alterado = modelo.comCategoria(posicao, "lazer").semTransacao(modelo.posicao("t200"))
+                .comTransacao("t3", 5, null, "extra");
+
+        iguais(26_600L, anterior.getTotal(), "total anterior");
+        iguais(26_600L, anterior.getGastoCategoria("casa"), "casa anterior");
+        iguais(0L, anterior.getGastoCategoria("lazer"), "lazer anterior");
+        iguais(3, anterior.posicao("t3"), "posição anterior");
+        iguais(ModeloOrcamento.REPETIDA, alterado.posicao("t3"), "descrição repetida");
+        iguais(ModeloOrcamento.SEM_ID, alterado.posicao("t200"), "descrição removida");
+        iguais(26_505L, alterado.getTotal(), "total alterado");
+        iguais(100L, alterado.getGastoCategoria("lazer"), "lazer alterado");
+        iguais(5L, alterado.getGastoSubcategoria("extra"), "subcategoria acrescentada");
+    }
+
+    private static String nome(String prefixo, Random aleatorio) {
+        int n = aleatorio.nextInt(6);
+        return n == 0 ? null : prefixo + n;
+    }
+
+    private static int posicaoEsperada(List<Linha> linhas, String descricao) {
+        int encontrada = ModeloOrcamento.SEM_ID;
+        for (int i = 0; i < linhas.size(); i++) {
+            if (linhas.get(i) != null && linhas.get(i).descricao.equals(descricao)) {
+                if (encontrada != ModeloOrcamento.SEM_ID) {
+                    return ModeloOrcamento.REPETIDA;
+                }
+                encontrada = i;
+            }
+        }
+        return encontrada;
+    }
+
+    private static void verificarTotais(List<Linha> linhas, ModeloOrcamento modelo, String mensagem) {
+        long total = 0;
+        Map<String, Long> categorias = new HashMap<>();
+        Map<String, Long> subcategorias = new HashMap<>();
+        for (Linha linha : linhas) {
+            if (linha == null) {
+                continue;
+            }
+            total += linha.valor;
+            if (linha.categoria != null) {
+                categorias.merge(linha.categoria, linha.valor, Long::sum);
+            }
+            if (linha.subcategoria != null) {
+                subcategorias.merge(linha.subcategoria, linha.valor, Long::sum);
+            }
+        }
+        iguais(total, modelo.getTotal(), mensagem + ": total");
+        for (int n = 1; n < 6; n++) {
+            iguais(categorias.getOrDefault("c" + n, 0L), modelo.getGastoCategoria("c" + n), mensagem + ": c" + n);
+            iguais(subcategorias.getOrDefault("s" + n, 0L), modelo.getGastoSubcategoria("s" + n),
+                    mensagem + ": s" + n);
+        }
+    }
+}
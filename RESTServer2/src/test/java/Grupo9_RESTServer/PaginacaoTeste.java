@@ -0,0 +1,148 @@
+package Grupo9_RESTServer;
+
+import static Grupo9_RESTServer.Testes.iguais;
+import static Grupo9_RESTServer.Testes.lanca;
+import static Grupo9_RESTServer.Testes.verificar;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Testes da paginação por cursor, em especial nos limites entre páginas.
+ */
+public class PaginacaoTeste {
+
+    public static void main(String[] args) {
+        percorreTodasAsChavesPorOrdem();
+        ultimaPaginaCheiaNaoTemCursor();
+        chavesRepetidasDesempatadasNaoSePerdem();
+        listagemVaziaDevolvePaginaVazia();
+        rejeitaLimiteECursorInvalidos();
+        paginacaoOrdenadaIgualAPaginacaoCompleta();
+        zerosMantemAOrdemNumerica();
+        System.out.println("PaginacaoTeste: ok");
+    }
+
+    static void percorreTodasAsChavesPorOrdem() {
+        Random aleatorio = new Random(7);
+        List<String> itens = new ArrayList<>();
+        for (int i = 0; i < 97; i++) {
+            itens.add(String.format("%05d", aleatorio.nextInt(100_000)) + "|" + i);
+        }
+        List<String> esperados = new ArrayList<>(itens);
+        Collections.sort(esperados);
+        Collections.shuffle(itens, aleatorio);
+
+        for (int limite = 1; limite <= 100; limite += 11) {
+            iguais(esperados, percorrer(itens, Function.identity(), limite), "páginas de " + limite);
+        }
+    }
+
+    static void ultimaPaginaCheiaNaoTemCursor() {
+        List<String> itens = List.of("a", "b", "c", "d");
+        Pagina<String> primeira = Paginacao.paginar(itens, Function.identity(), null, 2);
+        iguais(List.of("a", "b"), primeira.getItens(), "primeira página");
+        verificar(primeira.getProximoCursor() != null, "a primeira página tem cursor");
+        Pagina<String> segunda = Paginacao.paginar(itens, Function.identity(), primeira.getProximoCursor(), 2);
+        iguais(List.of("c", "d"), segunda.getItens(), "segunda página");
+        iguais(null, segunda.getProximoCursor(), "cursor da última página");
+    }
+
+    static void chavesRepetidasDesempatadasNaoSePerdem() {
+        // itens distintos com a mesma chave, como lançamentos iguais no mesmo dia
+        List<int[]> itens = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            itens.add(new int[] {i % 2 == 0 ? 1 : 2});
+        }
+        Function<int[], String> chave = Paginacao.desempatar(itens, item -> "dia|" + item[0]);
+
+        for (int limite = 1; limite <= 10; limite++) {
+            Map<int[], Boolean> vistos = new IdentityHashMap<>();
+            for (int[] item : percorrer(itens, chave, limite)) {
+                verificar(vistos.put(item, true) == null, "item repetido com páginas de " + limite);
+            }
+            iguais(itens.size(), vistos.size(), "itens devolvidos com páginas de " + limite);
+        }
+    }
+
+    static void listagemVaziaDevolvePaginaVazia() {
+        Pagina<String> pagina = Paginacao.paginar(Collections.emptyList(), Function.identity(), null, 5);
+        verificar(pagina.getItens().isEmpty(), "página vazia");
+        iguais(null, pagina.getProximoCursor(), "cursor da página vazia");
+    }
+
+    static void rejeitaLimiteECursorInvalidos() {
+        List<String> itens = List.of("a");
+        lanca(IllegalArgumentException.class,
+                () -> Paginacao.paginar(itens, Function.identity(), null, 0), "limite 0");
+        lanca(IllegalArgumentException.class,
+                () -> Paginacao.paginar(itens, Function.identity(), null, Paginacao.LIMITE_MAXIMO + 1), "limite acima do máximo");
+        lanca(IllegalArgumentException.class,
+                () -> Paginacao.paginar(itens, Function.identity(), "%%%", 1), "cursor inválido");
+    }
+
+    static void paginacaoOrdenadaIgualAPaginacaoCompleta() {
+        Random aleatorio = new Random(11);
+        NavigableMap<String, String> indice = new TreeMap<>();
+        for (int i = 0; i < 83; i++) {
+            String chave = Paginacao.comZeros(Integer.toString(aleatorio.nextInt(1_000)), 4) + "|" + i;
+            indice.put(chave, chave);
+        }
+        List<String> itens = new ArrayList<>(indice.values());
+        Collections.shuffle(itens, aleatorio);
+        BiFunction<String, Integer, List<Map.Entry<String, String>>> seguintes = (depoisDe, quantos) -> {
+            List<Map.Entry<String, String>> lidos = new ArrayList<>();
+            NavigableMap<String, String> restantes = depoisDe != null ? indice.tailMap(depoisDe, false) : indice;
+            for (Map.Entry<String, String> e : restantes.entrySet()) {
+                if (lidos.size() == quantos) {
+                    break;
+                }
+                lidos.add(e);
+            }
+            return lidos;
+        };
+
+        for (int limite = 1; limite <= 90; limite += 8) {
+            String cursor = null;
+            String cursorOrdenada = null;
+            do {
+                Pagina<String> completa = Paginacao.paginar(itens, Function.identity(), cursor, limite);
+                Pagina<String> ordenada = Paginacao.paginarOrdenada(seguintes, cursorOrdenada, limite);
+                iguais(completa.getItens(), ordenada.getItens(), "página ordenada de " + limite);
+                iguais(completa.getProximoCursor(), ordenada.getProximoCursor(), "cursor ordenado de " + limite);
+                cursor = completa.getProximoCursor();
+                cursorOrdenada = ordenada.getProximoCursor();
+            } while (cursor != null);
+        }
+    }
+
+    static void zerosMantemAOrdemNumerica() {
+        iguais("0000000042", Paginacao.comZeros(Long.toString(42), 10), "zeros à esquerda");
+        iguais("12345", Paginacao.comZeros("12345", 3), "número mais largo que a largura");
+        iguais(String.format("%019d", Long.MAX_VALUE), Paginacao.comZeros(Long.toString(Long.MAX_VALUE), 19),
+                "igual ao formato anterior");
+        verificar(Paginacao.comZeros("9", 5).compareTo(Paginacao.comZeros("10", 5)) < 0, "ordem numérica");
+    }
+
+    private static <T> List<T> percorrer(List<T> itens, Function<? super T, String> chave, int limite) {
+        List<T> todos = new ArrayList<>();
+        String cursor = null;
+        int paginas = 0;
+        do {
+            Pagina<T> pagina = Paginacao.paginar(itens, chave, cursor, limite);
+            verificar(pagina.getItens().size() <= limite, "página maior que o limite");
+            todos.addAll(pagina.getItens());
+            cursor = pagina.getProximoCursor();
+            verificar(++paginas <= itens.size() + 1, "a paginação não termina");
+        } while (cursor != null);
+        return todos;
+    }
+}
@@ -0,0 +1,64 @@
+package Grupo9_RESTServer;
+
+import java.util.Objects;
+
+/**
+ * Executa os testes do servidor, sem dependências além das bibliotecas em
+ * lib/. Cada classe de teste tem o seu main e pode ser executada sozinha;
+ * uma verificação falhada lança AssertionError e termina com código 1.
+ *
+ * A partir da pasta RESTServer2, com o módulo do domínio compilado em
+ * ../Grupo9_FinancasPessoais2/bin:
+ *
+ * <pre>
+ * javac -encoding UTF-8 -d build/test-classes -cp "lib/*:gson/*:../Grupo9_FinancasPessoais2/bin" \
+ *     src/main/java/Grupo9_RESTServer/*.java src/test/java/Grupo9_RESTServer/*.java
+ * java -cp "build/test-classes:lib/*:gson/*:../Grupo9_FinancasPessoais2/bin" Grupo9_RESTServer.Testes
+ * </pre>
+ */
+public final class Testes {
+
+    private Testes() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        try {
+            PaginacaoTeste.main(args);
+            CacheLimitadoTeste.main(args);
+            GastosDiariosTeste.main(args);
+            BloqueiosEntidadesTeste.main(args);
+            HistogramaLatenciasTeste.main(args);
+            FormatoColunarTeste.main(args);
+            LeitorExtratosTeste.main(args);
+            ModeloOrcamentoTeste.main(args);
+        } catch (AssertionError e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+        System.out.println("Todos os testes passaram.");
+    }
+
+    static void verificar(boolean condicao, String mensagem) {
+        if (!condicao) {
+            throw new AssertionError(mensagem);
+        }
+    }
+
+    static void iguais(Object esperado, Object obtido, String mensagem) {
+        if (!Objects.equals(esperado, obtido)) {
+            throw new AssertionError(mensagem + ": esperado " + esperado + ", obtido " + obtido);
+        }
+    }
+
+    static void lanca(Class<? extends Throwable> tipo, Runnable acao, String mensagem) {
+        try {
+            acao.run();
+        } catch (Throwable e) {
+            if (tipo.isInstance(e)) {
+                return;
+            }
+            throw new AssertionError(mensagem + ": lançou " + e, e);
+        }
+        throw new AssertionError(mensagem + ": não lançou " + tipo.getSimpleName());
+    }
+}